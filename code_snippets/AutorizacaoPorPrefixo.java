@@ -0,0 +1,258 @@
+/**
+ * =============================================================================
+ * 🌳 AutorizacaoPorPrefixo.java - Regras de Acesso Compiladas em Trie
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ AuthorizationManager customizado do Spring Security 6
+ * ✅ Regras de URL compiladas uma vez em uma trie por segmento de caminho
+ * ✅ Mesma semântica de "primeira regra que casa" da lista de requestMatchers
+ * ✅ Lista linear equivalente para comparação (benchmark e testes)
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Security 6
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Decide o acesso a uma URL percorrendo uma trie montada na subida.
+ *
+ * Antes, cada requisição passava pela lista de {@code requestMatchers} do
+ * SecurityConfig na ordem de declaração: até ~25 padrões avaliados (cada
+ * um com parse do caminho) para chegar ao {@code anyRequest()}. Agora os
+ * padrões viram nós de uma trie por segmento e a decisão sai de uma única
+ * descida, proporcional à profundidade da URL e não ao número de regras.
+ *
+ * Padrões aceitos:
+ * - Exato: {@code /login}, {@code /actuator/health}
+ * - Prefixo: {@code /api/pets/**} (casa {@code /api/pets} e tudo abaixo)
+ *
+ * Curingas no meio do padrão ({@code /api/*}/x, {@code *.css}) não são
+ * aceitos: o construtor falha na subida em vez de autorizar errado.
+ *
+ * Cada regra guarda sua ordem de declaração. Quando mais de uma regra casa
+ * na descida (ex: {@code /actuator/health} e {@code /actuator/**}), vence a
+ * de menor ordem, exatamente como na lista linear.
+ *
+ * O caminho usado é o mesmo do AntPathRequestMatcher: servletPath +
+ * pathInfo, já decodificados pelo container e sem o context path. A URI
+ * bruta ({@code getRequestURI()}) não serve: ela chega com percent-encoding
+ * e {@code /%61ctuator/env} não casaria com {@code /actuator/**}, embora o
+ * Spring MVC a atenda como {@code /actuator/env}. O StrictHttpFirewall
+ * rejeita antes daqui caminhos não normalizados ({@code //}, {@code ..},
+ * {@code ;}) e barras ou pontos codificados, mas não decodifica os demais
+ * caracteres.
+ */
+public final class AutorizacaoPorPrefixo implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final String SUFIXO_PREFIXO = "/**";
+
+    private static final AuthorizationManager<RequestAuthorizationContext> PERMITIR =
+        (autenticacao, contexto) -> new AuthorizationDecision(true);
+
+    private record Regra(int ordem, String padrao, AuthorizationManager<RequestAuthorizationContext> gerenciador) {
+    }
+
+    /**
+     * Nó da trie. Só é alterado durante a montagem; depois é somente leitura
+     * e publicado pelo campo final {@code raiz}.
+     */
+    private static final class No {
+        private final Map<String, No> filhos = new HashMap<>();
+        private Regra exata;
+        private Regra prefixo;
+
+        No filho(String segmento) {
+            return filhos.computeIfAbsent(segmento, s -> new No());
+        }
+    }
+
+    private final No raiz = new No();
+    private final List<Regra> regras;
+    private final AuthorizationManager<RequestAuthorizationContext> padrao;
+
+    private AutorizacaoPorPrefixo(List<Regra> regras, AuthorizationManager<RequestAuthorizationContext> padrao) {
+        this.regras = List.copyOf(regras);
+        this.padrao = padrao;
+        for (Regra regra : this.regras) {
+            inserir(regra);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // =========================================================================
+    // DECISÃO
+    // =========================================================================
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> autenticacao, RequestAuthorizationContext contexto) {
+        return gerenciadorPara(caminho(contexto.getRequest())).check(autenticacao, contexto);
+    }
+
+    /**
+     * Regra aplicável ao caminho: a de menor ordem entre os prefixos
+     * encontrados na descida e o padrão exato do último segmento.
+     */
+    AuthorizationManager<RequestAuthorizationContext> gerenciadorPara(String caminho) {
+        No no = raiz;
+        Regra escolhida = no.prefixo;
+        int inicio = 1;
+
+        while (true) {
+            int fim = caminho.indexOf('/', inicio);
+            String segmento = fim < 0 ? caminho.substring(inicio) : caminho.substring(inicio, fim);
+            no = no.filhos.get(segmento);
+            if (no == null) {
+                break;
+            }
+            escolhida = primeira(escolhida, no.prefixo);
+            if (fim < 0) {
+                escolhida = primeira(escolhida, no.exata);
+                break;
+            }
+            inicio = fim + 1;
+        }
+        return escolhida != null ? escolhida.gerenciador() : padrao;
+    }
+
+    private static Regra primeira(Regra atual, Regra candidata) {
+        if (candidata == null) {
+            return atual;
+        }
+        return atual == null || candidata.ordem() < atual.ordem() ? candidata : atual;
+    }
+
+    /**
+     * Caminho decodificado dentro da aplicação (servletPath + pathInfo).
+     * Também usado pelo SecurityConfig para reconhecer os recursos estáticos.
+     */
+    static String caminho(HttpServletRequest request) {
+        String caminho = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (pathInfo != null) {
+            caminho = caminho.isEmpty() ? pathInfo : caminho + pathInfo;
+        }
+        return caminho.isEmpty() ? "/" : caminho;
+    }
+
+    // =========================================================================
+    // MONTAGEM
+    // =========================================================================
+
+    private void inserir(Regra regra) {
+        String padrao = regra.padrao();
+        boolean prefixo = padrao.endsWith(SUFIXO_PREFIXO);
+        String base = prefixo ? padrao.substring(0, padrao.length() - SUFIXO_PREFIXO.length()) : padrao;
+
+        No no = raiz;
+        if (!base.isEmpty()) {
+            for (String segmento : base.substring(1).split("/", -1)) {
+                no = no.filho(segmento);
+            }
+        }
+
+        // Padrão repetido: a primeira declaração continua valendo
+        if (prefixo && no.prefixo == null) {
+            no.prefixo = regra;
+        } else if (!prefixo && no.exata == null) {
+            no.exata = regra;
+        }
+    }
+
+    private static void validar(String padrao) {
+        if (!padrao.startsWith("/")) {
+            throw new IllegalArgumentException("Padrão de URL deve começar com '/': " + padrao);
+        }
+        String base = padrao.endsWith(SUFIXO_PREFIXO)
+            ? padrao.substring(0, padrao.length() - SUFIXO_PREFIXO.length())
+            : padrao;
+        if (base.contains("*") || base.contains("{") || base.contains("?")) {
+            throw new IllegalArgumentException(
+                "Só são aceitos padrões exatos ou terminados em /**: " + padrao);
+        }
+    }
+
+    // =========================================================================
+    // REFERÊNCIA LINEAR
+    // =========================================================================
+
+    /**
+     * As mesmas regras como lista de matchers avaliada em ordem, o modelo do
+     * {@code requestMatchers(...)} original. Usado no AutorizacaoBenchmark e
+     * para conferir equivalência das decisões.
+     */
+    public AuthorizationManager<RequestAuthorizationContext> comoListaLinear() {
+        RequestMatcherDelegatingAuthorizationManager.Builder builder =
+            RequestMatcherDelegatingAuthorizationManager.builder();
+        for (Regra regra : regras) {
+            builder.add(new AntPathRequestMatcher(regra.padrao()), regra.gerenciador());
+        }
+        builder.add(AnyRequestMatcher.INSTANCE, padrao);
+        return builder.build();
+    }
+
+    // =========================================================================
+    // BUILDER
+    // =========================================================================
+
+    /**
+     * Declaração das regras na mesma ordem em que seriam escritas com
+     * {@code requestMatchers(...)}.
+     */
+    public static final class Builder {
+
+        private final List<Regra> regras = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder permitir(String... padroes) {
+            return regra(PERMITIR, padroes);
+        }
+
+        public Builder exigirPapel(String papel, String... padroes) {
+            return regra(AuthorityAuthorizationManager.hasRole(papel), padroes);
+        }
+
+        public Builder regra(AuthorizationManager<RequestAuthorizationContext> gerenciador, String... padroes) {
+            for (String padrao : padroes) {
+                validar(padrao);
+                regras.add(new Regra(regras.size(), padrao, gerenciador));
+            }
+            return this;
+        }
+
+        /**
+         * Finaliza com a regra para qualquer outra requisição (equivalente
+         * ao {@code anyRequest()}).
+         */
+        public AutorizacaoPorPrefixo qualquerOutra(AuthorizationManager<RequestAuthorizationContext> padrao) {
+            return new AutorizacaoPorPrefixo(regras, padrao);
+        }
+
+        public AutorizacaoPorPrefixo qualquerOutraAutenticada() {
+            return qualquerOutra(AuthenticatedAuthorizationManager.authenticated());
+        }
+    }
+}
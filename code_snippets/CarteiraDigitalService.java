@@ -6,30 +6,36 @@
  * Este serviço demonstra:
  * ✅ Integração do Spring com biblioteca OpenHTMLToPDF
  * ✅ Uso do Thymeleaf para renderização de templates HTML
- * ✅ Manipulação de streams binários (ByteArrayOutputStream)
- * ✅ Conversão de imagens para Base64 inline
- * ✅ Renderização de SVG com BatikSVGDrawer
+ * ✅ Manipulação de streams binários (OutputStream / StreamingResponseBody)
+ * ✅ Recursos Base64 inline pré-carregados via PdfAssetRegistry
+ * ✅ Cache endereçado por conteúdo dos PDFs gerados (CarteiraPdfCache)
+ * ✅ Renderização de SVG com BatikSVGDrawer em pool limitado (PdfRenderPool)
+ * ✅ Aquecimento do template e do renderizador na subida (via InicializacaoConfig)
+ * ✅ Métricas Micrometer por etapa da geração e tamanho do PDF
  * 
- * Tecnologias: Java 21, Spring Boot 3.3, OpenHTMLToPDF 1.0.10, Thymeleaf
+ * Tecnologias: Java 21, Spring Boot 3.3, OpenHTMLToPDF 1.0.10, Thymeleaf, Micrometer
  * =============================================================================
  */
 
 package com.petdoc.service;
 
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
-import com.openhtmltopdf.svgsupport.BatikSVGDrawer;
 import com.petdoc.dto.api.pet.CarteiraDigitalDTO;
 import com.petdoc.model.Pet;
 import com.petdoc.model.Vacina;
-import org.springframework.core.io.ClassPathResource;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.util.Base64;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -38,115 +44,259 @@ import java.util.List;
  * Fluxo de geração:
  * 1. Recebe dados do Pet e suas Vacinas
  * 2. Converte para DTO específico da carteira
- * 3. Carrega logo como Base64 para embedding inline
- * 4. Processa template Thymeleaf para HTML
- * 5. Converte HTML para PDF usando OpenHTMLToPDF
- * 6. Retorna array de bytes para download
+ * 3. Consulta o cache pela chave do DTO (acerto encerra o fluxo)
+ * 4. Aplica recursos pré-carregados (logo, ícones) no contexto
+ * 5. Processa template Thymeleaf para HTML
+ * 6. Converte HTML para PDF usando OpenHTMLToPDF (no PdfRenderPool)
+ * 7. Escreve o PDF direto no OutputStream de destino (ou retorna byte[])
+ * 
+ * Cada etapa é medida no timer {@code petdoc.pdf.etapa} (tag {@code etapa}:
+ * dto, assets, template, layout) e o tamanho final em
+ * {@code petdoc.pdf.tamanho} (tag {@code origem}: render ou cache).
  */
 @Service
 public class CarteiraDigitalService {
 
+    private static final Logger log = LoggerFactory.getLogger(CarteiraDigitalService.class);
+
     private final TemplateEngine templateEngine;
+    private final PdfAssetRegistry assetRegistry;
+    private final CarteiraPdfCache pdfCache;
+    private final PdfRenderPool renderPool;
+
+    // Métricas resolvidas uma vez (evita lookup no registry a cada PDF)
+    private final Timer tempoDto;
+    private final Timer tempoAssets;
+    private final Timer tempoTemplate;
+    private final Timer tempoLayout;
+    private final DistributionSummary tamanhoRenderizado;
+    private final DistributionSummary tamanhoCache;
 
-    public CarteiraDigitalService(TemplateEngine templateEngine) {
+    public CarteiraDigitalService(TemplateEngine templateEngine,
+                                  PdfAssetRegistry assetRegistry,
+                                  CarteiraPdfCache pdfCache,
+                                  PdfRenderPool renderPool,
+                                  MeterRegistry meterRegistry) {
         this.templateEngine = templateEngine;
+        this.assetRegistry = assetRegistry;
+        this.pdfCache = pdfCache;
+        this.renderPool = renderPool;
+
+        this.tempoDto = etapa(meterRegistry, "dto");
+        this.tempoAssets = etapa(meterRegistry, "assets");
+        this.tempoTemplate = etapa(meterRegistry, "template");
+        this.tempoLayout = etapa(meterRegistry, "layout");
+        this.tamanhoRenderizado = tamanho(meterRegistry, "render");
+        this.tamanhoCache = tamanho(meterRegistry, "cache");
+    }
+
+    /**
+     * Aquece o template e o renderizador assim que a aplicação sobe.
+     * 
+     * A primeira renderização carrega as classes do PDFBox/Batik, as fontes e
+     * o parser de CSS; fazer isso aqui evita que o primeiro tutor pague o
+     * custo. O resultado é descartado e não passa pelo cache.
+     * 
+     * Disparado pelo InicializacaoConfig no ApplicationReadyEvent (síncrono
+     * ou em segundo plano, conforme o modo de subida) e na execução de
+     * treino do AppCDS.
+     */
+    public void aquecer() {
+        long inicio = System.currentTimeMillis();
+        try {
+            CarteiraDigitalDTO dto = CarteiraDigitalDTO.fromPet(new Pet(), List.of(), "PetDoc");
+            renderPool.renderizar(renderizarHtml(dto), OutputStream.nullOutputStream());
+            log.info("Renderizador de PDF aquecido em {} ms.", System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            log.warn("Falha no aquecimento do renderizador de PDF: {}", e.getMessage());
+        }
     }
 
     /**
      * Gera a carteira digital de vacinação em formato PDF.
      * 
+     * Mantido para chamadas que precisam do documento completo em memória
+     * (ex: anexos de e-mail). Para download HTTP prefira
+     * {@link #gerarCarteiraPDFStreaming(Pet, List, String)}.
+     * 
      * @param pet O pet para o qual a carteira será gerada
      * @param vacinas Lista de vacinas aplicadas no pet
      * @param tutorNome Nome do tutor (dono) do pet
      * @return byte[] contendo o PDF gerado
      */
     public byte[] gerarCarteiraPDF(Pet pet, List<Vacina> vacinas, String tutorNome) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        gerarCarteiraPDF(pet, vacinas, tutorNome, os);
+        return os.toByteArray();
+    }
 
-        // 1. Transforma entidades em DTO específico para a carteira
-        CarteiraDigitalDTO dto = CarteiraDigitalDTO.fromPet(pet, vacinas, tutorNome);
-
-        // 2. Carrega a logo como Base64 para embedding inline no HTML
-        //    Isso evita problemas de caminho relativo na renderização do PDF
-        String logoBase64 = carregarImagemBase64("static/images/petdoc-logo_compressed2.png");
-
-        // 3. Prepara o contexto do Thymeleaf com as variáveis do template
-        Context context = new Context();
-        context.setVariable("carteira", dto);
-        context.setVariable("logoPetDoc", logoBase64);
-
-        // 4. Processa o template HTML usando Thymeleaf
-        String html = templateEngine.process("carteira/carteira-digital", context);
-
-        // 5. Converte o HTML em PDF
-        return convertHtmlToPdf(html);
+    /**
+     * Gera a carteira digital escrevendo o PDF diretamente no stream informado.
+     * 
+     * O stream NÃO é fechado: a responsabilidade continua com quem o abriu
+     * (ex: o container de servlets). O PdfRenderPool entrega ao PDFBox um
+     * wrapper cujo close() só faz flush.
+     * 
+     * @param pet O pet para o qual a carteira será gerada
+     * @param vacinas Lista de vacinas aplicadas no pet
+     * @param tutorNome Nome do tutor (dono) do pet
+     * @param destino Stream que receberá os bytes do PDF
+     */
+    public void gerarCarteiraPDF(Pet pet, List<Vacina> vacinas, String tutorNome, OutputStream destino) {
+        gerarCarteiraPDF(montarDto(pet, vacinas, tutorNome), pet.getId(), destino);
     }
 
     /**
-     * Carrega uma imagem do Classpath (resources) e converte para string Base64 
-     * pronta para uso em src de tag <img> no HTML.
+     * Gera a carteira a partir de um DTO já montado.
      * 
-     * Formato retornado: "data:image/png;base64,iVBORw0KGg..."
+     * Usado quando as entidades são lidas em outra transação (ex: exportação
+     * em lote), permitindo renderizar sem manter a conexão do banco aberta.
      * 
-     * @param caminhoResource Caminho relativo a partir de src/main/resources
-     * @return String Base64 com prefixo data URI ou string vazia se não encontrar
+     * @param dto Dados da carteira já extraídos das entidades
+     * @param petId ID do pet, usado para agrupar as entradas do cache
+     * @param destino Stream que receberá os bytes do PDF
      */
-    private String carregarImagemBase64(String caminhoResource) {
+    public void gerarCarteiraPDF(CarteiraDigitalDTO dto, Long petId, OutputStream destino) {
+        gerarCarteiraPDF(dto, petId, destino, true);
+    }
+
+    /**
+     * Igual a {@link #gerarCarteiraPDF(CarteiraDigitalDTO, Long, OutputStream)},
+     * mas o PDF renderizado não entra na camada de memória do cache (só no
+     * disco, se houver). Para exportação em lote e jobs: cada carteira é
+     * lida uma vez e não deve despejar do LRU as carteiras dos downloads
+     * interativos.
+     */
+    public void gerarCarteiraPDFSegundoPlano(CarteiraDigitalDTO dto, Long petId, OutputStream destino) {
+        gerarCarteiraPDF(dto, petId, destino, false);
+    }
+
+    private void gerarCarteiraPDF(CarteiraDigitalDTO dto, Long petId, OutputStream destino, boolean cacheMemoria) {
         try {
-            ClassPathResource resource = new ClassPathResource(caminhoResource);
-            if (resource.exists()) {
-                byte[] imageBytes = StreamUtils.copyToByteArray(resource.getInputStream());
-                String base64 = Base64.getEncoder().encodeToString(imageBytes);
-                
-                // Detecta o tipo MIME baseado na extensão
-                String mimeType = caminhoResource.endsWith(".jpg") || 
-                                  caminhoResource.endsWith(".jpeg") 
-                                  ? "image/jpeg" 
-                                  : "image/png";
-                
-                return "data:" + mimeType + ";base64," + base64;
-            }
+            escreverCarteira(dto, petId, destino, cacheMemoria);
         } catch (IOException e) {
-            log.error("Erro ao carregar imagem para Base64: " + e.getMessage(), e);
+            throw new RuntimeException(
+                "Erro ao escrever PDF da carteira digital: " + e.getMessage(), e
+            );
         }
-        return "";
     }
 
     /**
-     * Converte HTML para PDF usando OpenHTMLToPDF.
+     * Prepara a carteira para ser enviada em streaming na resposta HTTP.
+     * 
+     * O DTO é montado imediatamente, ainda na thread da requisição, enquanto
+     * as entidades JPA estão acessíveis. A consulta ao cache, o template e o
+     * layout do PDF são adiados para o momento em que o Spring MVC escreve o
+     * corpo da resposta, evitando manter o documento inteiro no heap.
      * 
-     * Características:
-     * - Modo rápido habilitado para melhor performance
-     * - Suporte a SVG via BatikSVGDrawer
-     * - Renderização em memória (ByteArrayOutputStream)
+     * Uso no controller:
+     * <pre>
+     * return ResponseEntity.ok()
+     *     .contentType(MediaType.APPLICATION_PDF)
+     *     .body(carteiraDigitalService.gerarCarteiraPDFStreaming(pet, vacinas, tutor));
+     * </pre>
      * 
-     * @param html String contendo HTML válido
-     * @return byte[] contendo o PDF renderizado
-     * @throws RuntimeException se houver erro na conversão
+     * @return corpo da resposta que renderiza o PDF no output do servlet
      */
-    private byte[] convertHtmlToPdf(String html) {
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-
-            // Modo rápido: desabilita algumas features para ganho de performance
-            builder.useFastMode();
-
-            // Habilita suporte a SVG para ícones e gráficos
-            builder.useSVGDrawer(new BatikSVGDrawer());
-            
-            // Define o conteúdo HTML e a base URI para recursos relativos
-            builder.withHtmlContent(html, "/");
-            
-            // Define o stream de saída
-            builder.toStream(os);
-            
-            // Executa a renderização
-            builder.run();
-            
-            return os.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException(
-                "Erro ao gerar PDF da carteira digital: " + e.getMessage(), e
-            );
+    public StreamingResponseBody gerarCarteiraPDFStreaming(Pet pet, List<Vacina> vacinas, String tutorNome) {
+        CarteiraDigitalDTO dto = montarDto(pet, vacinas, tutorNome);
+        Long petId = pet.getId();
+        return destino -> escreverCarteira(dto, petId, destino, true);
+    }
+
+    /**
+     * Serve a carteira do cache ou renderiza e armazena o resultado.
+     * 
+     * Na renderização os bytes seguem direto para o destino; o cache apenas
+     * captura uma cópia em paralelo (ver {@link CarteiraPdfCache.Gravacao}).
+     */
+    private void escreverCarteira(CarteiraDigitalDTO dto, Long petId, OutputStream destino,
+                                  boolean cacheMemoria) throws IOException {
+        ContadorBytes contador = new ContadorBytes(destino);
+        String chave = pdfCache.chave(dto);
+        if (pdfCache.servir(chave, petId, contador)) {
+            tamanhoCache.record(contador.total);
+            return;
+        }
+
+        try (CarteiraPdfCache.Gravacao gravacao = pdfCache.gravar(chave, petId, contador, cacheMemoria)) {
+            String html = renderizarHtml(dto);
+            tempoLayout.record(() -> renderPool.renderizar(html, gravacao));
+            gravacao.concluir();
+        }
+        tamanhoRenderizado.record(contador.total);
+    }
+
+    private CarteiraDigitalDTO montarDto(Pet pet, List<Vacina> vacinas, String tutorNome) {
+        return tempoDto.record(() -> CarteiraDigitalDTO.fromPet(pet, vacinas, tutorNome));
+    }
+
+    /**
+     * Processa o template Thymeleaf da carteira a partir do DTO.
+     * 
+     * @return HTML completo da carteira
+     */
+    private String renderizarHtml(CarteiraDigitalDTO dto) {
+
+        // 1. Prepara o contexto do Thymeleaf com as variáveis do template
+        Context context = new Context();
+        context.setVariable("carteira", dto);
+
+        // 2. Aplica a logo e os ícones já codificados em Base64 na inicialização
+        //    Isso evita releitura do Classpath e nova alocação a cada PDF
+        tempoAssets.record(() -> assetRegistry.aplicar(context));
+
+        // 3. Processa o template HTML usando Thymeleaf
+        return tempoTemplate.record(() -> templateEngine.process("carteira/carteira-digital", context));
+    }
+
+    // =========================================================================
+    // MÉTRICAS
+    // =========================================================================
+
+    private static Timer etapa(MeterRegistry registry, String etapa) {
+        return Timer.builder("petdoc.pdf.etapa")
+            .description("Tempo de cada etapa da geração da carteira digital")
+            .tag("etapa", etapa)
+            .register(registry);
+    }
+
+    private static DistributionSummary tamanho(MeterRegistry registry, String origem) {
+        return DistributionSummary.builder("petdoc.pdf.tamanho")
+            .description("Tamanho do PDF da carteira digital entregue")
+            .baseUnit("bytes")
+            .tag("origem", origem)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    /**
+     * Conta os bytes escritos sem alterar o destino. O close() não é
+     * repassado: o stream continua sendo de quem o abriu.
+     */
+    private static final class ContadorBytes extends FilterOutputStream {
+
+        private long total;
+
+        ContadorBytes(OutputStream destino) {
+            super(destino);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            total++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            total += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
         }
     }
 }
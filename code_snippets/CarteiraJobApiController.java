@@ -0,0 +1,126 @@
+/**
+ * =============================================================================
+ * 📡 CarteiraJobApiController.java - API de Jobs da Carteira Digital
+ * =============================================================================
+ *
+ * Este controller demonstra:
+ * ✅ 202 Accepted + Location para trabalho assíncrono
+ * ✅ Polling com Retry-After e link de download quando o PDF fica pronto
+ * ✅ Escopo restrito ao usuário autenticado (Principal)
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring MVC
+ * =============================================================================
+ */
+
+package com.petdoc.controller.api;
+
+import com.petdoc.repository.CarteiraJobRepository;
+import com.petdoc.service.CarteiraJobService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Geração da carteira fora da requisição.
+ *
+ * - POST /api/pets/carteiras/jobs: enfileira o job (202 + Location)
+ * - GET  /api/pets/carteiras/jobs/{jobId}: situação do job
+ * - GET  /api/pets/carteiras/jobs/{jobId}/pdf: download, quando CONCLUIDO
+ *
+ * Enquanto o job está em aberto a resposta traz {@code Retry-After}, que o
+ * frontend usa como intervalo de polling. Jobs de outro tutor, expirados ou
+ * inexistentes respondem 404.
+ */
+@RestController
+@RequestMapping(CarteiraJobApiController.BASE)
+public class CarteiraJobApiController {
+
+    static final String BASE = "/api/pets/carteiras/jobs";
+
+    private static final String INTERVALO_POLLING_SEGUNDOS = "2";
+
+    private final CarteiraJobService carteiraJobService;
+
+    public CarteiraJobApiController(CarteiraJobService carteiraJobService) {
+        this.carteiraJobService = carteiraJobService;
+    }
+
+    /**
+     * Corpo da requisição.
+     *
+     * @param petId Pet do tutor logado
+     * @param notificarPorEmail Envia também o PDF para o e-mail do tutor
+     */
+    public record JobRequest(Long petId, boolean notificarPorEmail) {
+    }
+
+    /**
+     * @param downloadUrl Preenchido apenas quando o job está CONCLUIDO
+     */
+    public record JobResponse(UUID jobId, CarteiraJobRepository.Status status, Long petId,
+                              String erro, Instant expiraEm, String downloadUrl) {
+
+        static JobResponse de(CarteiraJobRepository.SituacaoJob job) {
+            String download = job.status() == CarteiraJobRepository.Status.CONCLUIDO
+                ? BASE + "/" + job.id() + "/pdf"
+                : null;
+            return new JobResponse(job.id(), job.status(), job.petId(), job.erro(), job.expiraEm(), download);
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<JobResponse> enfileirar(@RequestBody JobRequest request, Principal principal) {
+        if (request.petId() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Optional<UUID> jobId = carteiraJobService.enfileirar(
+            principal.getName(), request.petId(), request.notificarPorEmail());
+        if (jobId.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        UUID id = jobId.get();
+        return ResponseEntity.accepted()
+            .location(URI.create(BASE + "/" + id))
+            .header(HttpHeaders.RETRY_AFTER, INTERVALO_POLLING_SEGUNDOS)
+            .body(new JobResponse(id, CarteiraJobRepository.Status.PENDENTE, request.petId(), null, null, null));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<JobResponse> situacao(@PathVariable UUID jobId, Principal principal) {
+        return carteiraJobService.situacao(jobId, principal.getName())
+            .map(job -> {
+                boolean emAberto = job.status() == CarteiraJobRepository.Status.PENDENTE
+                    || job.status() == CarteiraJobRepository.Status.PROCESSANDO;
+                ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+                if (emAberto) {
+                    resposta.header(HttpHeaders.RETRY_AFTER, INTERVALO_POLLING_SEGUNDOS);
+                }
+                return resposta.body(JobResponse.de(job));
+            })
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{jobId}/pdf")
+    public ResponseEntity<byte[]> download(@PathVariable UUID jobId, Principal principal) {
+        return carteiraJobService.pdf(jobId, principal.getName())
+            .map(pdf -> ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + pdf.nomeArquivo() + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(pdf.conteudo()))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * =============================================================================
+ * 💾 CarteiraJobRepository.java - Estado e Resultado dos Jobs de PDF
+ * =============================================================================
+ *
+ * Este repositório demonstra:
+ * ✅ JdbcTemplate com transições de estado condicionais (UPDATE ... WHERE status)
+ * ✅ PDF pronto em BYTEA, lido só no download (o polling não traz o conteúdo)
+ * ✅ TTL aplicado no banco (expira_em) e limpeza em massa
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring JDBC, PostgreSQL 15
+ * =============================================================================
+ */
+
+package com.petdoc.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Operações da tabela {@code carteira_job}.
+ *
+ * Ciclo de vida de um job:
+ * PENDENTE → PROCESSANDO → CONCLUIDO (PDF disponível até expira_em)
+ *     ↘          ↘ FALHA
+ *      FALHA (abandonado na fila)
+ *
+ * Só quem iniciou o job o encerra: CONCLUIDO e FALHA exigem PROCESSANDO,
+ * então um job já marcado como abandonado não é sobrescrito por uma
+ * renderização que terminou atrasada.
+ *
+ * Todas as leituras filtram pelo e-mail do tutor: um job só é visível para
+ * quem o criou.
+ */
+@Repository
+public class CarteiraJobRepository {
+
+    public enum Status { PENDENTE, PROCESSANDO, CONCLUIDO, FALHA }
+
+    /**
+     * Situação de um job, sem o conteúdo do PDF.
+     */
+    public record SituacaoJob(UUID id, Long petId, Status status, String nomeArquivo,
+                              String erro, Instant criadoEm, Instant expiraEm) {
+    }
+
+    public record PdfJob(String nomeArquivo, byte[] conteudo) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CarteiraJobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // =========================================================================
+    // TRANSIÇÕES
+    // =========================================================================
+
+    /**
+     * Registra o job como PENDENTE. O TTL é renovado a partir da conclusão
+     * ou da falha; enquanto o job está em aberto ele não é removido.
+     */
+    public void criar(UUID id, String emailTutor, Long petId, boolean notificarEmail, Duration ttl) {
+        jdbcTemplate.update(
+            "INSERT INTO carteira_job (id, email_tutor, pet_id, notificar_email, expira_em) " +
+            "VALUES (?, ?, ?, ?, now() + make_interval(secs => ?))",
+            id, emailTutor, petId, notificarEmail, ttl.toSeconds());
+    }
+
+    /**
+     * Marca o início da renderização; o abandono passa a contar daqui.
+     *
+     * @return false se o job não está mais PENDENTE (ex: marcado como abandonado)
+     */
+    public boolean iniciar(UUID id) {
+        return jdbcTemplate.update(
+            "UPDATE carteira_job SET status = 'PROCESSANDO', iniciado_em = now() " +
+            "WHERE id = ? AND status = 'PENDENTE'", id) == 1;
+    }
+
+    /**
+     * @return false se o job não está mais PROCESSANDO (ex: marcado como abandonado)
+     */
+    public boolean concluir(UUID id, String nomeArquivo, byte[] pdf, Duration ttl) {
+        return jdbcTemplate.update(
+            "UPDATE carteira_job SET status = 'CONCLUIDO', nome_arquivo = ?, pdf = ?, concluido_em = now(), " +
+            "expira_em = now() + make_interval(secs => ?) WHERE id = ? AND status = 'PROCESSANDO'",
+            nomeArquivo, pdf, ttl.toSeconds(), id) == 1;
+    }
+
+    /**
+     * @return false se o job não está mais PROCESSANDO
+     */
+    public boolean falhar(UUID id, String erro, Duration ttl) {
+        return jdbcTemplate.update(
+            "UPDATE carteira_job SET status = 'FALHA', erro = ?, concluido_em = now(), " +
+            "expira_em = now() + make_interval(secs => ?) WHERE id = ? AND status = 'PROCESSANDO'",
+            erro, ttl.toSeconds(), id) == 1;
+    }
+
+    /**
+     * Remove um job que não chegou a entrar na fila (executor saturado).
+     */
+    public void remover(UUID id) {
+        jdbcTemplate.update("DELETE FROM carteira_job WHERE id = ?", id);
+    }
+
+    // =========================================================================
+    // CONSULTAS
+    // =========================================================================
+
+    public Optional<SituacaoJob> buscar(UUID id, String emailTutor) {
+        List<SituacaoJob> encontrados = jdbcTemplate.query(
+            "SELECT id, pet_id, status, nome_arquivo, erro, criado_em, expira_em FROM carteira_job " +
+            "WHERE id = ? AND email_tutor = ? AND expira_em > now()",
+            (rs, i) -> new SituacaoJob(
+                rs.getObject("id", UUID.class),
+                rs.getLong("pet_id"),
+                Status.valueOf(rs.getString("status")),
+                rs.getString("nome_arquivo"),
+                rs.getString("erro"),
+                rs.getTimestamp("criado_em").toInstant(),
+                rs.getTimestamp("expira_em").toInstant()),
+            id, emailTutor);
+        return encontrados.stream().findFirst();
+    }
+
+    /**
+     * PDF de um job concluído e ainda dentro do TTL.
+     */
+    public Optional<PdfJob> buscarPdf(UUID id, String emailTutor) {
+        List<PdfJob> encontrados = jdbcTemplate.query(
+            "SELECT nome_arquivo, pdf FROM carteira_job " +
+            "WHERE id = ? AND email_tutor = ? AND status = 'CONCLUIDO' AND expira_em > now()",
+            (rs, i) -> new PdfJob(rs.getString("nome_arquivo"), rs.getBytes("pdf")),
+            id, emailTutor);
+        return encontrados.stream().findFirst();
+    }
+
+    // =========================================================================
+    // LIMPEZA
+    // =========================================================================
+
+    /**
+     * Remove os jobs encerrados fora do TTL. Jobs em aberto ficam para
+     * {@link #falharAbandonados}.
+     *
+     * @return quantidade de jobs removidos
+     */
+    public int removerExpirados() {
+        return jdbcTemplate.update(
+            "DELETE FROM carteira_job WHERE expira_em <= now() AND status IN ('CONCLUIDO', 'FALHA')");
+    }
+
+    /**
+     * Marca como FALHA os jobs que a instância que os recebeu não vai mais
+     * terminar (ela caiu):
+     * - PENDENTE há mais que {@code limiteFila}, contado de {@code criado_em}
+     * - PROCESSANDO há mais que {@code limiteProcessamento}, contado de
+     *   {@code iniciado_em}: o tempo de fila não entra na conta
+     *
+     * O TTL é renovado para o tutor ainda ver a falha no polling.
+     *
+     * @return quantidade de jobs marcados
+     */
+    public int falharAbandonados(Duration limiteFila, Duration limiteProcessamento, Duration ttl) {
+        Instant agora = Instant.now();
+        return jdbcTemplate.update(
+            "UPDATE carteira_job SET status = 'FALHA', erro = 'instância encerrada antes da conclusão', " +
+            "concluido_em = now(), expira_em = now() + make_interval(secs => ?) " +
+            "WHERE (status = 'PENDENTE' AND criado_em < ?) OR (status = 'PROCESSANDO' AND iniciado_em < ?)",
+            ttl.toSeconds(),
+            Timestamp.from(agora.minus(limiteFila)),
+            Timestamp.from(agora.minus(limiteProcessamento)));
+    }
+}
@@ -0,0 +1,306 @@
+/**
+ * =============================================================================
+ * 🧾 CarteiraJobService.java - Geração Assíncrona da Carteira Digital
+ * =============================================================================
+ *
+ * Este serviço demonstra:
+ * ✅ Job de PDF enfileirado em executor próprio (fora da thread do servlet)
+ * ✅ Fila limitada com rejeição imediata (503) em vez de acúmulo sem fim
+ * ✅ Resultado guardado no banco com TTL, visível de qualquer instância
+ * ✅ Entrega opcional por e-mail com o PDF anexado
+ * ✅ Limpeza agendada de jobs expirados e abandonados
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring JDBC, JavaMail, Micrometer
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.petdoc.dto.api.pet.CarteiraDigitalDTO;
+import com.petdoc.exception.RenderizacaoSaturadaException;
+import com.petdoc.model.Pet;
+import com.petdoc.repository.CarteiraJobRepository;
+import com.petdoc.repository.CarteiraLoteRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.util.ByteArrayDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.mail.MailException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Modo assíncrono do download da carteira.
+ *
+ * No download direto, {@code gerarCarteiraPDF} prende a thread do servlet
+ * durante todo o layout; com o pool de PDF ocupado, o tutor recebe 503 ou
+ * espera com a conexão aberta. Aqui a requisição só registra o pedido:
+ *
+ * 1. {@link #enfileirar} grava o job (PENDENTE) e o entrega ao executor
+ *    {@code carteira-job-*}; o cliente recebe o ID na hora (202)
+ * 2. Uma thread do executor lê o pet, renderiza via {@link CarteiraDigitalService}
+ *    (mesmo cache, sem ocupar a camada de memória, e mesmo
+ *    {@link PdfRenderPool}) e grava o PDF com TTL
+ * 3. O cliente consulta o job até CONCLUIDO e baixa o arquivo; se pediu,
+ *    recebe também o PDF por e-mail
+ *
+ * O estado fica no banco, e não em memória como no CarteiraLoteService:
+ * com várias instâncias no App Runner, o polling pode cair em uma instância
+ * diferente da que renderizou.
+ *
+ * Propriedades:
+ * <pre>
+ * app.pdf.jobs.threads=2           # jobs renderizados ao mesmo tempo
+ * app.pdf.jobs.fila=100            # jobs aguardando; acima disso, 503
+ * app.pdf.jobs.ttl=PT30M           # tempo de vida do PDF pronto
+ * app.pdf.jobs.abandono=PT10M      # PROCESSANDO há mais que isso (desde o início) vira FALHA
+ * app.pdf.jobs.abandono-fila=PT30M # PENDENTE há mais que isso (desde a criação) vira FALHA
+ * </pre>
+ */
+@Service
+public class CarteiraJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(CarteiraJobService.class);
+
+    private static final int TENTATIVAS_RENDER = 20;
+
+    private final CarteiraJobRepository jobRepository;
+    private final CarteiraLoteRepository carteiraRepository;
+    private final CarteiraDigitalService carteiraDigitalService;
+    private final EmailService emailService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transacaoLeitura;
+    private final ThreadPoolExecutor executor;
+    private final Duration ttl;
+    private final Duration abandono;
+    private final Duration abandonoFila;
+
+    // @Lazy: no modo de subida otimizado as pilhas de PDF e e-mail só são criadas no primeiro job
+    public CarteiraJobService(CarteiraJobRepository jobRepository,
+                              CarteiraLoteRepository carteiraRepository,
+                              @Lazy CarteiraDigitalService carteiraDigitalService,
+                              @Lazy EmailService emailService,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.pdf.jobs.threads:2}") int threads,
+                              @Value("${app.pdf.jobs.fila:100}") int fila,
+                              @Value("${app.pdf.jobs.ttl:PT30M}") Duration ttl,
+                              @Value("${app.pdf.jobs.abandono:PT10M}") Duration abandono,
+                              @Value("${app.pdf.jobs.abandono-fila:PT30M}") Duration abandonoFila) {
+        this.jobRepository = jobRepository;
+        this.carteiraRepository = carteiraRepository;
+        this.carteiraDigitalService = carteiraDigitalService;
+        this.emailService = emailService;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.abandono = abandono;
+        this.abandonoFila = abandonoFila;
+
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            threads, threads,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(fila),
+            runnable -> {
+                Thread thread = new Thread(runnable, "carteira-job-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        Gauge.builder("petdoc.pdf.jobs.fila", executor, e -> e.getQueue().size())
+            .description("Jobs de PDF aguardando uma thread livre nesta instância")
+            .register(meterRegistry);
+    }
+
+    // =========================================================================
+    // API PÚBLICA
+    // =========================================================================
+
+    /**
+     * Registra e enfileira a geração da carteira de um pet do tutor.
+     *
+     * @param emailTutor E-mail do usuário autenticado
+     * @param notificarPorEmail Envia também o PDF para o e-mail do tutor
+     * @return ID do job, ou vazio se o pet não pertence ao tutor
+     * @throws RenderizacaoSaturadaException se a fila de jobs estiver cheia
+     */
+    public Optional<UUID> enfileirar(String emailTutor, Long petId, boolean notificarPorEmail) {
+        if (carteiraRepository.findIdsDoTutor(List.of(petId), emailTutor).isEmpty()) {
+            return Optional.empty();
+        }
+
+        UUID jobId = UUID.randomUUID();
+        jobRepository.criar(jobId, emailTutor, petId, notificarPorEmail, ttl);
+
+        long enfileiradoEm = System.nanoTime();
+        try {
+            executor.execute(() -> processar(jobId, emailTutor, petId, notificarPorEmail, enfileiradoEm));
+        } catch (RejectedExecutionException e) {
+            jobRepository.remover(jobId);
+            log.warn("Fila de jobs de PDF cheia ({} aguardando). Job rejeitado.", executor.getQueue().size());
+            throw new RenderizacaoSaturadaException("Fila de geração de carteiras cheia");
+        }
+        return Optional.of(jobId);
+    }
+
+    public Optional<CarteiraJobRepository.SituacaoJob> situacao(UUID jobId, String emailTutor) {
+        return jobRepository.buscar(jobId, emailTutor);
+    }
+
+    public Optional<CarteiraJobRepository.PdfJob> pdf(UUID jobId, String emailTutor) {
+        return jobRepository.buscarPdf(jobId, emailTutor);
+    }
+
+    // =========================================================================
+    // PROCESSAMENTO (threads carteira-job-*)
+    // =========================================================================
+
+    /**
+     * Executa um job. Nunca lança: qualquer erro vira FALHA no banco.
+     */
+    private void processar(UUID jobId, String emailTutor, Long petId, boolean notificarPorEmail, long enfileiradoEm) {
+        String status = "falha";
+        try {
+            if (!jobRepository.iniciar(jobId)) {
+                status = "ignorado";
+                log.debug("Job {} não está mais pendente; ignorado.", jobId);
+                return;
+            }
+
+            CarteiraLida lida = transacaoLeitura.execute(s -> ler(petId));
+            if (lida == null) {
+                jobRepository.falhar(jobId, "pet não encontrado", ttl);
+                return;
+            }
+
+            ByteArrayOutputStream saida = new ByteArrayOutputStream(64 * 1024);
+            renderizarComEspera(lida, saida);
+            byte[] pdf = saida.toByteArray();
+            if (!jobRepository.concluir(jobId, lida.nomeArquivo(), pdf, ttl)) {
+                status = "ignorado";
+                log.warn("Job {} encerrado por abandono durante a renderização; PDF descartado.", jobId);
+                return;
+            }
+            status = "concluido";
+
+            if (notificarPorEmail) {
+                enviarPorEmail(emailTutor, lida, pdf);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            jobRepository.falhar(jobId, "geração interrompida", ttl);
+        } catch (Exception e) {
+            log.warn("Falha no job {} (pet {}): {}", jobId, petId, e.getMessage());
+            jobRepository.falhar(jobId, e.getMessage(), ttl);
+        } finally {
+            Timer.builder("petdoc.pdf.job")
+                .description("Tempo do job de PDF, da fila até o resultado gravado")
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(System.nanoTime() - enfileiradoEm, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private record CarteiraLida(Long petId, String nomePet, CarteiraDigitalDTO dto, String nomeArquivo) {
+    }
+
+    /**
+     * Mesma leitura do CarteiraLoteService: transação somente-leitura que
+     * termina antes do layout.
+     */
+    private CarteiraLida ler(Long petId) {
+        Optional<Pet> encontrado = carteiraRepository.findComTutor(petId);
+        if (encontrado.isEmpty()) {
+            return null;
+        }
+        Pet pet = encontrado.get();
+        CarteiraDigitalDTO dto = CarteiraDigitalDTO.fromPet(
+            pet, carteiraRepository.findVacinasDoPet(petId), pet.getTutor().getNome()
+        );
+        String nomeSeguro = pet.getNome() == null ? "pet" : pet.getNome().replaceAll("[^\\p{L}\\p{N}_-]+", "_");
+        return new CarteiraLida(petId, pet.getNome(), dto, "carteira-" + petId + "-" + nomeSeguro + ".pdf");
+    }
+
+    /**
+     * O job já está fora da requisição: com o pool de PDF cheio, espera com
+     * backoff linear em vez de falhar.
+     */
+    private void renderizarComEspera(CarteiraLida lida, OutputStream saida) throws InterruptedException {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                carteiraDigitalService.gerarCarteiraPDFSegundoPlano(lida.dto(), lida.petId(), saida);
+                return;
+            } catch (RenderizacaoSaturadaException e) {
+                if (tentativa >= TENTATIVAS_RENDER) {
+                    throw e;
+                }
+                Thread.sleep(250L * tentativa);
+            }
+        }
+    }
+
+    /**
+     * Envia o PDF pelo {@link EmailService}, o mesmo caminho dos lembretes
+     * (remetente e pool SMTP, quando configurado). Falha no e-mail não
+     * invalida o job: o PDF continua disponível para download.
+     */
+    private void enviarPorEmail(String emailTutor, CarteiraLida lida, byte[] pdf) {
+        try {
+            emailService.enviarHtml(
+                emailTutor,
+                "Carteira digital de " + (lida.nomePet() != null ? lida.nomePet() : "seu pet"),
+                "<p>Segue em anexo a carteira de vacinação gerada no PetDoc.</p>",
+                List.of(),
+                List.of(new EmailService.Parte(lida.nomeArquivo(), new ByteArrayDataSource(pdf, "application/pdf"))));
+        } catch (MailException e) {
+            log.warn("Erro ao enviar carteira {} por e-mail: {}", lida.nomeArquivo(), e.getMessage());
+        }
+    }
+
+    // =========================================================================
+    // LIMPEZA
+    // =========================================================================
+
+    /**
+     * Remove jobs fora do TTL e encerra os que ficaram presos em instâncias
+     * que caíram. Roda em todas as instâncias; as operações são idempotentes.
+     */
+    @Scheduled(fixedDelayString = "${app.pdf.jobs.limpeza-ms:300000}")
+    public void limparJobs() {
+        int abandonados = jobRepository.falharAbandonados(abandonoFila, abandono, ttl);
+        int removidos = jobRepository.removerExpirados();
+        if (abandonados > 0 || removidos > 0) {
+            log.info("Jobs de PDF: {} abandonado(s) marcado(s) como falha, {} expirado(s) removido(s).",
+                     abandonados, removidos);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * =============================================================================
+ * 📡 CarteiraLoteApiController.java - API de Exportação em Lote
+ * =============================================================================
+ *
+ * Este controller demonstra:
+ * ✅ 202 Accepted com o ID do lote, separado do download
+ * ✅ Download em streaming com StreamingResponseBody
+ * ✅ Escopo e progresso restritos ao usuário autenticado (Principal)
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring MVC
+ * =============================================================================
+ */
+
+package com.petdoc.controller.api;
+
+import com.petdoc.service.CarteiraLoteService;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Endpoints de exportação de várias carteiras em um único download.
+ *
+ * - POST /api/pets/carteiras/lote: registra o lote (202 + {@code {loteId}})
+ * - GET  /api/pets/carteiras/lote/{loteId}/arquivo: gera e transmite o ZIP ou PDF
+ * - GET  /api/pets/carteiras/lote/{loteId}: progresso (para barra de progresso no Vue)
+ *
+ * O ID chega ao frontend antes de qualquer renderização, então o polling
+ * do progresso começa junto com o download. Os headers de um
+ * StreamingResponseBody só são enviados na primeira escrita, e no modo PDF
+ * essa escrita só acontece depois da mesclagem; por isso o ID não vai num
+ * header do próprio download.
+ *
+ * O arquivo de cada lote pode ser pedido uma vez (a segunda vez é 409) e,
+ * se não for pedido em 10 minutos, o lote expira. Progresso e arquivo só
+ * existem para quem iniciou o lote; para os demais, 404.
+ */
+@RestController
+@RequestMapping(CarteiraLoteApiController.BASE)
+public class CarteiraLoteApiController {
+
+    static final String BASE = "/api/pets/carteiras/lote";
+
+    private final CarteiraLoteService carteiraLoteService;
+
+    // @Lazy: no modo de subida otimizado a pilha de PDF só é criada na primeira exportação
+    public CarteiraLoteApiController(@Lazy CarteiraLoteService carteiraLoteService) {
+        this.carteiraLoteService = carteiraLoteService;
+    }
+
+    /**
+     * Corpo da requisição.
+     *
+     * @param petIds IDs dos pets; vazio = todos os pets do tutor
+     * @param formato ZIP (um arquivo por pet) ou PDF (documento único)
+     */
+    public record LoteRequest(List<Long> petIds, CarteiraLoteService.Formato formato) {
+    }
+
+    /**
+     * Resposta do POST: o mesmo ID serve ao progresso e ao arquivo.
+     */
+    public record LoteIniciado(String loteId) {
+    }
+
+    @PostMapping
+    public ResponseEntity<LoteIniciado> iniciar(@RequestBody LoteRequest request, Principal principal) {
+        List<Long> petIds = carteiraLoteService.resolverEscopo(principal.getName(), request.petIds());
+        if (petIds.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        CarteiraLoteService.Formato formato = request.formato() != null
+            ? request.formato()
+            : CarteiraLoteService.Formato.ZIP;
+        String loteId = carteiraLoteService.iniciarLote(principal.getName(), petIds, formato);
+
+        return ResponseEntity.accepted()
+            .location(URI.create(BASE + "/" + loteId + "/arquivo"))
+            .body(new LoteIniciado(loteId));
+    }
+
+    /**
+     * Gera o lote durante o streaming. Se nenhuma carteira for gerada no
+     * modo PDF, a resposta é 422 (LoteSemCarteirasException).
+     */
+    @GetMapping("/{loteId}/arquivo")
+    public ResponseEntity<StreamingResponseBody> arquivo(@PathVariable String loteId, Principal principal) {
+        return carteiraLoteService.abrir(loteId, principal.getName())
+            .map(download -> {
+                boolean zip = download.formato() == CarteiraLoteService.Formato.ZIP;
+                return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"carteiras-petdoc." + (zip ? "zip" : "pdf") + "\"")
+                    .contentType(zip ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_PDF)
+                    .body(download.corpo());
+            })
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{loteId}")
+    public ResponseEntity<CarteiraLoteService.Progresso> progresso(@PathVariable String loteId,
+                                                                   Principal principal) {
+        return ResponseEntity.of(carteiraLoteService.progresso(loteId, principal.getName()));
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * =============================================================================
+ * 💾 CarteiraLoteRepository.java - Consultas da Exportação em Lote
+ * =============================================================================
+ *
+ * Este repositório demonstra:
+ * ✅ Spring Data com @Query em JPQL
+ * ✅ Consultas de escopo retornando apenas IDs (baixo consumo de memória)
+ * ✅ JOIN FETCH para carregar Pet + Tutor em uma única ida ao banco
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Data JPA
+ * =============================================================================
+ */
+
+package com.petdoc.repository;
+
+import com.petdoc.model.Pet;
+import com.petdoc.model.Vacina;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Consultas usadas na geração de carteiras fora do fluxo de um único pet.
+ *
+ * O escopo é resolvido apenas como lista de IDs; cada carteira carrega
+ * depois o seu próprio Pet e Vacinas, de forma que o lote nunca mantém
+ * todas as entidades em memória ao mesmo tempo.
+ */
+public interface CarteiraLoteRepository extends Repository<Pet, Long> {
+
+    /**
+     * Todos os pets de um tutor (escopo "minhas carteiras").
+     */
+    @Query("SELECT p.id FROM Pet p WHERE p.tutor.email = :email ORDER BY p.id")
+    List<Long> findIdsByTutorEmail(@Param("email") String email);
+
+    /**
+     * Filtra os IDs informados mantendo apenas os pets do tutor.
+     * Evita que um usuário exporte carteiras de pets de terceiros.
+     */
+    @Query("SELECT p.id FROM Pet p WHERE p.id IN :ids AND p.tutor.email = :email ORDER BY p.id")
+    List<Long> findIdsDoTutor(@Param("ids") Collection<Long> ids, @Param("email") String email);
+
+    @Query("SELECT p FROM Pet p JOIN FETCH p.tutor WHERE p.id = :id")
+    Optional<Pet> findComTutor(@Param("id") Long id);
+
+    @Query("SELECT v FROM Vacina v WHERE v.pet.id = :petId")
+    List<Vacina> findVacinasDoPet(@Param("petId") Long petId);
+}
@@ -0,0 +1,581 @@
+/**
+ * =============================================================================
+ * 📦 CarteiraLoteService.java - Exportação em Lote de Carteiras Digitais
+ * =============================================================================
+ *
+ * Este serviço demonstra:
+ * ✅ Renderização paralela com ExecutorCompletionService e janela limitada
+ * ✅ Streaming do resultado em ZIP à medida que cada carteira fica pronta
+ * ✅ PDF único mesclado com PDFBox usando apenas arquivos temporários
+ * ✅ Acompanhamento de progresso por lote (polling), visível só para o dono
+ * ✅ Lotes nunca baixados expiram, sem acumular estado em memória
+ * ✅ Cota de renderização do lote, preservando o pool interativo
+ * ✅ Memória constante, independente da quantidade de pets
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, OpenHTMLToPDF 1.0.10, PDFBox 2
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.petdoc.dto.api.pet.CarteiraDigitalDTO;
+import com.petdoc.exception.LoteJaIniciadoException;
+import com.petdoc.exception.LoteSemCarteirasException;
+import com.petdoc.exception.RenderizacaoSaturadaException;
+import com.petdoc.model.Pet;
+import com.petdoc.repository.CarteiraLoteRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Gera as carteiras de vários pets em uma única requisição.
+ *
+ * Fluxo:
+ * 1. O escopo (IDs informados ou todos os pets do tutor) vira uma lista de IDs
+ *    e o lote é registrado ({@link #iniciarLote}); o cliente recebe o ID
+ * 2. No download ({@link #abrir}), cada pet é carregado, convertido em DTO e
+ *    renderizado em arquivo temporário em paralelo, com no máximo
+ *    {@code janela} carteiras em andamento
+ * 3. ZIP: cada carteira é copiada para a resposta assim que termina
+ *    PDF: as carteiras prontas são mescladas no final, via arquivos temporários
+ *
+ * A renderização passa pelo {@link CarteiraDigitalService}, ou seja, aproveita
+ * o cache (lê a camada de memória, mas não a ocupa) e respeita o limite do
+ * {@link PdfRenderPool}. Como o pool é o mesmo dos downloads individuais,
+ * todos os lotes juntos usam no máximo {@code app.pdf.lote.max-renderizacoes}
+ * threads dele (padrão: threads do pool menos uma). Sem essa cota, uma única exportação de clínica mantinha
+ * pool e fila cheios e os tutores recebiam 503. Quando mesmo assim o pool
+ * está saturado, o lote espera e tenta novamente, em vez de falhar.
+ *
+ * Falhas individuais não interrompem o lote: vão para erros.txt (ZIP), para
+ * uma página final (PDF) e para o progresso. Se nenhuma carteira for gerada
+ * no modo PDF, a resposta é 422 em vez de um documento vazio.
+ */
+@Service
+public class CarteiraLoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(CarteiraLoteService.class);
+
+    private static final int TENTATIVAS_RENDER = 20;
+    private static final int LINHAS_POR_PAGINA = 50;
+    private static final Duration RETENCAO_PROGRESSO = Duration.ofHours(1);
+    private static final Duration EXPIRACAO_NAO_INICIADO = Duration.ofMinutes(10);
+
+    public enum Formato { ZIP, PDF }
+
+    /**
+     * Snapshot do progresso de um lote, exposto para polling.
+     */
+    public record Progresso(String loteId, int total, int concluidas, int falhas, boolean finalizado,
+                            List<String> erros) {
+    }
+
+    /**
+     * Corpo do download e o formato, para o Content-Type da resposta.
+     */
+    public record Download(Formato formato, StreamingResponseBody corpo) {
+    }
+
+    private final CarteiraLoteRepository repository;
+    private final CarteiraDigitalService carteiraDigitalService;
+    private final TransactionTemplate transacaoLeitura;
+    private final ExecutorService executor;
+    private final int janela;
+
+    /** Cota de threads do PdfRenderPool compartilhada por todos os lotes. */
+    private final Semaphore cotaRenderizacao;
+
+    private final Map<String, EstadoLote> lotes = new ConcurrentHashMap<>();
+
+    public CarteiraLoteService(CarteiraLoteRepository repository,
+                               CarteiraDigitalService carteiraDigitalService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.pdf.lote.paralelismo:0}") int paralelismo,
+                               @Value("${app.pdf.lote.max-renderizacoes:0}") int maxRenderizacoes,
+                               @Value("${app.pdf.render.threads:2}") int threadsRender) {
+        this.repository = repository;
+        this.carteiraDigitalService = carteiraDigitalService;
+
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+
+        int threads = paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "carteira-lote-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.janela = threads * 2;
+
+        int cota = maxRenderizacoes > 0 ? maxRenderizacoes : Math.max(1, threadsRender - 1);
+        this.cotaRenderizacao = new Semaphore(cota, true);
+        log.info("Exportação em lote: {} thread(s), até {} renderização(ões) simultânea(s) no pool de PDF.",
+                 threads, cota);
+    }
+
+    // =========================================================================
+    // API PÚBLICA
+    // =========================================================================
+
+    /**
+     * Resolve o escopo do lote sempre restrito aos pets do tutor logado.
+     *
+     * @param emailTutor E-mail do usuário autenticado
+     * @param petIds IDs solicitados; vazio ou null = todos os pets do tutor
+     */
+    public List<Long> resolverEscopo(String emailTutor, Collection<Long> petIds) {
+        if (petIds == null || petIds.isEmpty()) {
+            return repository.findIdsByTutorEmail(emailTutor);
+        }
+        return repository.findIdsDoTutor(petIds, emailTutor);
+    }
+
+    /**
+     * Registra um novo lote. Nada é renderizado até o download; um lote não
+     * baixado em 10 minutos é descartado ({@link #limparLotesAntigos}).
+     *
+     * @param emailTutor Dono do lote; só ele consulta o progresso e baixa o arquivo
+     * @param petIds Escopo já resolvido por {@link #resolverEscopo}
+     * @return ID do lote
+     */
+    public String iniciarLote(String emailTutor, List<Long> petIds, Formato formato) {
+        String loteId = UUID.randomUUID().toString();
+        lotes.put(loteId, new EstadoLote(loteId, emailTutor, List.copyOf(petIds), formato));
+        return loteId;
+    }
+
+    /**
+     * @return vazio se o lote não existe ou pertence a outro tutor
+     */
+    public Optional<Progresso> progresso(String loteId, String emailTutor) {
+        return Optional.ofNullable(lotes.get(loteId))
+            .filter(estado -> estado.emailTutor.equals(emailTutor))
+            .map(EstadoLote::snapshot);
+    }
+
+    /**
+     * Prepara o corpo da resposta que executa o lote durante o streaming.
+     * Cada lote é baixado uma única vez.
+     *
+     * @return vazio se o lote não existe, expirou ou pertence a outro tutor
+     * @throws LoteJaIniciadoException se o arquivo do lote já foi pedido
+     */
+    public Optional<Download> abrir(String loteId, String emailTutor) {
+        Optional<EstadoLote> encontrado = Optional.ofNullable(lotes.get(loteId))
+            .filter(estado -> estado.emailTutor.equals(emailTutor));
+        if (encontrado.isEmpty()) {
+            return Optional.empty();
+        }
+        EstadoLote estado = encontrado.get();
+        if (!estado.iniciado.compareAndSet(false, true)) {
+            throw new LoteJaIniciadoException("Lote " + loteId + " já iniciado");
+        }
+        return Optional.of(new Download(estado.formato, exportar(estado)));
+    }
+
+    private StreamingResponseBody exportar(EstadoLote estado) {
+        return destino -> {
+            try {
+                if (estado.formato == Formato.ZIP) {
+                    exportarZip(estado, estado.petIds, destino);
+                } else {
+                    exportarPdfUnico(estado, estado.petIds, destino);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Ex: cliente desconectou; tarefas pendentes descartam seus arquivos
+                estado.cancelado = true;
+                throw e;
+            } finally {
+                estado.finalizadoEm = Instant.now();
+                log.info("Lote {} finalizado: {}/{} carteira(s), {} falha(s).",
+                         estado.loteId, estado.concluidas.get(), estado.total, estado.falhas.get());
+            }
+        };
+    }
+
+    // =========================================================================
+    // FORMATOS DE SAÍDA
+    // =========================================================================
+
+    /**
+     * Escreve um ZIP com uma carteira por pet, na ordem em que ficam prontas.
+     * Falhas individuais não interrompem o lote; são listadas em "erros.txt".
+     */
+    private void exportarZip(EstadoLote estado, List<Long> petIds, OutputStream destino) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(destino);
+
+        processar(estado, petIds, carteira -> {
+            if (carteira.erro() != null) {
+                return;
+            }
+            try {
+                zip.putNextEntry(new ZipEntry(carteira.nomeArquivo()));
+                Files.copy(carteira.arquivo(), zip);
+                zip.closeEntry();
+            } finally {
+                Files.deleteIfExists(carteira.arquivo());
+            }
+        });
+
+        if (!estado.erros.isEmpty()) {
+            zip.putNextEntry(new ZipEntry("erros.txt"));
+            zip.write(String.join("\n", estado.erros).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        // finish() em vez de close(): o stream da resposta pertence ao container
+        zip.finish();
+    }
+
+    /**
+     * Escreve um único PDF com todas as carteiras.
+     *
+     * As carteiras são renderizadas em paralelo para arquivos temporários e
+     * mescladas no final com MemoryUsageSetting.setupTempFileOnly(), para que
+     * o PDFBox também não carregue o documento inteiro no heap.
+     *
+     * Nada é escrito na resposta antes da mesclagem; por isso, se todas as
+     * carteiras falharem, ainda dá para responder com erro (422).
+     */
+    private void exportarPdfUnico(EstadoLote estado, List<Long> petIds, OutputStream destino) throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        try {
+            processar(estado, petIds, carteira -> {
+                if (carteira.erro() == null) {
+                    arquivos.add(carteira.arquivo());
+                }
+            });
+
+            if (arquivos.isEmpty()) {
+                throw new LoteSemCarteirasException(
+                    "Lote " + estado.loteId + ": nenhuma de " + estado.total + " carteira(s) gerada");
+            }
+            if (!estado.erros.isEmpty()) {
+                arquivos.add(paginaDeErros(estado.erros));
+            }
+
+            PDFMergerUtility merger = new PDFMergerUtility();
+            for (Path arquivo : arquivos) {
+                merger.addSource(arquivo.toFile());
+            }
+            merger.setDestinationStream(destino);
+            merger.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
+        } finally {
+            for (Path arquivo : arquivos) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+
+    /**
+     * Gera a página final do PDF único listando os pets que falharam, no
+     * mesmo papel do erros.txt do ZIP.
+     *
+     * Usa a Helvetica padrão do PDF (sem fontes embutidas); o texto é
+     * reduzido a ASCII para caber na codificação da fonte.
+     */
+    private Path paginaDeErros(List<String> erros) throws IOException {
+        Path arquivo = Files.createTempFile("carteira-lote-erros-", ".pdf");
+        try (PDDocument documento = new PDDocument()) {
+            List<String> linhas = new ArrayList<>();
+            linhas.add("Carteiras nao geradas neste lote:");
+            for (String erro : erros) {
+                linhas.add(textoAscii(erro, 95));
+            }
+
+            for (int inicio = 0; inicio < linhas.size(); inicio += LINHAS_POR_PAGINA) {
+                PDPage pagina = new PDPage(PDRectangle.A4);
+                documento.addPage(pagina);
+                try (PDPageContentStream conteudo = new PDPageContentStream(documento, pagina)) {
+                    conteudo.beginText();
+                    conteudo.setFont(PDType1Font.HELVETICA, 10);
+                    conteudo.setLeading(14);
+                    conteudo.newLineAtOffset(50, PDRectangle.A4.getHeight() - 60);
+                    int fim = Math.min(linhas.size(), inicio + LINHAS_POR_PAGINA);
+                    for (String linha : linhas.subList(inicio, fim)) {
+                        conteudo.showText(linha);
+                        conteudo.newLine();
+                    }
+                    conteudo.endText();
+                }
+            }
+            documento.save(arquivo.toFile());
+        }
+        return arquivo;
+    }
+
+    private static String textoAscii(String texto, int limite) {
+        String semAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("[^\\x20-\\x7E]", "");
+        return semAcentos.length() > limite ? semAcentos.substring(0, limite - 3) + "..." : semAcentos;
+    }
+
+    // =========================================================================
+    // PROCESSAMENTO PARALELO
+    // =========================================================================
+
+    @FunctionalInterface
+    private interface ConsumidorCarteira {
+        void aceitar(CarteiraGerada carteira) throws IOException;
+    }
+
+    private record CarteiraGerada(Long petId, String nomeArquivo, Path arquivo, String erro) {
+
+        static CarteiraGerada falha(Long petId, String erro) {
+            return new CarteiraGerada(petId, null, null, erro);
+        }
+    }
+
+    /**
+     * Renderiza as carteiras em paralelo e entrega cada uma ao consumidor,
+     * na thread do streaming, assim que termina.
+     *
+     * Nunca há mais que {@code janela} carteiras em andamento ou aguardando
+     * consumo, o que mantém a memória e o disco temporário constantes.
+     */
+    private void processar(EstadoLote estado, List<Long> petIds, ConsumidorCarteira consumidor) throws IOException {
+        CompletionService<CarteiraGerada> conclusoes = new ExecutorCompletionService<>(executor);
+        Iterator<Long> pendentes = petIds.iterator();
+        int emAndamento = 0;
+
+        while (emAndamento < janela && pendentes.hasNext()) {
+            Long petId = pendentes.next();
+            conclusoes.submit(() -> gerar(estado, petId));
+            emAndamento++;
+        }
+
+        while (emAndamento > 0) {
+            CarteiraGerada carteira;
+            try {
+                carteira = conclusoes.take().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Exportação em lote interrompida", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Erro inesperado na exportação em lote", e.getCause());
+            }
+            emAndamento--;
+
+            if (pendentes.hasNext()) {
+                Long petId = pendentes.next();
+                conclusoes.submit(() -> gerar(estado, petId));
+                emAndamento++;
+            }
+
+            try {
+                consumidor.aceitar(carteira);
+            } catch (IOException e) {
+                estado.cancelado = true;
+                descartarPendentes(conclusoes, emAndamento);
+                throw e;
+            }
+            if (carteira.erro() == null) {
+                estado.concluidas.incrementAndGet();
+            } else {
+                estado.erros.add("Pet " + carteira.petId() + ": " + carteira.erro());
+                estado.falhas.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Aguarda as tarefas restantes de um lote cancelado e apaga seus arquivos.
+     */
+    private void descartarPendentes(CompletionService<CarteiraGerada> conclusoes, int emAndamento) {
+        for (int i = 0; i < emAndamento; i++) {
+            try {
+                CarteiraGerada carteira = conclusoes.take().get();
+                if (carteira.arquivo() != null) {
+                    Files.deleteIfExists(carteira.arquivo());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | IOException e) {
+                log.debug("Falha ao descartar carteira pendente: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Carrega e renderiza a carteira de um pet em arquivo temporário.
+     *
+     * A leitura acontece em transação somente-leitura e termina antes do
+     * layout do PDF, para não segurar conexão do banco durante a renderização.
+     */
+    private CarteiraGerada gerar(EstadoLote estado, Long petId) {
+        if (estado.cancelado) {
+            return CarteiraGerada.falha(petId, "lote cancelado");
+        }
+
+        Path arquivo = null;
+        try {
+            CarteiraLida lida = transacaoLeitura.execute(status -> ler(petId));
+            if (lida == null) {
+                return CarteiraGerada.falha(petId, "pet não encontrado");
+            }
+
+            arquivo = Files.createTempFile("carteira-lote-", ".pdf");
+            try (OutputStream saida = Files.newOutputStream(arquivo)) {
+                renderizarComEspera(lida, saida);
+            }
+
+            if (estado.cancelado) {
+                Files.deleteIfExists(arquivo);
+                return CarteiraGerada.falha(petId, "lote cancelado");
+            }
+            return new CarteiraGerada(petId, lida.nomeArquivo(), arquivo, null);
+        } catch (Exception e) {
+            log.warn("Falha ao gerar carteira do pet {} no lote {}: {}", petId, estado.loteId, e.getMessage());
+            if (arquivo != null) {
+                try {
+                    Files.deleteIfExists(arquivo);
+                } catch (IOException ignorada) {
+                    // Arquivo temporário: o SO limpa eventualmente
+                }
+            }
+            return CarteiraGerada.falha(petId, e.getMessage());
+        }
+    }
+
+    private record CarteiraLida(Long petId, CarteiraDigitalDTO dto, String nomeArquivo) {
+    }
+
+    private CarteiraLida ler(Long petId) {
+        Optional<Pet> encontrado = repository.findComTutor(petId);
+        if (encontrado.isEmpty()) {
+            return null;
+        }
+        Pet pet = encontrado.get();
+        CarteiraDigitalDTO dto = CarteiraDigitalDTO.fromPet(
+            pet, repository.findVacinasDoPet(petId), pet.getTutor().getNome()
+        );
+        String nomeSeguro = pet.getNome() == null ? "pet" : pet.getNome().replaceAll("[^\\p{L}\\p{N}_-]+", "_");
+        return new CarteiraLida(petId, dto, "carteira-" + petId + "-" + nomeSeguro + ".pdf");
+    }
+
+    /**
+     * O lote é um processo de fundo: só renderiza dentro da cota e, quando o
+     * pool interativo está cheio, espera com backoff linear em vez de
+     * devolver 503.
+     */
+    private void renderizarComEspera(CarteiraLida lida, OutputStream saida) throws InterruptedException {
+        cotaRenderizacao.acquire();
+        try {
+            renderizarComRetentativa(lida, saida);
+        } finally {
+            cotaRenderizacao.release();
+        }
+    }
+
+    private void renderizarComRetentativa(CarteiraLida lida, OutputStream saida) throws InterruptedException {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                carteiraDigitalService.gerarCarteiraPDFSegundoPlano(lida.dto(), lida.petId(), saida);
+                return;
+            } catch (RenderizacaoSaturadaException e) {
+                if (tentativa >= TENTATIVAS_RENDER) {
+                    throw e;
+                }
+                Thread.sleep(250L * tentativa);
+            }
+        }
+    }
+
+    // =========================================================================
+    // ESTADO E LIMPEZA
+    // =========================================================================
+
+    private static final class EstadoLote {
+        final String loteId;
+        final String emailTutor;
+        final List<Long> petIds;
+        final Formato formato;
+        final int total;
+        final Instant criadoEm = Instant.now();
+        final AtomicBoolean iniciado = new AtomicBoolean();
+        final AtomicInteger concluidas = new AtomicInteger();
+        final AtomicInteger falhas = new AtomicInteger();
+        final List<String> erros = new CopyOnWriteArrayList<>();
+        volatile boolean cancelado;
+        volatile Instant finalizadoEm;
+
+        EstadoLote(String loteId, String emailTutor, List<Long> petIds, Formato formato) {
+            this.loteId = loteId;
+            this.emailTutor = emailTutor;
+            this.petIds = petIds;
+            this.formato = formato;
+            this.total = petIds.size();
+        }
+
+        Progresso snapshot() {
+            return new Progresso(loteId, total, concluidas.get(), falhas.get(), finalizadoEm != null,
+                                 List.copyOf(erros));
+        }
+    }
+
+    /**
+     * Remove o progresso de lotes finalizados há mais de 1 hora e os lotes
+     * criados há mais de 10 minutos cujo arquivo nunca foi pedido.
+     *
+     * O lote não iniciado é "reservado" (compareAndSet) antes de sair do
+     * mapa: um download que chegue no mesmo instante recebe 409 em vez de
+     * começar um lote que já não aparece no progresso.
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void limparLotesAntigos() {
+        Instant agora = Instant.now();
+        Instant limiteFinalizados = agora.minus(RETENCAO_PROGRESSO);
+        Instant limiteNaoIniciados = agora.minus(EXPIRACAO_NAO_INICIADO);
+        lotes.values().removeIf(estado -> estado.finalizadoEm != null
+            ? estado.finalizadoEm.isBefore(limiteFinalizados)
+            : estado.criadoEm.isBefore(limiteNaoIniciados) && estado.iniciado.compareAndSet(false, true));
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdownNow();
+    }
+}
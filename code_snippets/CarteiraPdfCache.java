@@ -0,0 +1,496 @@
+/**
+ * =============================================================================
+ * 🗃️ CarteiraPdfCache.java - Cache Endereçado por Conteúdo da Carteira PDF
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Chave de cache por hash SHA-256 do DTO + versão do template
+ * ✅ Camada em memória com despejo LRU (LinkedHashMap em access-order)
+ * ✅ Camada opcional em disco servida em streaming, sem carregar no heap
+ * ✅ Disco limitado por bytes e idade (varredura @Scheduled)
+ * ✅ Versões antigas do template descartadas do disco na subida
+ * ✅ Invalidação por evento de domínio (@EventListener)
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Jackson
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petdoc.dto.api.pet.CarteiraDigitalDTO;
+import com.petdoc.event.VacinaAlteradaEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Cache dos PDFs da Carteira Digital.
+ *
+ * A carteira só muda quando mudam o Pet, suas Vacinas ou o nome do tutor,
+ * ou seja, quando muda o {@link CarteiraDigitalDTO}. A chave é o SHA-256 do
+ * DTO serializado em JSON somado à versão do template; por isso uma entrada
+ * nunca fica "errada", apenas órfã.
+ *
+ * Camadas:
+ * - Memória: LRU limitado por bytes totais e por tamanho de entrada
+ * - Disco (opcional): arquivos "{petId}-v{versão}-{chave}.pdf" em
+ *   {@code app.pdf.cache.disco.diretorio}
+ *
+ * A invalidação por {@link VacinaAlteradaEvent} existe para liberar espaço
+ * das entradas órfãs do pet alterado. As demais órfãs (DTO mudou por outro
+ * motivo, pet removido, template novo) ficavam no disco para sempre; agora:
+ *
+ * - Na subida, arquivos de outra versão do template (e temporários de
+ *   gravações interrompidas) são apagados
+ * - A cada {@code disco.intervalo-limpeza}, arquivos sem acesso há mais de
+ *   {@code disco.ttl} (padrão 7 dias) são apagados e, se o diretório ainda
+ *   passar de {@code disco.max-bytes} (padrão 1 GiB), os menos acessados
+ *   saem primeiro. O acerto em disco atualiza a data de modificação do
+ *   arquivo, que serve de "último acesso"
+ *
+ * Gravações de processos em segundo plano (lote, job) podem pular a camada
+ * de memória ({@link #gravar(String, Long, OutputStream, boolean)}): uma
+ * exportação de clínica com centenas de carteiras lidas uma única vez
+ * despejaria do LRU as carteiras que os tutores estão baixando.
+ */
+@Component
+public class CarteiraPdfCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CarteiraPdfCache.class);
+
+    private static final String PREFIXO_TEMPORARIO = "carteira-";
+
+    /** Temporários mais antigos que isso são de gravações interrompidas. */
+    private static final Duration IDADE_TEMPORARIO_ABANDONADO = Duration.ofHours(1);
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.pdf.cache.versao-template:1}")
+    private String versaoTemplate;
+
+    @Value("${app.pdf.cache.memoria.max-bytes:33554432}")
+    private long maxBytesMemoria;
+
+    @Value("${app.pdf.cache.memoria.max-bytes-entrada:1048576}")
+    private int maxBytesEntrada;
+
+    @Value("${app.pdf.cache.disco.diretorio:}")
+    private String diretorioDisco;
+
+    @Value("${app.pdf.cache.disco.max-bytes:1073741824}")
+    private long maxBytesDisco;
+
+    @Value("${app.pdf.cache.disco.ttl:P7D}")
+    private Duration ttlDisco;
+
+    /** LRU: accessOrder=true move a entrada lida para o fim da fila. */
+    private final LinkedHashMap<String, EntradaMemoria> memoria = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesEmMemoria;
+
+    private Path disco;
+
+    public CarteiraPdfCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void inicializar() throws IOException {
+        if (!diretorioDisco.isBlank()) {
+            disco = Files.createDirectories(Path.of(diretorioDisco));
+            log.info("Cache de carteiras em disco habilitado em {} (versão do template {})", disco, versaoTemplate);
+            descartarOutrasVersoes();
+        }
+    }
+
+    // =========================================================================
+    // CHAVE
+    // =========================================================================
+
+    /**
+     * Calcula a chave endereçada por conteúdo da carteira.
+     *
+     * @return SHA-256 em hexadecimal de (versão do template + DTO em JSON)
+     */
+    public String chave(CarteiraDigitalDTO dto) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(versaoTemplate.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(dto));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao calcular chave da carteira: " + e.getMessage(), e);
+        }
+    }
+
+    // =========================================================================
+    // LEITURA
+    // =========================================================================
+
+    /**
+     * Escreve o PDF em cache no destino, se existir.
+     *
+     * A camada de disco é copiada em blocos (Files.copy), sem trazer o
+     * arquivo inteiro para o heap.
+     *
+     * @return true se houve acerto e o PDF foi escrito
+     */
+    public boolean servir(String chave, Long petId, OutputStream destino) throws IOException {
+        byte[] pdf = buscarEmMemoria(chave);
+        if (pdf != null) {
+            destino.write(pdf);
+            return true;
+        }
+
+        if (disco != null) {
+            Path arquivo = arquivo(chave, petId);
+            if (Files.isReadable(arquivo)) {
+                Files.copy(arquivo, destino);
+                registrarAcesso(arquivo);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void registrarAcesso(Path arquivo) {
+        try {
+            Files.setLastModifiedTime(arquivo, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            // Removido pela varredura depois da cópia: o acerto já foi servido
+            log.debug("Não foi possível atualizar o acesso de {}: {}", arquivo, e.getMessage());
+        }
+    }
+
+    private synchronized byte[] buscarEmMemoria(String chave) {
+        EntradaMemoria entrada = memoria.get(chave);
+        return entrada != null ? entrada.pdf() : null;
+    }
+
+    // =========================================================================
+    // ESCRITA
+    // =========================================================================
+
+    /**
+     * Abre uma gravação que repassa os bytes ao destino e, ao mesmo tempo,
+     * os captura para o cache.
+     *
+     * Uso:
+     * <pre>
+     * try (CarteiraPdfCache.Gravacao gravacao = cache.gravar(chave, petId, destino)) {
+     *     renderizar(gravacao);
+     *     gravacao.concluir();
+     * }
+     * </pre>
+     *
+     * Sem {@link Gravacao#concluir()} nada é armazenado (ex: erro no meio).
+     */
+    public Gravacao gravar(String chave, Long petId, OutputStream destino) throws IOException {
+        return gravar(chave, petId, destino, true);
+    }
+
+    /**
+     * @param memoria false para armazenar apenas no disco (lote, job em
+     *                segundo plano); sem disco configurado, nada é armazenado
+     */
+    public Gravacao gravar(String chave, Long petId, OutputStream destino, boolean memoria) throws IOException {
+        Path temporario = disco != null ? Files.createTempFile(disco, PREFIXO_TEMPORARIO, ".tmp") : null;
+        return new Gravacao(chave, petId, destino, temporario, memoria);
+    }
+
+    private synchronized void armazenarEmMemoria(String chave, Long petId, byte[] pdf) {
+        EntradaMemoria anterior = memoria.put(chave, new EntradaMemoria(petId, pdf));
+        if (anterior != null) {
+            bytesEmMemoria -= anterior.pdf().length;
+        }
+        bytesEmMemoria += pdf.length;
+
+        // Despeja as entradas menos usadas até caber no limite
+        Iterator<EntradaMemoria> it = memoria.values().iterator();
+        while (bytesEmMemoria > maxBytesMemoria && it.hasNext()) {
+            bytesEmMemoria -= it.next().pdf().length;
+            it.remove();
+        }
+    }
+
+    // =========================================================================
+    // INVALIDAÇÃO
+    // =========================================================================
+
+    /**
+     * Remove todas as carteiras em cache de um pet.
+     */
+    @EventListener
+    public void onVacinaAlterada(VacinaAlteradaEvent event) {
+        invalidarPet(event.petId());
+    }
+
+    public void invalidarPet(Long petId) {
+        synchronized (this) {
+            Iterator<EntradaMemoria> it = memoria.values().iterator();
+            while (it.hasNext()) {
+                EntradaMemoria entrada = it.next();
+                if (petId.equals(entrada.petId())) {
+                    bytesEmMemoria -= entrada.pdf().length;
+                    it.remove();
+                }
+            }
+        }
+
+        if (disco != null) {
+            try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(disco, petId + "-*.pdf")) {
+                for (Path arquivo : arquivos) {
+                    Files.deleteIfExists(arquivo);
+                }
+            } catch (IOException e) {
+                log.warn("Erro ao invalidar carteiras em disco do pet {}: {}", petId, e.getMessage());
+            }
+        }
+    }
+
+    private Path arquivo(String chave, Long petId) {
+        return disco.resolve(petId + marcadorVersao() + chave + ".pdf");
+    }
+
+    private String marcadorVersao() {
+        return "-v" + versaoTemplate + "-";
+    }
+
+    // =========================================================================
+    // LIMITES DO DISCO
+    // =========================================================================
+
+    private record ArquivoDisco(Path caminho, long tamanho, FileTime ultimoAcesso) {
+    }
+
+    /**
+     * Apaga carteiras de outras versões do template e temporários
+     * abandonados por uma instância anterior. Nenhuma chave da versão atual
+     * aponta para elas, então só ocupariam espaço até a varredura por idade.
+     *
+     * Temporários recentes ficam: o diretório pode ser compartilhado com
+     * outra instância que está gravando.
+     */
+    private void descartarOutrasVersoes() {
+        FileTime limiteTemporario = FileTime.from(Instant.now().minus(IDADE_TEMPORARIO_ABANDONADO));
+        int removidos = 0;
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(disco)) {
+            for (Path arquivo : arquivos) {
+                String nome = arquivo.getFileName().toString();
+                if (nome.endsWith(".pdf") && !nome.contains(marcadorVersao())) {
+                    removidos += apagar(arquivo);
+                } else if (temporario(nome) && Files.getLastModifiedTime(arquivo).compareTo(limiteTemporario) < 0) {
+                    removidos += apagar(arquivo);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Erro ao descartar versões antigas do cache em disco: {}", e.getMessage());
+        }
+        if (removidos > 0) {
+            log.info("Cache em disco: {} arquivo(s) de outra versão do template removido(s).", removidos);
+        }
+    }
+
+    /**
+     * Varredura periódica do disco: idade primeiro, depois o orçamento de
+     * bytes, removendo os arquivos menos acessados. Temporários só saem
+     * quando abandonados há mais de uma hora.
+     */
+    @Scheduled(fixedDelayString = "${app.pdf.cache.disco.intervalo-limpeza-ms:600000}")
+    public void limparDisco() {
+        if (disco == null) {
+            return;
+        }
+
+        Instant agora = Instant.now();
+        FileTime limiteTtl = FileTime.from(agora.minus(ttlDisco));
+        FileTime limiteTemporario = FileTime.from(agora.minus(IDADE_TEMPORARIO_ABANDONADO));
+        List<ArquivoDisco> mantidos = new ArrayList<>();
+        long bytes = 0;
+        int removidos = 0;
+
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(disco)) {
+            for (Path arquivo : arquivos) {
+                BasicFileAttributes atributos;
+                try {
+                    atributos = Files.readAttributes(arquivo, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue;  // Removido entre a listagem e a leitura
+                }
+                String nome = arquivo.getFileName().toString();
+                FileTime ultimoAcesso = atributos.lastModifiedTime();
+
+                if (temporario(nome)) {
+                    if (ultimoAcesso.compareTo(limiteTemporario) < 0) {
+                        removidos += apagar(arquivo);
+                    }
+                } else if (nome.endsWith(".pdf")) {
+                    if (ultimoAcesso.compareTo(limiteTtl) < 0) {
+                        removidos += apagar(arquivo);
+                    } else {
+                        mantidos.add(new ArquivoDisco(arquivo, atributos.size(), ultimoAcesso));
+                        bytes += atributos.size();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Erro na varredura do cache em disco: {}", e.getMessage());
+            return;
+        }
+
+        if (bytes > maxBytesDisco) {
+            mantidos.sort(Comparator.comparing(ArquivoDisco::ultimoAcesso));
+            for (ArquivoDisco arquivo : mantidos) {
+                if (bytes <= maxBytesDisco) {
+                    break;
+                }
+                if (apagar(arquivo.caminho()) > 0) {
+                    bytes -= arquivo.tamanho();
+                    removidos++;
+                }
+            }
+        }
+
+        if (removidos > 0) {
+            log.info("Cache em disco: {} arquivo(s) removido(s), {} MiB em uso.", removidos, bytes / (1024 * 1024));
+        }
+    }
+
+    private static boolean temporario(String nome) {
+        return nome.startsWith(PREFIXO_TEMPORARIO) && nome.endsWith(".tmp");
+    }
+
+    private static int apagar(Path arquivo) {
+        try {
+            return Files.deleteIfExists(arquivo) ? 1 : 0;
+        } catch (IOException e) {
+            log.debug("Não foi possível apagar {}: {}", arquivo, e.getMessage());
+            return 0;
+        }
+    }
+
+    private record EntradaMemoria(Long petId, byte[] pdf) {
+    }
+
+    // =========================================================================
+    // GRAVAÇÃO (TEE)
+    // =========================================================================
+
+    /**
+     * OutputStream que escreve no destino e captura uma cópia para o cache.
+     *
+     * - Memória: copia apenas até {@code max-bytes-entrada}; acima disso
+     *   (ou em gravação só em disco) a entrada só vai para o disco
+     * - Disco: grava em arquivo temporário e move atomicamente ao concluir
+     *
+     * O destino nunca é fechado por esta classe. O close() é idempotente:
+     * só a primeira chamada armazena (ou descarta) a cópia, então um
+     * renderizador que feche o stream antes do {@link #concluir()} não
+     * quebra o try-with-resources de quem abriu a gravação.
+     */
+    public final class Gravacao extends OutputStream {
+
+        private final String chave;
+        private final Long petId;
+        private final OutputStream destino;
+        private final Path temporario;
+        private final OutputStream copiaDisco;
+        private ByteArrayOutputStream buffer;
+        private boolean concluida;
+        private boolean fechada;
+
+        private Gravacao(String chave, Long petId, OutputStream destino, Path temporario,
+                         boolean memoria) throws IOException {
+            this.chave = chave;
+            this.petId = petId;
+            this.destino = destino;
+            this.temporario = temporario;
+            this.copiaDisco = temporario != null ? Files.newOutputStream(temporario) : null;
+            this.buffer = memoria ? new ByteArrayOutputStream() : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (fechada) {
+                throw new IOException("Gravação da carteira já foi fechada");
+            }
+            destino.write(b, off, len);
+            if (copiaDisco != null) {
+                copiaDisco.write(b, off, len);
+            }
+            if (buffer != null) {
+                if (buffer.size() + len > maxBytesEntrada) {
+                    buffer = null;  // grande demais para a camada de memória
+                } else {
+                    buffer.write(b, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            destino.flush();
+        }
+
+        /**
+         * Marca a renderização como completa; o conteúdo será armazenado no close().
+         */
+        public void concluir() {
+            if (fechada) {
+                throw new IllegalStateException("Gravação da carteira já foi fechada");
+            }
+            this.concluida = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fechada) {
+                return;
+            }
+            fechada = true;
+            if (copiaDisco != null) {
+                copiaDisco.close();
+                if (concluida) {
+                    Files.move(temporario, arquivo(chave, petId),
+                               StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    Files.deleteIfExists(temporario);
+                }
+            }
+            if (concluida && buffer != null) {
+                armazenarEmMemoria(chave, petId, buffer.toByteArray());
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * =============================================================================
+ * 🏷️ ConjuntoReferencia.java - Contrato dos Dados de Referência em Cache
+ * =============================================================================
+ *
+ * Este contrato demonstra:
+ * ✅ Ponto de extensão simples: cada conjunto é um bean Spring
+ * ✅ Separação entre o cache (genérico) e a origem dos dados
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import java.util.Collection;
+
+/**
+ * Um conjunto de dados de referência servido pelo {@link DadosReferenciaCache}.
+ *
+ * Hoje o único conjunto é {@link RacasReferencia}. Para cachear um novo
+ * catálogo, basta registrar um bean que implemente esta interface, uma
+ * linha em {@code dados_referencia_versao} com o mesmo {@link #nome()} e o
+ * trigger na tabela de origem.
+ *
+ * A origem precisa ser uma tabela de referência, que muda só por migration
+ * ou por ação administrativa. O nome da vacina, por exemplo, é texto livre
+ * na própria tabela {@code vacina}, escrita a cada registro feito pelos
+ * tutores: um trigger ali mudaria a versão o tempo todo e o cache nunca
+ * acertaria.
+ */
+public interface ConjuntoReferencia {
+
+    /**
+     * Nome do conjunto; igual ao {@code nome} em {@code dados_referencia_versao}.
+     */
+    String nome();
+
+    /**
+     * Chaves carregadas na subida e após cada mudança de versão. São também
+     * as únicas aceitas pelo cache: qualquer outra é recusada.
+     */
+    Collection<String> chavesIniciais();
+
+    /**
+     * Lê o valor de uma chave da origem (banco). O retorno é serializado em
+     * JSON uma única vez pelo cache.
+     */
+    Object carregar(String chave);
+}
@@ -0,0 +1,75 @@
+/**
+ * =============================================================================
+ * 📏 CustoBcryptCalibrador.java - Custo do BCrypt Medido na Subida
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Escolha do custo (strength) do BCrypt pelo hardware real do container
+ * ✅ Limites mínimo/máximo para nunca reduzir a segurança abaixo do piso
+ *
+ * Tecnologias: Java 21, Spring Security 6
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Mede o BCrypt no hardware atual e devolve o maior custo cujo hash fica
+ * dentro do tempo alvo.
+ *
+ * Cada incremento de custo dobra o tempo, então basta medir o piso e
+ * extrapolar: com piso 10 medindo 20 ms e alvo de 100 ms, o custo escolhido
+ * é 12 (~80 ms). A medição usa a mediana de algumas rodadas, após
+ * aquecimento, para não ser enganada pelo JIT.
+ *
+ * Só é usado com {@code app.senha.bcrypt.custo=0}; o custo de CPU dessa
+ * escolha está descrito no SenhaConfig.
+ */
+final class CustoBcryptCalibrador {
+
+    private static final Logger log = LoggerFactory.getLogger(CustoBcryptCalibrador.class);
+
+    private static final int RODADAS = 5;
+
+    private CustoBcryptCalibrador() {
+    }
+
+    /**
+     * @param alvo Tempo desejado por verificação
+     * @param minimo Piso de segurança (nunca retorna menos)
+     * @param maximo Teto
+     */
+    static int calibrar(Duration alvo, int minimo, int maximo) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minimo);
+        String hash = encoder.encode("calibracao-petdoc");
+
+        // Aquecimento (JIT) + mediana das medições
+        encoder.matches("calibracao-petdoc", hash);
+        long[] medicoes = new long[RODADAS];
+        for (int i = 0; i < RODADAS; i++) {
+            long inicio = System.nanoTime();
+            encoder.matches("calibracao-petdoc", hash);
+            medicoes[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(medicoes);
+        long medianaNanos = Math.max(1, medicoes[RODADAS / 2]);
+
+        int custo = minimo;
+        long estimadoNanos = medianaNanos;
+        while (custo < maximo && estimadoNanos * 2 <= alvo.toNanos()) {
+            custo++;
+            estimadoNanos *= 2;
+        }
+
+        log.info("BCrypt calibrado: custo {} (~{} ms; custo {} mediu {} ms, alvo {} ms).",
+                 custo, estimadoNanos / 1_000_000, minimo, medianaNanos / 1_000_000, alvo.toMillis());
+        return custo;
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * =============================================================================
+ * 🏷️ DadosReferenciaCache.java - Near-Cache dos Dados de Referência
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Cache em processo carregado na subida (antes do primeiro request)
+ * ✅ JSON pré-serializado e ETag calculado uma vez por entrada
+ * ✅ Invalidação por versão (tabela atualizada por trigger/Flyway)
+ * ✅ Despejo LRU por número de entradas, com contagem de remoções
+ * ✅ Chaves desconhecidas recusadas sem consulta ao banco nem entrada no cache
+ * ✅ Métricas de acerto/falta por conjunto (Micrometer)
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Jackson, Micrometer
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petdoc.repository.DadosReferenciaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cache dos dados de referência usados pelo SPA (hoje, as raças; novos
+ * conjuntos entram como beans {@link ConjuntoReferencia}).
+ *
+ * Esses dados quase nunca mudam, mas eram lidos do PostgreSQL a cada
+ * abertura do dashboard e do formulário de pet. Aqui:
+ *
+ * - Na subida, as {@link ConjuntoReferencia#chavesIniciais()} são carregadas
+ * - Cada entrada guarda o JSON já serializado e um ETag (SHA-256 do JSON),
+ *   idêntico em todas as instâncias, para o controller responder 304
+ * - A cada {@code app.referencia.verificacao-ms} a tabela
+ *   {@code dados_referencia_versao} é lida; conjuntos com versão nova são
+ *   descartados e recarregados
+ * - As chaves iniciais são também as únicas válidas: qualquer outra (ex:
+ *   {@code ?especie=} arbitrária) é recusada sem consulta ao banco e sem
+ *   ocupar o cache. Entradas despejadas voltam sob demanda, limitadas por
+ *   {@code app.referencia.max-entradas} (LRU)
+ * - Enquanto a carga inicial não tiver dado certo, não há como validar a
+ *   chave: o valor é lido da origem e devolvido, mas não é armazenado
+ *
+ * Métricas:
+ * - {@code petdoc.referencia.cache} (tags {@code conjunto}, {@code resultado}: acerto, falta, recusada)
+ * - {@code petdoc.referencia.cache.remocoes} (tag {@code motivo}: capacidade, versao)
+ * - {@code petdoc.referencia.cache.entradas} (gauge)
+ */
+@Component
+public class DadosReferenciaCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DadosReferenciaCache.class);
+
+    /**
+     * Valor pronto para a resposta HTTP.
+     *
+     * @param json Corpo já serializado (não modificar)
+     * @param etag ETag entre aspas, pronto para o header
+     */
+    public record Entrada(String conjunto, byte[] json, String etag, long versao) {
+    }
+
+    private final Map<String, ConjuntoReferencia> conjuntos;
+    private final DadosReferenciaRepository repository;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Counter> acertos = new HashMap<>();
+    private final Map<String, Counter> faltas = new HashMap<>();
+    private final Map<String, Counter> recusadas = new HashMap<>();
+    private final Counter remocoesCapacidade;
+    private final Counter remocoesVersao;
+
+    /** Versão carregada de cada conjunto. */
+    private final Map<String, Long> versoes = new ConcurrentHashMap<>();
+
+    /** Chaves válidas de cada conjunto, as da última carga. */
+    private final Map<String, Set<String>> chavesValidas = new ConcurrentHashMap<>();
+
+    /** LRU: accessOrder=true move a entrada lida para o fim da fila. */
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+
+    @Value("${app.referencia.max-entradas:256}")
+    private int maxEntradas;
+
+    public DadosReferenciaCache(List<ConjuntoReferencia> conjuntos,
+                                DadosReferenciaRepository repository,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.conjuntos = conjuntos.stream()
+            .collect(Collectors.toUnmodifiableMap(ConjuntoReferencia::nome, Function.identity()));
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+
+        for (String nome : this.conjuntos.keySet()) {
+            acertos.put(nome, meterRegistry.counter("petdoc.referencia.cache", "conjunto", nome, "resultado", "acerto"));
+            faltas.put(nome, meterRegistry.counter("petdoc.referencia.cache", "conjunto", nome, "resultado", "falta"));
+            recusadas.put(nome, meterRegistry.counter("petdoc.referencia.cache", "conjunto", nome, "resultado", "recusada"));
+        }
+        this.remocoesCapacidade = meterRegistry.counter("petdoc.referencia.cache.remocoes", "motivo", "capacidade");
+        this.remocoesVersao = meterRegistry.counter("petdoc.referencia.cache.remocoes", "motivo", "versao");
+        meterRegistry.gauge("petdoc.referencia.cache.entradas", this, DadosReferenciaCache::tamanho);
+    }
+
+    /**
+     * Carga inicial. Uma falha aqui não impede a subida: as entradas são
+     * carregadas sob demanda e a próxima verificação tenta de novo.
+     */
+    @PostConstruct
+    void carregar() {
+        try {
+            Map<String, Long> atuais = repository.versoes();
+            conjuntos.keySet().forEach(nome -> recarregar(nome, atuais.getOrDefault(nome, 0L)));
+        } catch (RuntimeException e) {
+            log.warn("Falha na carga inicial dos dados de referência: {}", e.getMessage());
+        }
+    }
+
+    // =========================================================================
+    // LEITURA
+    // =========================================================================
+
+    /**
+     * Devolve a entrada da chave, carregando da origem em caso de falta.
+     *
+     * @return vazio se o conjunto não existe ou a chave não é uma das válidas
+     */
+    public Optional<Entrada> obter(String conjunto, String chave) {
+        ConjuntoReferencia origem = conjuntos.get(conjunto);
+        if (origem == null) {
+            return Optional.empty();
+        }
+        Set<String> validas = chavesValidas.get(conjunto);
+        if (validas != null && !validas.contains(chave)) {
+            recusadas.get(conjunto).increment();
+            return Optional.empty();
+        }
+
+        String id = id(conjunto, chave);
+        Entrada entrada;
+        synchronized (this) {
+            entrada = entradas.get(id);
+        }
+        if (entrada != null) {
+            acertos.get(conjunto).increment();
+            return Optional.of(entrada);
+        }
+
+        faltas.get(conjunto).increment();
+        long versao = versoes.getOrDefault(conjunto, 0L);
+        entrada = criarEntrada(origem, chave, versao);
+        if (validas != null) {
+            armazenar(id, entrada);
+        }
+        return Optional.of(entrada);
+    }
+
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    // =========================================================================
+    // INVALIDAÇÃO POR VERSÃO
+    // =========================================================================
+
+    /**
+     * Compara as versões do banco com as carregadas e recarrega o que mudou.
+     * Uma única consulta de poucas linhas por ciclo, em cada instância.
+     */
+    @Scheduled(fixedDelayString = "${app.referencia.verificacao-ms:30000}",
+               initialDelayString = "${app.referencia.verificacao-ms:30000}")
+    public void verificarVersoes() {
+        Map<String, Long> atuais = repository.versoes();
+        for (String nome : conjuntos.keySet()) {
+            long atual = atuais.getOrDefault(nome, 0L);
+            Long carregada = versoes.get(nome);
+            if (carregada == null || carregada != atual) {
+                log.info("Dados de referência '{}' mudaram (versão {} → {}), recarregando.", nome, carregada, atual);
+                recarregar(nome, atual);
+            }
+        }
+    }
+
+    /**
+     * Descarta as entradas do conjunto e carrega as chaves iniciais na versão
+     * informada. As entradas novas são montadas antes da troca, então as
+     * requisições continuam sendo servidas (com a versão anterior) durante a
+     * recarga.
+     */
+    private void recarregar(String nome, long versao) {
+        ConjuntoReferencia origem = conjuntos.get(nome);
+        Set<String> chaves = Set.copyOf(origem.chavesIniciais());
+        Map<String, Entrada> novas = new LinkedHashMap<>();
+        for (String chave : chaves) {
+            novas.put(id(nome, chave), criarEntrada(origem, chave, versao));
+        }
+
+        synchronized (this) {
+            int removidas = 0;
+            Iterator<Map.Entry<String, Entrada>> it = entradas.entrySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().getValue().conjunto().equals(nome)) {
+                    it.remove();
+                    removidas++;
+                }
+            }
+            remocoesVersao.increment(removidas);
+            versoes.put(nome, versao);
+            chavesValidas.put(nome, chaves);
+            novas.forEach(this::armazenarSemLock);
+        }
+        log.info("Dados de referência '{}' v{} carregados: {} chave(s).", nome, versao, novas.size());
+    }
+
+    // =========================================================================
+    // AUXILIARES
+    // =========================================================================
+
+    private Entrada criarEntrada(ConjuntoReferencia origem, String chave, long versao) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(origem.carregar(chave));
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            String etag = "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+            return new Entrada(origem.nome(), json, etag, versao);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Erro ao serializar dados de referência: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Armazena a entrada se ela ainda for da versão vigente (uma recarga
+     * concorrente pode ter tornado a leitura obsoleta).
+     */
+    private synchronized void armazenar(String id, Entrada entrada) {
+        if (versoes.getOrDefault(entrada.conjunto(), 0L) == entrada.versao()) {
+            armazenarSemLock(id, entrada);
+        }
+    }
+
+    private void armazenarSemLock(String id, Entrada entrada) {
+        entradas.put(id, entrada);
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (entradas.size() > maxEntradas && it.hasNext()) {
+            it.next();
+            it.remove();
+            remocoesCapacidade.increment();
+        }
+    }
+
+    private static String id(String conjunto, String chave) {
+        return conjunto + ":" + chave;
+    }
+}
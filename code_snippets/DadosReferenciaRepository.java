@@ -0,0 +1,66 @@
+/**
+ * =============================================================================
+ * 💾 DadosReferenciaRepository.java - Leitura dos Dados de Referência
+ * =============================================================================
+ *
+ * Este repositório demonstra:
+ * ✅ Consulta leve de versões (uma linha por conjunto) para invalidação
+ * ✅ Projeção direta em records com JdbcTemplate
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring JDBC, PostgreSQL 15
+ * =============================================================================
+ */
+
+package com.petdoc.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas usadas pelo DadosReferenciaCache.
+ */
+@Repository
+public class DadosReferenciaRepository {
+
+    /**
+     * Raça exibida nos formulários de pet e filtros do dashboard.
+     */
+    public record Raca(long id, String nome, String especie) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DadosReferenciaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return conjunto → versão atual (tabela {@code dados_referencia_versao})
+     */
+    public Map<String, Long> versoes() {
+        Map<String, Long> versoes = new HashMap<>();
+        jdbcTemplate.query("SELECT nome, versao FROM dados_referencia_versao",
+            rs -> {
+                versoes.put(rs.getString("nome"), rs.getLong("versao"));
+            });
+        return versoes;
+    }
+
+    public List<String> especies() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT especie FROM raca ORDER BY especie", String.class);
+    }
+
+    /**
+     * @param especie Espécie (ex: CAO, GATO) ou null para todas
+     */
+    public List<Raca> racas(String especie) {
+        return jdbcTemplate.query(
+            "SELECT id, nome, especie FROM raca WHERE (?::varchar IS NULL OR especie = ?) ORDER BY nome",
+            (rs, i) -> new Raca(rs.getLong("id"), rs.getString("nome"), rs.getString("especie")),
+            especie, especie);
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * =============================================================================
+ * 📊 DashboardKpiApiController.java - Endpoint de KPIs do Dashboard
+ * =============================================================================
+ *
+ * Este controller demonstra:
+ * ✅ Endpoint REST de leitura de uma única linha pré-calculada
+ * ✅ Identificação do tutor pelo Principal da sessão
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring MVC
+ * =============================================================================
+ */
+
+package com.petdoc.controller.api;
+
+import com.petdoc.repository.DashboardKpiRepository.DashboardKpi;
+import com.petdoc.service.DashboardKpiService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+
+/**
+ * KPIs do dashboard do tutor logado.
+ *
+ * - GET /api/dashboard/kpis: vacinas, vencidas e lembretes ativos
+ *
+ * Os valores vêm da tabela {@code dashboard_kpi}, mantida pelo
+ * DashboardKpiService; nenhuma agregação sobre Vacina é feita aqui.
+ */
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardKpiApiController {
+
+    private final DashboardKpiService dashboardKpiService;
+
+    public DashboardKpiApiController(DashboardKpiService dashboardKpiService) {
+        this.dashboardKpiService = dashboardKpiService;
+    }
+
+    @GetMapping("/kpis")
+    public ResponseEntity<DashboardKpi> kpis(Principal principal) {
+        return ResponseEntity.of(dashboardKpiService.buscar(principal.getName()));
+    }
+}
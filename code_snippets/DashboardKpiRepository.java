@@ -0,0 +1,173 @@
+/**
+ * =============================================================================
+ * 💾 DashboardKpiRepository.java - Resumo de KPIs do Dashboard por Tutor
+ * =============================================================================
+ *
+ * Este repositório demonstra:
+ * ✅ Tabela de resumo mantida pela aplicação (leitura de uma linha por tutor)
+ * ✅ Recalculo por tutor serializado com SELECT ... FOR UPDATE
+ * ✅ Virada do dia em SQL, em lotes, recalculando todas as linhas
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring JDBC, PostgreSQL 15
+ * =============================================================================
+ */
+
+package com.petdoc.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Operações da tabela {@code dashboard_kpi}.
+ *
+ * Definições (avaliadas em {@code data_referencia}):
+ * - vacinas vencidas: reforço antes de hoje
+ * - lembretes ativos: reforço entre hoje e hoje + janela (padrão 15 dias)
+ */
+@Repository
+public class DashboardKpiRepository {
+
+    /**
+     * Resumo exibido no dashboard.
+     */
+    public record DashboardKpi(
+        long tutorId,
+        int totalVacinas,
+        int vacinasVencidas,
+        int lembretesAtivos,
+        LocalDate dataReferencia
+    ) {
+    }
+
+    /**
+     * Recalcula os contadores de um tutor. Parâmetros: hoje, hoje,
+     * hoje + janela, hoje, tutorId, tutorId.
+     */
+    private static final String SQL_RECALCULAR = """
+        UPDATE dashboard_kpi k
+           SET total_vacinas    = c.total,
+               vacinas_vencidas = c.vencidas,
+               lembretes_ativos = c.ativos,
+               data_referencia  = ?,
+               atualizado_em    = now()
+          FROM (SELECT COUNT(v.id) AS total,
+                       COUNT(v.id) FILTER (WHERE v.data_reforco < ?) AS vencidas,
+                       COUNT(v.id) FILTER (WHERE v.data_reforco BETWEEN ? AND ?) AS ativos
+                  FROM pet p
+                  JOIN vacina v ON v.pet_id = p.id
+                 WHERE p.tutor_id = ?) c
+         WHERE k.tutor_id = ?
+        """;
+
+    /**
+     * Recalcula um lote de linhas ainda não viradas, travando-as na ordem
+     * do tutor_id. O LEFT JOIN zera quem ficou sem pets ou sem vacinas.
+     * Parâmetros: hoje, tamanho do lote, hoje, hoje, hoje + janela, hoje.
+     */
+    private static final String SQL_VIRAR_LOTE = """
+        WITH lote AS (
+            SELECT tutor_id
+              FROM dashboard_kpi
+             WHERE data_referencia < ?
+             ORDER BY tutor_id
+             LIMIT ?
+               FOR UPDATE
+        ), contagem AS (
+            SELECT l.tutor_id,
+                   COUNT(v.id) AS total,
+                   COUNT(v.id) FILTER (WHERE v.data_reforco < ?) AS vencidas,
+                   COUNT(v.id) FILTER (WHERE v.data_reforco BETWEEN ? AND ?) AS ativos
+              FROM lote l
+              LEFT JOIN pet p    ON p.tutor_id = l.tutor_id
+              LEFT JOIN vacina v ON v.pet_id = p.id
+             GROUP BY l.tutor_id
+        )
+        UPDATE dashboard_kpi k
+           SET total_vacinas    = c.total,
+               vacinas_vencidas = c.vencidas,
+               lembretes_ativos = c.ativos,
+               data_referencia  = ?,
+               atualizado_em    = now()
+          FROM contagem c
+         WHERE k.tutor_id = c.tutor_id
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DashboardKpiRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // =========================================================================
+    // LEITURA
+    // =========================================================================
+
+    public Optional<DashboardKpi> buscarPorEmail(String email) {
+        return jdbcTemplate.query("""
+            SELECT k.tutor_id, k.total_vacinas, k.vacinas_vencidas, k.lembretes_ativos, k.data_referencia
+              FROM dashboard_kpi k
+              JOIN tutor t ON t.id = k.tutor_id
+             WHERE t.email = ?
+            """, (rs, i) -> new DashboardKpi(
+                rs.getLong("tutor_id"),
+                rs.getInt("total_vacinas"),
+                rs.getInt("vacinas_vencidas"),
+                rs.getInt("lembretes_ativos"),
+                rs.getDate("data_referencia").toLocalDate()
+            ), email).stream().findFirst();
+    }
+
+    public Optional<Long> buscarTutorIdPorEmail(String email) {
+        return jdbcTemplate.queryForList("SELECT id FROM tutor WHERE email = ?", Long.class, email)
+            .stream().findFirst();
+    }
+
+    public Optional<Long> buscarTutorIdPorPet(long petId) {
+        return jdbcTemplate.queryForList("SELECT tutor_id FROM pet WHERE id = ?", Long.class, petId)
+            .stream().findFirst();
+    }
+
+    // =========================================================================
+    // ATUALIZAÇÃO
+    // =========================================================================
+
+    /**
+     * Recalcula a linha do tutor. Deve rodar dentro de uma transação.
+     *
+     * A linha é travada antes do cálculo: em READ COMMITTED cada comando vê
+     * os commits anteriores a ele, então dois recálculos concorrentes do
+     * mesmo tutor ficam em fila e o último sempre enxerga o estado final.
+     */
+    public void recalcular(long tutorId, LocalDate hoje, int janelaDias) {
+        jdbcTemplate.update(
+            "INSERT INTO dashboard_kpi (tutor_id, data_referencia) VALUES (?, ?) ON CONFLICT DO NOTHING",
+            tutorId, Date.valueOf(hoje));
+        jdbcTemplate.queryForList(
+            "SELECT tutor_id FROM dashboard_kpi WHERE tutor_id = ? FOR UPDATE", Long.class, tutorId);
+
+        Date dataHoje = Date.valueOf(hoje);
+        jdbcTemplate.update(SQL_RECALCULAR,
+            dataHoje, dataHoje, dataHoje, Date.valueOf(hoje.plusDays(janelaDias)), tutorId, tutorId);
+    }
+
+    /**
+     * Vira até {@code tamanhoLote} linhas com referência anterior a hoje.
+     * Deve rodar dentro de uma transação.
+     *
+     * Todas as linhas são recalculadas, não só as de tutores com vacinas
+     * que mudaram de estado: assim a virada também corrige linhas que
+     * ficaram desatualizadas por um evento perdido ou por uma remoção que
+     * não passou pelos eventos (ex: pet removido com as vacinas em cascata).
+     *
+     * @return quantidade de linhas viradas (menor que o lote: acabou)
+     */
+    public int virarLote(LocalDate hoje, int janelaDias, int tamanhoLote) {
+        Date dataHoje = Date.valueOf(hoje);
+        return jdbcTemplate.update(SQL_VIRAR_LOTE,
+            dataHoje, tamanhoLote, dataHoje, dataHoje, Date.valueOf(hoje.plusDays(janelaDias)), dataHoje);
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * =============================================================================
+ * 📊 DashboardKpiService.java - KPIs do Dashboard Mantidos Incrementalmente
+ * =============================================================================
+ *
+ * Este serviço demonstra:
+ * ✅ Atualização por evento de domínio (@TransactionalEventListener AFTER_COMMIT)
+ * ✅ Remoção de pet tratada pelo tutor informado no evento
+ * ✅ Leitura de uma única linha por tutor no endpoint mais acessado
+ * ✅ Virada do dia executada no mesmo agendamento do LembreteService, em lotes
+ * ✅ Autocorreção: linha ausente ou desatualizada é recalculada na leitura
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring JDBC, PostgreSQL 15
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.petdoc.event.PetRemovidoEvent;
+import com.petdoc.event.VacinaAlteradaEvent;
+import com.petdoc.repository.DashboardKpiRepository;
+import com.petdoc.repository.DashboardKpiRepository.DashboardKpi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Mantém a tabela {@code dashboard_kpi}.
+ *
+ * Antes, cada carregamento do dashboard agregava todas as vacinas do tutor
+ * para contar "vacinas vencidas" e "lembretes ativos". Agora o custo vai
+ * para a escrita, que é rara:
+ *
+ * - Vacina criada, editada ou removida: recalcula apenas a linha do tutor
+ * - Pet removido: recalcula o tutor informado no evento (o pet já não
+ *   existe para levar até ele)
+ * - Tutor removido: a linha sai junto ({@code ON DELETE CASCADE})
+ * - Virada do dia: recalcula todas as linhas, em lotes de
+ *   {@value #LOTE_VIRADA} tutores por transação
+ * - Dashboard: lê uma linha
+ *
+ * O recálculo por tutor (em vez de somar/subtrair deltas) dispensa o estado
+ * anterior da vacina no evento e não acumula erro se um evento se perder.
+ */
+@Service
+public class DashboardKpiService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardKpiService.class);
+
+    /** Linhas recalculadas por transação na virada do dia. */
+    static final int LOTE_VIRADA = 500;
+
+    private final DashboardKpiRepository kpiRepository;
+    private final TransactionTemplate transacao;
+
+    /** Janela dos "lembretes ativos": a maior antecedência do LembreteService. */
+    @Value("${app.dashboard.kpi.janela-dias:15}")
+    private int janelaDias;
+
+    public DashboardKpiService(DashboardKpiRepository kpiRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.kpiRepository = kpiRepository;
+
+        // REQUIRES_NEW: no AFTER_COMMIT os recursos da transação original ainda
+        // estão vinculados à thread; sem isso o recálculo "participaria" dela
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * KPIs do tutor logado.
+     *
+     * Se a linha não existir (tutor novo) ou ainda não tiver passado pela
+     * virada do dia, é recalculada antes de responder.
+     */
+    public Optional<DashboardKpi> buscar(String emailTutor) {
+        LocalDate hoje = LocalDate.now();
+        Optional<DashboardKpi> kpi = kpiRepository.buscarPorEmail(emailTutor);
+        if (kpi.isPresent() && !kpi.get().dataReferencia().isBefore(hoje)) {
+            return kpi;
+        }
+
+        Optional<Long> tutorId = kpiRepository.buscarTutorIdPorEmail(emailTutor);
+        if (tutorId.isEmpty()) {
+            return Optional.empty();
+        }
+        recalcular(tutorId.get(), hoje);
+        return kpiRepository.buscarPorEmail(emailTutor);
+    }
+
+    /**
+     * Recalcula o tutor do pet após o commit da alteração.
+     *
+     * AFTER_COMMIT garante que a consulta enxergue a vacina já gravada
+     * (inclusive alterações ainda não "flushadas" pelo Hibernate).
+     * Falhas são apenas registradas: a leitura e a virada do dia corrigem
+     * a linha depois.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVacinaAlterada(VacinaAlteradaEvent evento) {
+        try {
+            kpiRepository.buscarTutorIdPorPet(evento.petId())
+                .ifPresent(tutorId -> recalcular(tutorId, LocalDate.now()));
+        } catch (RuntimeException e) {
+            log.warn("Falha ao atualizar KPIs do pet {}: {}", evento.petId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula o tutor do pet removido após o commit. O evento de vacina
+     * não basta: depois da remoção o pet não leva mais ao tutor.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPetRemovido(PetRemovidoEvent evento) {
+        try {
+            recalcular(evento.tutorId(), LocalDate.now());
+        } catch (RuntimeException e) {
+            log.warn("Falha ao atualizar KPIs do tutor {}: {}", evento.tutorId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Virada do dia: chamada pelo scheduler do LembreteService antes da
+     * verificação de lembretes. Idempotente: uma segunda execução no mesmo
+     * dia (outra instância, modo dev) não encontra linhas pendentes.
+     *
+     * Cada lote é uma transação curta: as linhas ficam travadas só durante
+     * o próprio recálculo.
+     */
+    public void virarDia(LocalDate hoje) {
+        int total = 0;
+        int viradas;
+        do {
+            viradas = transacao.execute(status -> kpiRepository.virarLote(hoje, janelaDias, LOTE_VIRADA));
+            total += viradas;
+        } while (viradas == LOTE_VIRADA);
+        log.info("Virada dos KPIs do dashboard: {} tutor(es) recalculado(s).", total);
+    }
+
+    /**
+     * Uma transação curta por tutor: a trava da linha dura só o recálculo.
+     */
+    private void recalcular(long tutorId, LocalDate hoje) {
+        transacao.executeWithoutResult(status -> kpiRepository.recalcular(tutorId, hoje, janelaDias));
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * =============================================================================
+ * 📧 EmailService.java - Envio de HTML Pronto (trecho)
+ * =============================================================================
+ *
+ * Este trecho demonstra:
+ * ✅ Sobrecarga enviarHtml para HTML já renderizado + imagens inline e anexos
+ * ✅ Mesmo JavaMailSender e remetente do restante do serviço
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Mail
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import jakarta.activation.DataSource;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Envia os e-mails da PetDoc.
+ *
+ * Apenas a sobrecarga nova aparece aqui. O {@code enviarEmailHtml(para,
+ * assunto, template, context)} já existente na aplicação (processa o
+ * template e anexa a logo como {@code cid:petdoc-logo.png}) continua como
+ * está e foi omitido deste trecho.
+ *
+ * Quem já tem o HTML pronto (LembreteEmailRenderer, CarteiraJobService)
+ * chama {@link #enviarHtml} com as partes binárias e não conhece o
+ * JavaMailSender nem o remetente. Assim o
+ * {@link com.petdoc.config.PooledJavaMailSender}, quando ativo, vale para
+ * todos os envios.
+ *
+ * Falhas de envio são propagadas como {@link org.springframework.mail.MailException}
+ * (o LembreteDispatcher depende disso para retentar).
+ */
+@Service
+public class EmailService {
+
+    /**
+     * Parte binária da mensagem: imagem inline (referenciada por {@code cid:nome})
+     * ou anexo (nome do arquivo).
+     */
+    public record Parte(String nome, DataSource conteudo) {
+    }
+
+    private final JavaMailSender mailSender;
+
+    @Value("${app.mail.remetente:${spring.mail.username}}")
+    private String remetente;
+
+    public EmailService(JavaMailSender mailSender) {
+        this.mailSender = mailSender;
+    }
+
+    // enviarEmailHtml(String, String, String, Context): existente, inalterado (omitido)
+
+    /**
+     * Envia um HTML já renderizado.
+     *
+     * @param inline Imagens referenciadas no HTML por {@code cid:<nome>}
+     * @param anexos Arquivos anexados
+     */
+    public void enviarHtml(String para, String assunto, String html, List<Parte> inline, List<Parte> anexos) {
+        mailSender.send(montar(para, assunto, html, inline, anexos));
+    }
+
+    private MimeMessage montar(String para, String assunto, String html, List<Parte> inline, List<Parte> anexos) {
+        try {
+            MimeMessage mensagem = mailSender.createMimeMessage();
+            boolean multipart = !inline.isEmpty() || !anexos.isEmpty();
+            MimeMessageHelper helper = new MimeMessageHelper(mensagem, multipart, StandardCharsets.UTF_8.name());
+            helper.setFrom(remetente);
+            helper.setTo(para);
+            helper.setSubject(assunto);
+            helper.setText(html, true);
+            for (Parte parte : inline) {
+                helper.addInline(parte.nome(), parte.conteudo());
+            }
+            for (Parte anexo : anexos) {
+                helper.addAttachment(anexo.nome(), anexo.conteudo());
+            }
+            return mensagem;
+        } catch (MessagingException e) {
+            throw new MailPreparationException("Erro ao montar e-mail para " + para + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * =============================================================================
+ * 🚦 InicializacaoConfig.java - Subida Rápida do Container
+ * =============================================================================
+ *
+ * Esta configuração demonstra:
+ * ✅ Inicialização preguiçosa seletiva (BeanFactoryPostProcessor) das pilhas de PDF e e-mail
+ * ✅ Aquecimento do renderizador de PDF fora do caminho crítico da subida
+ * ✅ Execução de treino para o arquivo AppCDS (spring.context.exit=onRefresh)
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, AppCDS
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import com.petdoc.service.CarteiraDigitalService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * Modo de subida otimizado ({@code app.inicializacao.otimizada=true}).
+ *
+ * Cada deploy ou scale-out do App Runner paga uma JVM fria: refresh do
+ * contexto, Thymeleaf, metamodelo do Hibernate e, antes, o carregamento
+ * das classes do OpenHTMLToPDF/PDFBox/Batik no aquecimento síncrono do
+ * CarteiraDigitalService. Neste modo:
+ *
+ * 1. Os beans de PDF e e-mail ({@code app.inicializacao.beans-preguicosos})
+ *    só são criados no primeiro uso
+ * 2. O aquecimento do PDF roda em uma thread virtual depois do
+ *    ApplicationReadyEvent, sem atrasar o readiness
+ * 3. O container usa o arquivo AppCDS gerado no build (ver Dockerfile):
+ *    as classes já vêm verificadas e mapeadas do arquivo
+ *
+ * Para o lazy valer, quem injeta esses beans em um bean ansioso (controller,
+ * serviço com @Scheduled) precisa marcar o parâmetro com {@code @Lazy}, como
+ * fazem o LembreteService e o CarteiraLoteApiController. Sem isso o bean é
+ * criado junto com quem o injeta.
+ *
+ * Na execução de treino ({@code app.inicializacao.treino=true}, com
+ * {@code spring.context.exit=onRefresh}) o contexto sobe ansioso e o PDF é
+ * aquecido antes do fim do refresh, para que as classes do renderizador
+ * entrem no arquivo CDS.
+ *
+ * O tempo por bean pode ser conferido com o LinhaDoTempoInicializacao.
+ */
+@Configuration
+public class InicializacaoConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(InicializacaoConfig.class);
+
+    private static final String BEANS_PREGUICOSOS_PADRAO =
+        "pdfAssetRegistry,carteiraPdfCache,pdfRenderPool,carteiraDigitalService,carteiraLoteService,"
+            + "lembreteEmailRenderer,emailService,javaMailSender,mailSender";
+
+    /**
+     * Marca como lazy as definições listadas. Beans ausentes (ex: javaMailSender
+     * sem o MailTransportConfig) são ignorados.
+     *
+     * Método static: BeanFactoryPostProcessor precisa ser criado antes das
+     * demais definições desta classe.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.inicializacao.otimizada", havingValue = "true")
+    static BeanFactoryPostProcessor inicializacaoPreguicosa(Environment environment) {
+        List<String> nomes = List.of(environment
+            .getProperty("app.inicializacao.beans-preguicosos", BEANS_PREGUICOSOS_PADRAO)
+            .split("\\s*,\\s*"));
+
+        return beanFactory -> {
+            for (String nome : nomes) {
+                if (beanFactory.containsBeanDefinition(nome)) {
+                    beanFactory.getBeanDefinition(nome).setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * Aquecimento do PDF após a subida: síncrono no modo padrão (o primeiro
+     * tutor nunca paga o custo) e em segundo plano no modo otimizado (a
+     * instância entra no balanceador antes; só quem gerar um PDF nos
+     * primeiros segundos espera).
+     */
+    @Bean
+    ApplicationListener<ApplicationReadyEvent> aquecimentoPdf(ObjectProvider<CarteiraDigitalService> carteira,
+                                                              Environment environment) {
+        boolean otimizada = environment.getProperty("app.inicializacao.otimizada", Boolean.class, false);
+        return evento -> {
+            if (!otimizada) {
+                carteira.ifAvailable(CarteiraDigitalService::aquecer);
+                return;
+            }
+            Thread.ofVirtual().name("pdf-aquecimento").start(() -> {
+                carteira.ifAvailable(CarteiraDigitalService::aquecer);
+                log.info("Aquecimento do PDF em segundo plano concluído.");
+            });
+        };
+    }
+
+    /**
+     * Execução de treino do AppCDS: aquece o PDF depois de todos os singletons
+     * e antes do {@code spring.context.exit=onRefresh} encerrar a JVM.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.inicializacao.treino", havingValue = "true")
+    SmartInitializingSingleton aquecimentoTreino(ObjectProvider<CarteiraDigitalService> carteira) {
+        return () -> {
+            log.info("[TREINO] Aquecendo o renderizador de PDF para o arquivo CDS...");
+            carteira.ifAvailable(CarteiraDigitalService::aquecer);
+        };
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * =============================================================================
+ * 💾 JdbcSessaoCompactaRepository.java - Sessões Compactas no PostgreSQL
+ * =============================================================================
+ *
+ * Este repositório demonstra:
+ * ✅ SessionRepository do Spring Session sobre JdbcTemplate
+ * ✅ Escrita imediata só quando o conteúdo muda (login, logout, CSRF)
+ * ✅ Write-behind do último acesso: batchUpdate periódico em vez de UPDATE por request
+ * ✅ Limpeza de sessões expiradas em lotes
+ *
+ * Tecnologias: Java 21, Spring Session, Spring JDBC, PostgreSQL 15
+ * =============================================================================
+ */
+
+package com.petdoc.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.SessionRepository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sessões compartilhadas entre as instâncias do App Runner.
+ *
+ * Quase toda requisição só atualiza o "último acesso". Gravar isso a cada
+ * request seria um UPDATE por chamada do SPA; aqui o acesso vai para um
+ * mapa em memória e é descarregado a cada {@code intervaloEscrita}, um
+ * UPDATE em lote por ciclo. Mudanças de conteúdo (login, troca de ID,
+ * logout) são gravadas na hora, porque outra instância pode receber a
+ * próxima requisição.
+ *
+ * Efeito colateral aceito: se a instância cair, os acessos não
+ * descarregados se perdem e a sessão pode expirar até
+ * {@code intervaloEscrita} mais cedo.
+ */
+public class JdbcSessaoCompactaRepository implements SessionRepository<SessaoCompacta>, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcSessaoCompactaRepository.class);
+
+    private static final String SQL_INSERIR = """
+        INSERT INTO sessao_compacta (id, dados, ultimo_acesso, max_inativo_segundos, expira_em)
+        VALUES (?, ?, ?, ?, ?)
+        """;
+
+    private static final String SQL_ATUALIZAR = """
+        UPDATE sessao_compacta
+           SET dados = ?, ultimo_acesso = ?, max_inativo_segundos = ?, expira_em = ?
+         WHERE id = ?
+        """;
+
+    /** GREATEST: um acesso atrasado nunca "volta o relógio" da sessão. */
+    private static final String SQL_TOCAR = """
+        UPDATE sessao_compacta
+           SET ultimo_acesso = GREATEST(ultimo_acesso, ?),
+               expira_em     = GREATEST(ultimo_acesso, ?) + make_interval(secs => max_inativo_segundos)
+         WHERE id = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration maxInativo;
+
+    /** ID → último acesso ainda não gravado (acessos repetidos se fundem). */
+    private final Map<String, Instant> acessosPendentes = new ConcurrentHashMap<>();
+
+    public JdbcSessaoCompactaRepository(JdbcTemplate jdbcTemplate, Duration maxInativo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxInativo = maxInativo;
+    }
+
+    // =========================================================================
+    // SESSION REPOSITORY
+    // =========================================================================
+
+    @Override
+    public SessaoCompacta createSession() {
+        return new SessaoCompacta(maxInativo);
+    }
+
+    @Override
+    public void save(SessaoCompacta sessao) {
+        if (sessao.isNova()) {
+            jdbcTemplate.update(SQL_INSERIR, sessao.getId(), SessaoCompactaCodec.codificar(sessao),
+                Timestamp.from(sessao.getLastAccessedTime()),
+                sessao.getMaxInactiveInterval().toSeconds(), expiraEm(sessao));
+            return;
+        }
+
+        if (sessao.idAlterado()) {
+            jdbcTemplate.update("UPDATE sessao_compacta SET id = ? WHERE id = ?",
+                sessao.getId(), sessao.idOriginal());
+            Instant pendente = acessosPendentes.remove(sessao.idOriginal());
+            if (pendente != null) {
+                acessosPendentes.merge(sessao.getId(), pendente, JdbcSessaoCompactaRepository::maisRecente);
+            }
+        }
+
+        if (sessao.atributosAlterados()) {
+            jdbcTemplate.update(SQL_ATUALIZAR, SessaoCompactaCodec.codificar(sessao),
+                Timestamp.from(sessao.getLastAccessedTime()),
+                sessao.getMaxInactiveInterval().toSeconds(), expiraEm(sessao), sessao.getId());
+            acessosPendentes.remove(sessao.getId());
+        } else if (sessao.acessoAlterado()) {
+            acessosPendentes.merge(sessao.getId(), sessao.getLastAccessedTime(),
+                                   JdbcSessaoCompactaRepository::maisRecente);
+        }
+    }
+
+    @Override
+    public SessaoCompacta findById(String id) {
+        List<SessaoCompacta> encontradas = jdbcTemplate.query(
+            "SELECT dados, ultimo_acesso FROM sessao_compacta WHERE id = ?",
+            (rs, i) -> {
+                SessaoCompacta sessao = SessaoCompactaCodec.decodificar(id, rs.getBytes("dados"));
+                sessao.restaurarUltimoAcesso(rs.getTimestamp("ultimo_acesso").toInstant());
+                return sessao;
+            }, id);
+        if (encontradas.isEmpty()) {
+            return null;
+        }
+
+        SessaoCompacta sessao = encontradas.get(0);
+        Instant pendente = acessosPendentes.get(id);
+        if (pendente != null) {
+            sessao.restaurarUltimoAcesso(pendente);
+        }
+        if (sessao.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return sessao;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        acessosPendentes.remove(id);
+        jdbcTemplate.update("DELETE FROM sessao_compacta WHERE id = ?", id);
+    }
+
+    // =========================================================================
+    // WRITE-BEHIND E LIMPEZA
+    // =========================================================================
+
+    /**
+     * Grava os últimos acessos acumulados em um único batch.
+     */
+    @Scheduled(fixedDelayString = "${app.sessao.jdbc.intervalo-escrita-ms:10000}")
+    public void descarregarAcessos() {
+        if (acessosPendentes.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Instant>> lote = new ArrayList<>();
+        for (String id : List.copyOf(acessosPendentes.keySet())) {
+            Instant acesso = acessosPendentes.remove(id);
+            if (acesso != null) {
+                lote.add(Map.entry(id, acesso));
+            }
+        }
+        jdbcTemplate.batchUpdate(SQL_TOCAR, lote, lote.size(), (ps, acesso) -> {
+            Timestamp quando = Timestamp.from(acesso.getValue());
+            ps.setTimestamp(1, quando);
+            ps.setTimestamp(2, quando);
+            ps.setString(3, acesso.getKey());
+        });
+        log.debug("{} acesso(s) de sessão gravado(s).", lote.size());
+    }
+
+    /**
+     * Remove sessões expiradas em lotes pequenos (sem travar a tabela).
+     */
+    @Scheduled(fixedDelayString = "${app.sessao.jdbc.limpeza-ms:300000}")
+    public void removerExpiradas() {
+        descarregarAcessos();
+        int removidas;
+        int total = 0;
+        do {
+            removidas = jdbcTemplate.update("""
+                DELETE FROM sessao_compacta
+                 WHERE id IN (SELECT id FROM sessao_compacta WHERE expira_em < now() LIMIT 1000)
+                """);
+            total += removidas;
+        } while (removidas == 1000);
+        if (total > 0) {
+            log.info("{} sessão(ões) expirada(s) removida(s).", total);
+        }
+    }
+
+    /**
+     * Descarrega os acessos pendentes no desligamento (deploy, scale-in).
+     */
+    @Override
+    public void destroy() {
+        descarregarAcessos();
+    }
+
+    private static Timestamp expiraEm(SessaoCompacta sessao) {
+        return Timestamp.from(sessao.getLastAccessedTime().plus(sessao.getMaxInactiveInterval()));
+    }
+
+    private static Instant maisRecente(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
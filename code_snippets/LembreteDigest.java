@@ -0,0 +1,116 @@
+/**
+ * =============================================================================
+ * 📬 LembreteDigest.java - Resumo de Lembretes por Tutor
+ * =============================================================================
+ *
+ * Este record demonstra:
+ * ✅ Agrupamento dos lembretes do dia em um único e-mail por destinatário
+ * ✅ Agrupador em streaming sobre o cursor ordenado por e-mail (memória de um tutor)
+ * ✅ Registro dos pares (vacina, antecedência) cobertos por cada e-mail
+ *
+ * Tecnologias: Java 21 (Records)
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Todos os lembretes de um tutor em uma execução, em todos os períodos.
+ *
+ * Um tutor com três pets e duas vacinas vencendo para cada um recebia seis
+ * e-mails, cada um com sua renderização e seu envio SMTP. Com o resumo, ele
+ * recebe um e-mail listando as seis vacinas.
+ *
+ * @param emailPara Destinatário (igual em todos os itens)
+ * @param itens Lembretes cobertos, na ordem da consulta (data de reforço)
+ */
+public record LembreteDigest(
+    String emailPara,
+    String nomeTutor,
+    List<LembreteVacina> itens
+) {
+
+    public LembreteDigest {
+        if (itens.isEmpty()) {
+            throw new IllegalArgumentException("Resumo de lembretes sem itens para " + emailPara);
+        }
+        itens = List.copyOf(itens);
+    }
+
+    /**
+     * Resumo a partir de lembretes do mesmo destinatário.
+     */
+    public static LembreteDigest de(List<LembreteVacina> itens) {
+        LembreteVacina primeiro = itens.get(0);
+        return new LembreteDigest(primeiro.emailPara(), primeiro.nomeTutor(), itens);
+    }
+
+    /**
+     * Nomes dos pets, sem repetição, na ordem dos itens (usado no assunto).
+     */
+    public List<String> nomesPets() {
+        Set<String> nomes = new LinkedHashSet<>();
+        for (LembreteVacina item : itens) {
+            nomes.add(item.nomePet());
+        }
+        return List.copyOf(nomes);
+    }
+
+    /**
+     * Agrupador que recebe os lembretes um a um e emite um resumo sempre que
+     * o destinatário muda.
+     *
+     * Exige entrada ordenada por e-mail (o LembreteRepository ordena por
+     * {@code t.email}); assim só os itens do tutor atual ficam em memória.
+     * Chame {@link Agrupador#concluir()} ao final para emitir o último.
+     */
+    public static Agrupador agrupador(Consumer<LembreteDigest> destino) {
+        return new Agrupador(destino);
+    }
+
+    public static final class Agrupador implements Consumer<LembreteVacina> {
+
+        private final Consumer<LembreteDigest> destino;
+        private final List<LembreteVacina> atuais = new ArrayList<>();
+        private String emailAtual;
+        private int emitidos;
+
+        private Agrupador(Consumer<LembreteDigest> destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public void accept(LembreteVacina lembrete) {
+            if (emailAtual != null && !emailAtual.equals(lembrete.emailPara())) {
+                emitir();
+            }
+            emailAtual = lembrete.emailPara();
+            atuais.add(lembrete);
+        }
+
+        /**
+         * Emite o resumo pendente.
+         *
+         * @return quantidade de resumos emitidos desde a criação
+         */
+        public int concluir() {
+            if (!atuais.isEmpty()) {
+                emitir();
+            }
+            return emitidos;
+        }
+
+        private void emitir() {
+            destino.accept(LembreteDigest.de(atuais));
+            atuais.clear();
+            emailAtual = null;
+            emitidos++;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * =============================================================================
+ * 💾 LembreteDigestRepository.java - Registro dos Resumos de Lembretes
+ * =============================================================================
+ *
+ * Este repositório demonstra:
+ * ✅ INSERT ... RETURNING para obter o ID gerado em uma única ida ao banco
+ * ✅ JdbcTemplate com batchUpdate para os itens cobertos por cada resumo
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring JDBC, PostgreSQL 15
+ * =============================================================================
+ */
+
+package com.petdoc.repository;
+
+import com.petdoc.service.LembreteDigest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Operações das tabelas {@code lembrete_digest} e {@code lembrete_digest_item}.
+ */
+@Repository
+public class LembreteDigestRepository {
+
+    private static final String SQL_INSERIR = """
+        INSERT INTO lembrete_digest
+            (email_para, data_referencia, status, tentativas, total_itens, ultimo_erro, enviado_em)
+        VALUES (?, ?, ?, ?, ?, ?, CASE WHEN ? THEN now() END)
+        RETURNING id
+        """;
+
+    private static final String SQL_INSERIR_ITEM =
+        "INSERT INTO lembrete_digest_item (digest_id, vacina_id, dias_antecedencia) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LembreteDigestRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registra o resultado de um resumo e os pares (vacina, antecedência)
+     * que ele cobriu.
+     *
+     * @return ID do resumo
+     */
+    public long registrar(LembreteDigest digest, LocalDate dataReferencia,
+                          boolean enviado, int tentativas, String erro) {
+        Long id = jdbcTemplate.queryForObject(SQL_INSERIR, Long.class,
+            digest.emailPara(), Date.valueOf(dataReferencia), enviado ? "ENVIADO" : "FALHA",
+            tentativas, digest.itens().size(), erro, enviado);
+
+        jdbcTemplate.batchUpdate(SQL_INSERIR_ITEM, digest.itens(), digest.itens().size(), (ps, item) -> {
+            ps.setLong(1, id);
+            ps.setLong(2, item.vacinaId());
+            ps.setInt(3, item.diasDeAntecedencia());
+        });
+        return id;
+    }
+}
@@ -0,0 +1,362 @@
+/**
+ * =============================================================================
+ * 🚀 LembreteDispatcher.java - Envio Paralelo de Lembretes com Rate Limit
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Virtual Threads do Java 21 (Executors.newVirtualThreadPerTaskExecutor)
+ * ✅ Rate limit global e por domínio do destinatário (token bucket)
+ * ✅ Retentativas limitadas com backoff exponencial e jitter
+ * ✅ Backpressure com Semaphore (limite de envios simultâneos)
+ * ✅ Resultado de cada mensagem entregue a um callback assim que ela termina
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Micrometer
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Motor de despacho do pipeline de lembretes.
+ *
+ * Antes, cada e-mail esperava o round-trip SMTP do anterior; um servidor
+ * lento travava o lote inteiro e o tempo total crescia linearmente com o
+ * número de lembretes. Agora cada mensagem roda em uma Virtual Thread:
+ *
+ * - No máximo {@code max-simultaneos} envios em andamento (backpressure no produtor)
+ * - Taxa global e por domínio (ex: gmail.com) limitadas por token bucket
+ * - Falhas são retentadas até {@code max-tentativas}, com backoff exponencial
+ *
+ * A função de envio deve lançar exceção em caso de falha; é isso que
+ * dispara a retentativa. O resultado final de cada mensagem vai para o
+ * callback {@code aoConcluir}, na própria Virtual Thread do envio e antes
+ * de liberar a vaga; o despacho não guarda os resultados, só os totais.
+ * Assim a memória de um despacho não cresce com o número de mensagens. O item enviado pode ser um {@link LembreteVacina}
+ * ou um {@link LembreteDigest} (um e-mail por tutor); o rate limit por
+ * domínio usa o destinatário de cada item.
+ *
+ * Métricas (valem para o modo direto e para a outbox):
+ * - {@code petdoc.lembretes.envio}: duração total por mensagem, incluindo
+ *   espera do rate limit e retentativas (tag {@code status})
+ * - {@code petdoc.lembretes.tentativa}: duração de cada chamada à função de
+ *   envio (apenas o SMTP, sem a espera do rate limit)
+ * - {@code petdoc.lembretes.falhas}: mensagens que esgotaram as tentativas
+ * - {@code petdoc.lembretes.retentativas}: tentativas que falharam e serão repetidas
+ */
+@Component
+public class LembreteDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(LembreteDispatcher.class);
+
+    public enum Status { ENVIADO, FALHA }
+
+    /**
+     * Resultado final de uma mensagem.
+     *
+     * @param lembrete Item submetido (a mesma instância, útil para correlação)
+     * @param tentativas Quantas vezes o envio foi tentado (1 = primeira)
+     * @param erro Mensagem do último erro, ou null se enviado
+     */
+    public record ResultadoEnvio<T>(
+        T lembrete,
+        Status status,
+        int tentativas,
+        String erro,
+        Duration duracao
+    ) {
+    }
+
+    /**
+     * Totais de um despacho, devolvidos por {@link Despacho#aguardar()}.
+     */
+    public record Totais(int enviados, int falhas) {
+    }
+
+    @Value("${app.lembretes.envio.max-simultaneos:50}")
+    private int maxSimultaneos;
+
+    @Value("${app.lembretes.envio.taxa-global-por-segundo:20}")
+    private double taxaGlobal;
+
+    @Value("${app.lembretes.envio.taxa-por-dominio-por-segundo:5}")
+    private double taxaPorDominio;
+
+    @Value("${app.lembretes.envio.max-tentativas:3}")
+    private int maxTentativas;
+
+    @Value("${app.lembretes.envio.backoff-inicial-ms:1000}")
+    private long backoffInicialMs;
+
+    private final Timer tempoEnviado;
+    private final Timer tempoFalha;
+    private final Timer tempoTentativa;
+    private final Counter falhas;
+    private final Counter retentativas;
+
+    public LembreteDispatcher(MeterRegistry meterRegistry) {
+        this.tempoEnviado = tempoEnvio(meterRegistry, Status.ENVIADO);
+        this.tempoFalha = tempoEnvio(meterRegistry, Status.FALHA);
+        this.tempoTentativa = Timer.builder("petdoc.lembretes.tentativa")
+            .description("Duração de cada tentativa de envio (sem espera do rate limit)")
+            .register(meterRegistry);
+        this.falhas = Counter.builder("petdoc.lembretes.falhas")
+            .description("Lembretes não entregues após todas as tentativas")
+            .register(meterRegistry);
+        this.retentativas = Counter.builder("petdoc.lembretes.retentativas")
+            .description("Tentativas de envio que falharam e foram repetidas")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Inicia um novo despacho.
+     *
+     * Uso:
+     * <pre>
+     * try (LembreteDispatcher.Despacho&lt;LembreteVacina&gt; despacho =
+     *          dispatcher.novoDespacho(this::enviarLembrete, this::registrarResultado)) {
+     *     lembretes.forEach(despacho::submeter);
+     *     LembreteDispatcher.Totais totais = despacho.aguardar();
+     * }
+     * </pre>
+     *
+     * @param envio Função que envia um lembrete (lança exceção em caso de falha)
+     * @param aoConcluir Recebe o resultado final de cada lembrete (chamado em paralelo)
+     */
+    public Despacho<LembreteVacina> novoDespacho(Consumer<LembreteVacina> envio,
+                                                 Consumer<ResultadoEnvio<LembreteVacina>> aoConcluir) {
+        return novoDespacho(envio, LembreteVacina::emailPara, aoConcluir);
+    }
+
+    /**
+     * Inicia um despacho de itens de outro tipo (ex: {@link LembreteDigest}).
+     *
+     * @param envio Função que envia um item (lança exceção em caso de falha)
+     * @param destinatario E-mail do item, usado no rate limit por domínio
+     * @param aoConcluir Recebe o resultado final de cada item (chamado em paralelo)
+     */
+    public <T> Despacho<T> novoDespacho(Consumer<T> envio, Function<T, String> destinatario,
+                                        Consumer<ResultadoEnvio<T>> aoConcluir) {
+        return new Despacho<>(envio, destinatario, aoConcluir);
+    }
+
+    /**
+     * Um lote de envios. Os limitadores de taxa valem para o lote inteiro.
+     */
+    public final class Despacho<T> implements AutoCloseable {
+
+        private final Consumer<T> envio;
+        private final Function<T, String> destinatario;
+        private final Consumer<ResultadoEnvio<T>> aoConcluir;
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        private final Semaphore vagas = new Semaphore(maxSimultaneos);
+        private final LimitadorTaxa limitadorGlobal = new LimitadorTaxa(taxaGlobal);
+        private final Map<String, LimitadorTaxa> limitadoresPorDominio = new ConcurrentHashMap<>();
+        private final AtomicInteger enviados = new AtomicInteger();
+        private final AtomicInteger falhasDespacho = new AtomicInteger();
+
+        private Despacho(Consumer<T> envio, Function<T, String> destinatario,
+                         Consumer<ResultadoEnvio<T>> aoConcluir) {
+            this.envio = envio;
+            this.destinatario = destinatario;
+            this.aoConcluir = aoConcluir;
+        }
+
+        /**
+         * Agenda o envio de um lembrete.
+         * Bloqueia o produtor enquanto houver {@code max-simultaneos} envios em andamento.
+         */
+        public void submeter(T lembrete) {
+            try {
+                vagas.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Despacho de lembretes interrompido", e);
+            }
+            executor.submit(() -> {
+                try {
+                    concluir(enviarComRetentativa(lembrete));
+                } finally {
+                    vagas.release();
+                }
+            });
+        }
+
+        /**
+         * Aguarda todos os envios submetidos (e seus callbacks) e devolve os totais.
+         */
+        public Totais aguardar() {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.info("Aguardando envio de lembretes ({} concluídos)...",
+                             enviados.get() + falhasDespacho.get());
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+
+            Totais totais = new Totais(enviados.get(), falhasDespacho.get());
+            log.info("Despacho concluído: {} enviado(s), {} falha(s).", totais.enviados(), totais.falhas());
+            return totais;
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+
+        /**
+         * Conta o resultado e o entrega ao callback. Uma falha do callback
+         * (ex: banco indisponível ao registrar) é logada e não derruba a
+         * Virtual Thread nem a vaga do envio.
+         */
+        private void concluir(ResultadoEnvio<T> resultado) {
+            (resultado.status() == Status.ENVIADO ? enviados : falhasDespacho).incrementAndGet();
+            try {
+                aoConcluir.accept(resultado);
+            } catch (RuntimeException e) {
+                log.error("Falha ao processar o resultado do envio para {}: {}",
+                          destinatario.apply(resultado.lembrete()), e.getMessage(), e);
+            }
+        }
+
+        private ResultadoEnvio<T> enviarComRetentativa(T lembrete) {
+            long inicio = System.nanoTime();
+            String email = destinatario.apply(lembrete);
+            String ultimoErro = null;
+
+            for (int tentativa = 1; tentativa <= maxTentativas; tentativa++) {
+                try {
+                    // Domínio antes do global: o LimitadorTaxa reserva a permissão
+                    // antes de dormir, e uma permissão global reservada durante a
+                    // espera de um domínio lento ficaria ociosa para os demais
+                    limitadoresPorDominio
+                        .computeIfAbsent(dominio(email), d -> new LimitadorTaxa(taxaPorDominio))
+                        .adquirir();
+                    limitadorGlobal.adquirir();
+
+                    tempoTentativa.record(() -> envio.accept(lembrete));
+                    return resultado(lembrete, Status.ENVIADO, tentativa, null, inicio);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return resultado(lembrete, Status.FALHA, tentativa, "interrompido", inicio);
+                } catch (RuntimeException e) {
+                    ultimoErro = e.getMessage();
+                    log.warn("Falha no envio para {} (tentativa {}/{}): {}",
+                             email, tentativa, maxTentativas, ultimoErro);
+
+                    if (tentativa < maxTentativas) {
+                        retentativas.increment();
+                    }
+                    if (tentativa < maxTentativas && !aguardarBackoff(tentativa)) {
+                        return resultado(lembrete, Status.FALHA, tentativa, "interrompido", inicio);
+                    }
+                }
+            }
+            return resultado(lembrete, Status.FALHA, maxTentativas, ultimoErro, inicio);
+        }
+    }
+
+    // =========================================================================
+    // AUXILIARES
+    // =========================================================================
+
+    /**
+     * Backoff exponencial com jitter: base * 2^(tentativa-1) * [0.5, 1.5).
+     *
+     * @return false se a thread foi interrompida durante a espera
+     */
+    private boolean aguardarBackoff(int tentativa) {
+        long base = backoffInicialMs << (tentativa - 1);
+        long espera = (long) (base * (0.5 + ThreadLocalRandom.current().nextDouble()));
+        try {
+            Thread.sleep(espera);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private <T> ResultadoEnvio<T> resultado(T lembrete, Status status,
+                                            int tentativas, String erro, long inicioNanos) {
+        Duration duracao = Duration.ofNanos(System.nanoTime() - inicioNanos);
+        if (status == Status.ENVIADO) {
+            tempoEnviado.record(duracao);
+        } else {
+            tempoFalha.record(duracao);
+            falhas.increment();
+        }
+        return new ResultadoEnvio<>(lembrete, status, tentativas, erro, duracao);
+    }
+
+    private static Timer tempoEnvio(MeterRegistry registry, Status status) {
+        return Timer.builder("petdoc.lembretes.envio")
+            .description("Duração do envio de um lembrete, com rate limit e retentativas")
+            .tag("status", status.name())
+            .register(registry);
+    }
+
+    private static String dominio(String email) {
+        int arroba = email.lastIndexOf('@');
+        return arroba >= 0 ? email.substring(arroba + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Token bucket simples com reserva antecipada.
+     *
+     * Cada chamada reserva uma permissão (o saldo pode ficar negativo) e
+     * dorme fora do lock pelo tempo necessário para o saldo se recompor.
+     * Capacidade de rajada = 1 segundo de taxa.
+     */
+    static final class LimitadorTaxa {
+
+        private final double permissoesPorNano;
+        private final double capacidade;
+        private double disponiveis;
+        private long ultimaRecarga = System.nanoTime();
+
+        LimitadorTaxa(double permissoesPorSegundo) {
+            this.permissoesPorNano = permissoesPorSegundo / TimeUnit.SECONDS.toNanos(1);
+            this.capacidade = Math.max(1, permissoesPorSegundo);
+            this.disponiveis = capacidade;
+        }
+
+        void adquirir() throws InterruptedException {
+            long esperaNanos;
+            synchronized (this) {
+                long agora = System.nanoTime();
+                disponiveis = Math.min(capacidade, disponiveis + (agora - ultimaRecarga) * permissoesPorNano);
+                ultimaRecarga = agora;
+
+                disponiveis -= 1;
+                esperaNanos = disponiveis >= 0 ? 0 : (long) (-disponiveis / permissoesPorNano);
+            }
+            if (esperaNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(esperaNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,349 @@
+/**
+ * =============================================================================
+ * ✉️ LembreteEmailRenderer.java - Renderização Pré-Compilada do Lembrete
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Template Thymeleaf processado uma única vez e dividido em fragmentos
+ * ✅ Preenchimento apenas dos "slots" variáveis por mensagem (StringBuilder)
+ * ✅ Escape HTML explícito dos valores (HtmlUtils)
+ * ✅ Logo inline (cid:) carregada uma vez e compartilhada via DataSource
+ * ✅ Formatadores como constantes (DateTimeFormatter é thread-safe)
+ * ✅ E-mail de resumo (LembreteDigest) com todos os lembretes de um tutor
+ * ✅ Validação dos slots com volta ao Thymeleaf por mensagem
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Thymeleaf
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import jakarta.activation.DataSource;
+import jakarta.mail.util.ByteArrayDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.util.HtmlUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Estágio de renderização do pipeline de lembretes.
+ *
+ * Antes, cada lembrete criava um Context novo, um DateTimeFormatter novo,
+ * formatava o assunto com String.format e o EmailService processava o
+ * template do zero, recarregando a logo inline. Agora:
+ *
+ * 1. Na primeira mensagem, o template é processado com marcadores no lugar
+ *    das variáveis e o HTML resultante é dividido em fragmentos estáticos
+ * 2. Cada mensagem só concatena os fragmentos com os valores escapados
+ * 3. A logo é lida do Classpath uma vez e anexada por referência
+ *
+ * Os valores fixos do lote ({@code dashboardUrl}, {@code logoUrl}) entram
+ * já no HTML pré-renderizado.
+ *
+ * Resumos ({@link LembreteDigest}) com um único item usam o mesmo caminho
+ * pré-compilado e saem idênticos ao lembrete individual. Com dois ou mais
+ * itens, o template {@code app.lembretes.template.resumo}
+ * ({@code lembrete-vacina-resumo.html}, mesmo layout do lembrete individual
+ * com uma linha por vacina) é processado pelo Thymeleaf uma vez por tutor,
+ * com as variáveis {@code nomeTutor} e {@code itens} (lista com
+ * {@code nomePet}, {@code nomeVacina}, {@code tipoAviso} e
+ * {@code dataReforcoFormatada}), além das fixas.
+ *
+ * A pré-compilação só é usada se cada variável de {@link #SLOTS} aparecer
+ * ao menos uma vez no HTML e nenhum marcador sobrar (ex: valor alterado
+ * por th:if, th:each ou um utilitário de texto). Caso contrário o motivo é
+ * logado e cada mensagem volta a ser processada pelo Thymeleaf, o mesmo
+ * que desligar {@code app.lembretes.template.pre-compilado}.
+ *
+ * Este componente só renderiza: o envio é do {@link EmailService}, que
+ * recebe o {@link EmailRenderizado} com a logo como imagem inline.
+ */
+@Component
+public class LembreteEmailRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(LembreteEmailRenderer.class);
+
+    /** Formato de data exibido no e-mail (thread-safe, compartilhado). */
+    public static final DateTimeFormatter DATA_BR = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final String LOGO_CID = "petdoc-logo.png";
+    private static final String MARCADOR = "@@PETDOC_SLOT_%s@@";
+    private static final String RESIDUO_MARCADOR = "PETDOC_SLOT";
+
+    /** Variáveis que mudam a cada mensagem. */
+    private static final List<String> SLOTS = List.of(
+        "nomeTutor", "nomePet", "nomeVacina", "tipoAviso", "dataReforcoFormatada"
+    );
+
+    /** Resultado de {@link #compilar()} quando o template não pode ser pré-compilado. */
+    private static final TemplateCompilado NAO_COMPILAVEL = new TemplateCompilado(List.of(), List.of(), 0);
+
+    private final TemplateEngine templateEngine;
+
+    @Value("${app.dashboard.url}")
+    private String dashboardUrl;
+
+    @Value("${app.lembretes.template.nome:lembrete-vacina.html}")
+    private String nomeTemplate;
+
+    @Value("${app.lembretes.template.resumo:lembrete-vacina-resumo.html}")
+    private String nomeTemplateResumo;
+
+    @Value("${app.lembretes.template.pre-compilado:true}")
+    private boolean preCompilado;
+
+    @Value("${app.mail.logo:static/images/petdoc-logo_compressed2.png}")
+    private String caminhoLogo;
+
+    private volatile TemplateCompilado compilado;
+    private volatile DataSource logo;
+
+    public LembreteEmailRenderer(TemplateEngine templateEngine) {
+        this.templateEngine = templateEngine;
+    }
+
+    /**
+     * E-mail pronto para o {@link EmailService}.
+     */
+    public record EmailRenderizado(String para, String assunto, String html, List<EmailService.Parte> inline) {
+    }
+
+    // =========================================================================
+    // API
+    // =========================================================================
+
+    /**
+     * Renderiza o e-mail de lembrete (HTML + logo inline).
+     */
+    public EmailRenderizado renderizar(LembreteVacina lembrete) {
+        return new EmailRenderizado(lembrete.emailPara(), assunto(lembrete), renderizarHtml(lembrete), inline());
+    }
+
+    /**
+     * Renderiza o e-mail de resumo; com um único item, é o lembrete individual.
+     */
+    public EmailRenderizado renderizar(LembreteDigest digest) {
+        if (digest.itens().size() == 1) {
+            return renderizar(digest.itens().get(0));
+        }
+        return new EmailRenderizado(digest.emailPara(), assunto(digest), renderizarHtml(digest), inline());
+    }
+
+    /**
+     * Assunto do e-mail, sem String.format (evita parse do padrão a cada chamada).
+     */
+    public String assunto(LembreteVacina lembrete) {
+        return "Lembrete de Reforço PetDoc: " + lembrete.nomePet() + " (" + lembrete.nomeVacina() + ")";
+    }
+
+    /**
+     * Assunto do resumo: quantidade de vacinas e nomes dos pets.
+     */
+    public String assunto(LembreteDigest digest) {
+        if (digest.itens().size() == 1) {
+            return assunto(digest.itens().get(0));
+        }
+        return "Lembrete de Reforço PetDoc: " + digest.itens().size() + " vacinas ("
+            + String.join(", ", digest.nomesPets()) + ")";
+    }
+
+    /**
+     * HTML do lembrete.
+     */
+    public String renderizarHtml(LembreteVacina lembrete) {
+        Map<String, String> valores = Map.of(
+            "nomeTutor", nuloComoVazio(lembrete.nomeTutor()),
+            "nomePet", nuloComoVazio(lembrete.nomePet()),
+            "nomeVacina", nuloComoVazio(lembrete.nomeVacina()),
+            "tipoAviso", lembrete.tipoAviso().toLowerCase(Locale.ROOT),
+            "dataReforcoFormatada", lembrete.dataReforco().format(DATA_BR)
+        );
+
+        TemplateCompilado atual = preCompilado ? compilado() : NAO_COMPILAVEL;
+        if (atual == NAO_COMPILAVEL) {
+            Context context = contextoBase();
+            valores.forEach(context::setVariable);
+            return templateEngine.process(nomeTemplate, context);
+        }
+        return atual.preencher(valores);
+    }
+
+    /**
+     * HTML do resumo. Os valores são escapados pelo próprio th:text do template.
+     */
+    public String renderizarHtml(LembreteDigest digest) {
+        if (digest.itens().size() == 1) {
+            return renderizarHtml(digest.itens().get(0));
+        }
+
+        List<Map<String, String>> itens = new ArrayList<>(digest.itens().size());
+        for (LembreteVacina item : digest.itens()) {
+            itens.add(Map.of(
+                "nomePet", nuloComoVazio(item.nomePet()),
+                "nomeVacina", nuloComoVazio(item.nomeVacina()),
+                "tipoAviso", item.tipoAviso().toLowerCase(Locale.ROOT),
+                "dataReforcoFormatada", item.dataReforco().format(DATA_BR)
+            ));
+        }
+
+        Context context = contextoBase();
+        context.setVariable("nomeTutor", nuloComoVazio(digest.nomeTutor()));
+        context.setVariable("itens", itens);
+        return templateEngine.process(nomeTemplateResumo, context);
+    }
+
+    /**
+     * Descarta o template pré-compilado (ex: após trocar o template em dev).
+     */
+    public void recompilar() {
+        this.compilado = null;
+    }
+
+    // =========================================================================
+    // PRÉ-COMPILAÇÃO
+    // =========================================================================
+
+    /**
+     * HTML dividido em partes: fragmentos estáticos intercalados com slots.
+     * {@code fragmentos.size() == slots.size() + 1}.
+     */
+    private record TemplateCompilado(List<String> fragmentos, List<String> slots, int tamanhoEstatico) {
+
+        String preencher(Map<String, String> valores) {
+            StringBuilder html = new StringBuilder(tamanhoEstatico + 256);
+            for (int i = 0; i < slots.size(); i++) {
+                html.append(fragmentos.get(i));
+                html.append(HtmlUtils.htmlEscape(valores.get(slots.get(i)), StandardCharsets.UTF_8.name()));
+            }
+            html.append(fragmentos.get(slots.size()));
+            return html.toString();
+        }
+    }
+
+    private TemplateCompilado compilado() {
+        TemplateCompilado atual = compilado;
+        if (atual == null) {
+            synchronized (this) {
+                atual = compilado;
+                if (atual == null) {
+                    atual = compilar();
+                    compilado = atual;
+                }
+            }
+        }
+        return atual;
+    }
+
+    /**
+     * Processa o template uma vez com marcadores e localiza cada ocorrência.
+     *
+     * @return {@link #NAO_COMPILAVEL} se algum slot não aparecer no HTML ou se
+     *         sobrar texto de marcador fora das posições reconhecidas
+     */
+    private TemplateCompilado compilar() {
+        Context context = contextoBase();
+        for (String slot : SLOTS) {
+            context.setVariable(slot, MARCADOR.formatted(slot));
+        }
+        String html = templateEngine.process(nomeTemplate, context);
+
+        List<String> fragmentos = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int posicao = 0;
+        int tamanhoEstatico = 0;
+
+        while (true) {
+            int proximo = -1;
+            String slotEncontrado = null;
+            for (String slot : SLOTS) {
+                int indice = html.indexOf(MARCADOR.formatted(slot), posicao);
+                if (indice >= 0 && (proximo < 0 || indice < proximo)) {
+                    proximo = indice;
+                    slotEncontrado = slot;
+                }
+            }
+            if (proximo < 0) {
+                break;
+            }
+            String fragmento = html.substring(posicao, proximo);
+            fragmentos.add(fragmento);
+            tamanhoEstatico += fragmento.length();
+            slots.add(slotEncontrado);
+            posicao = proximo + MARCADOR.formatted(slotEncontrado).length();
+        }
+        String ultimo = html.substring(posicao);
+        fragmentos.add(ultimo);
+        tamanhoEstatico += ultimo.length();
+
+        List<String> ausentes = SLOTS.stream().filter(slot -> !slots.contains(slot)).toList();
+        if (!ausentes.isEmpty()) {
+            log.warn("Template {} não pré-compilado: variável(is) {} sem marcador no HTML. "
+                     + "Cada mensagem será processada pelo Thymeleaf.", nomeTemplate, ausentes);
+            return NAO_COMPILAVEL;
+        }
+        if (fragmentos.stream().anyMatch(fragmento -> fragmento.contains(RESIDUO_MARCADOR))) {
+            log.warn("Template {} não pré-compilado: marcador alterado pelo template. "
+                     + "Cada mensagem será processada pelo Thymeleaf.", nomeTemplate);
+            return NAO_COMPILAVEL;
+        }
+
+        log.info("Template {} pré-compilado: {} fragmento(s), {} slot(s).",
+                 nomeTemplate, fragmentos.size(), slots.size());
+        return new TemplateCompilado(List.copyOf(fragmentos), List.copyOf(slots), tamanhoEstatico);
+    }
+
+    /**
+     * Variáveis fixas para todas as mensagens.
+     */
+    private Context contextoBase() {
+        Context context = new Context();
+        context.setVariable("dashboardUrl", dashboardUrl);
+        context.setVariable("logoUrl", "cid:" + LOGO_CID);  // Content-ID para inline image
+        return context;
+    }
+
+    // =========================================================================
+    // LOGO INLINE
+    // =========================================================================
+
+    /**
+     * Bytes da logo lidos uma única vez. ByteArrayDataSource devolve um
+     * stream novo a cada leitura, então a mesma instância serve a todas as
+     * mensagens, inclusive em paralelo.
+     */
+    private List<EmailService.Parte> inline() {
+        return List.of(new EmailService.Parte(LOGO_CID, logo()));
+    }
+
+    private DataSource logo() {
+        DataSource atual = logo;
+        if (atual == null) {
+            try (InputStream in = new ClassPathResource(caminhoLogo).getInputStream()) {
+                atual = new ByteArrayDataSource(StreamUtils.copyToByteArray(in), "image/png");
+                logo = atual;
+            } catch (IOException e) {
+                throw new MailPreparationException("Logo do e-mail não encontrada: " + caminhoLogo, e);
+            }
+        }
+        return atual;
+    }
+
+    private static String nuloComoVazio(String valor) {
+        return valor != null ? valor : "";
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * =============================================================================
+ * 💾 LembreteOutboxRepository.java - Acesso à Outbox de Lembretes
+ * =============================================================================
+ *
+ * Este repositório demonstra:
+ * ✅ JdbcTemplate com batchUpdate para inserções em lote
+ * ✅ INSERT ... ON CONFLICT DO NOTHING (produtor idempotente)
+ * ✅ SELECT ... FOR UPDATE SKIP LOCKED (workers concorrentes sem disputa)
+ * ✅ UPDATE ... RETURNING para reservar e ler em uma única ida ao banco
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring JDBC, PostgreSQL 15
+ * =============================================================================
+ */
+
+package com.petdoc.repository;
+
+import com.petdoc.service.LembreteVacina;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Operações da tabela {@code lembrete_outbox}.
+ *
+ * Ciclo de vida de um item:
+ * PENDENTE → PROCESSANDO (reservado por um nó) → ENVIADO
+ *                                              ↘ PENDENTE (retentativa com atraso)
+ *                                              ↘ FALHA (tentativas esgotadas)
+ */
+@Repository
+public class LembreteOutboxRepository {
+
+    /**
+     * Item reservado por um worker.
+     */
+    public record ItemOutbox(long id, int tentativas, LembreteVacina lembrete) {
+    }
+
+    private static final String SQL_INSERIR = """
+        INSERT INTO lembrete_outbox
+            (vacina_id, dias_antecedencia, data_referencia,
+             email_para, nome_tutor, nome_pet, nome_vacina, data_reforco)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT (vacina_id, dias_antecedencia, data_referencia) DO NOTHING
+        """;
+
+    /**
+     * Reserva até N itens pendentes. SKIP LOCKED faz cada nó pular as linhas
+     * já travadas por outro, então vários workers podem reservar em paralelo
+     * sem bloquear uns aos outros e sem pegar o mesmo item.
+     */
+    private static final String SQL_RESERVAR = """
+        UPDATE lembrete_outbox o
+           SET status = 'PROCESSANDO', reservado_por = ?, reservado_em = now(),
+               tentativas = o.tentativas + 1
+         WHERE o.id IN (
+               SELECT id FROM lembrete_outbox
+                WHERE status = 'PENDENTE' AND proxima_tentativa_em <= now()
+                ORDER BY proxima_tentativa_em, id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+        RETURNING o.id, o.tentativas, o.vacina_id, o.dias_antecedencia, o.email_para,
+                  o.nome_tutor, o.nome_pet, o.nome_vacina, o.data_reforco
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LembreteOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // =========================================================================
+    // PRODUTOR
+    // =========================================================================
+
+    /**
+     * Enfileira os lembretes; os já existentes para a mesma chave são ignorados.
+     *
+     * @return quantidade de itens efetivamente inseridos
+     */
+    public int inserir(List<LembreteVacina> lembretes, LocalDate dataReferencia) {
+        int[][] resultados = jdbcTemplate.batchUpdate(SQL_INSERIR, lembretes, lembretes.size(), (ps, l) -> {
+            ps.setLong(1, l.vacinaId());
+            ps.setInt(2, l.diasDeAntecedencia());
+            ps.setDate(3, Date.valueOf(dataReferencia));
+            ps.setString(4, l.emailPara());
+            ps.setString(5, l.nomeTutor());
+            ps.setString(6, l.nomePet());
+            ps.setString(7, l.nomeVacina());
+            ps.setDate(8, Date.valueOf(l.dataReforco()));
+        });
+        return Arrays.stream(resultados).flatMapToInt(Arrays::stream).map(n -> Math.max(n, 0)).sum();
+    }
+
+    // =========================================================================
+    // WORKERS
+    // =========================================================================
+
+    public List<ItemOutbox> reservar(String no, int limite) {
+        return jdbcTemplate.query(SQL_RESERVAR, (rs, i) -> new ItemOutbox(
+            rs.getLong("id"),
+            rs.getInt("tentativas"),
+            new LembreteVacina(
+                rs.getLong("vacina_id"),
+                rs.getInt("dias_antecedencia"),
+                rs.getString("email_para"),
+                rs.getString("nome_tutor"),
+                rs.getString("nome_pet"),
+                rs.getString("nome_vacina"),
+                rs.getDate("data_reforco").toLocalDate()
+            )
+        ), no, limite);
+    }
+
+    public void marcarEnviados(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+            "UPDATE lembrete_outbox SET status = 'ENVIADO', enviado_em = now(), ultimo_erro = NULL WHERE id = ?",
+            ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    /**
+     * Aponta os itens para o resumo (lembrete_digest) que os entregou.
+     */
+    public void vincularDigest(long digestId, List<Long> ids) {
+        jdbcTemplate.batchUpdate(
+            "UPDATE lembrete_outbox SET digest_id = ? WHERE id = ?",
+            ids, ids.size(), (ps, id) -> {
+                ps.setLong(1, digestId);
+                ps.setLong(2, id);
+            });
+    }
+
+    /**
+     * Devolve o item para a fila com atraso ou, se as tentativas acabaram,
+     * marca como FALHA definitiva.
+     */
+    public void marcarFalha(long id, String erro, boolean definitiva, Duration atraso) {
+        if (definitiva) {
+            jdbcTemplate.update(
+                "UPDATE lembrete_outbox SET status = 'FALHA', ultimo_erro = ? WHERE id = ?",
+                erro, id);
+        } else {
+            jdbcTemplate.update(
+                "UPDATE lembrete_outbox SET status = 'PENDENTE', ultimo_erro = ?, " +
+                "proxima_tentativa_em = now() + make_interval(secs => ?) WHERE id = ?",
+                erro, atraso.toSeconds(), id);
+        }
+    }
+
+    /**
+     * Devolve para PENDENTE os itens reservados por nós que caíram.
+     *
+     * @return quantidade de itens liberados
+     */
+    public int liberarReservasExpiradas(Duration expiracao) {
+        return jdbcTemplate.update(
+            "UPDATE lembrete_outbox SET status = 'PENDENTE', reservado_por = NULL " +
+            "WHERE status = 'PROCESSANDO' AND reservado_em < now() - make_interval(secs => ?)",
+            expiracao.toSeconds());
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * =============================================================================
+ * 👷 LembreteOutboxWorker.java - Worker da Outbox de Lembretes
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Padrão Transactional Outbox com workers em várias instâncias
+ * ✅ Reserva em lote com FOR UPDATE SKIP LOCKED (sem envio duplicado)
+ * ✅ Retentativa de longo prazo com backoff persistido no banco
+ * ✅ Recuperação de itens reservados por instâncias que caíram
+ * ✅ Um e-mail de resumo por destinatário dentro de cada lote reservado
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring JDBC, PostgreSQL 15
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.petdoc.repository.LembreteOutboxRepository;
+import com.petdoc.repository.LembreteOutboxRepository.ItemOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Consome a tabela {@code lembrete_outbox} preenchida pelo LembreteService.
+ *
+ * Cada instância do App Runner roda um worker. A cada ciclo o worker:
+ * 1. Devolve à fila itens presos em PROCESSANDO há muito tempo (nó caiu)
+ * 2. Reserva um lote de itens PENDENTE (SKIP LOCKED: nós não disputam linhas)
+ * 3. Envia o lote pelo LembreteDispatcher (paralelo, com rate limit)
+ * 4. Marca ENVIADO, reagenda com atraso ou marca FALHA definitiva
+ *
+ * A vazão cresce com o número de instâncias. A garantia é "pelo menos uma
+ * vez": se um nó cair entre o envio e a marcação, o item volta para a fila
+ * após {@code expiracao-reserva}.
+ *
+ * Com {@code app.lembretes.digest.ativo}, os itens do lote são agrupados
+ * por destinatário e cada grupo sai em um único e-mail (LembreteDigest).
+ * O produtor insere os itens já ordenados por e-mail, então os de um tutor
+ * costumam cair no mesmo lote; se um grupo for dividido na fronteira entre
+ * lotes, o tutor recebe dois resumos. O resultado do resumo vale para
+ * todos os seus itens, que continuam com a própria máquina de estados
+ * (ENVIADO, retentativa, FALHA) e passam a apontar para o resumo.
+ */
+@Component
+@ConditionalOnProperty(name = "app.lembretes.modo", havingValue = "outbox")
+public class LembreteOutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(LembreteOutboxWorker.class);
+
+    private final LembreteOutboxRepository outboxRepository;
+    private final LembreteDispatcher dispatcher;
+    private final LembreteService lembreteService;
+    private final String no;
+
+    @Value("${app.lembretes.outbox.tamanho-lote:100}")
+    private int tamanhoLote;
+
+    @Value("${app.lembretes.outbox.max-tentativas:5}")
+    private int maxTentativas;
+
+    @Value("${app.lembretes.outbox.atraso-retentativa:PT10M}")
+    private Duration atrasoRetentativa;
+
+    @Value("${app.lembretes.outbox.expiracao-reserva:PT15M}")
+    private Duration expiracaoReserva;
+
+    @Value("${app.lembretes.digest.ativo:true}")
+    private boolean digestAtivo;
+
+    public LembreteOutboxWorker(LembreteOutboxRepository outboxRepository,
+                                LembreteDispatcher dispatcher,
+                                LembreteService lembreteService) {
+        this.outboxRepository = outboxRepository;
+        this.dispatcher = dispatcher;
+        this.lembreteService = lembreteService;
+        this.no = identificarNo();
+    }
+
+    /**
+     * Ciclo do worker: processa lotes até esvaziar a fila.
+     */
+    @Scheduled(fixedDelayString = "${app.lembretes.outbox.intervalo-ms:15000}")
+    public void processar() {
+        int liberados = outboxRepository.liberarReservasExpiradas(expiracaoReserva);
+        if (liberados > 0) {
+            log.warn("[OUTBOX] {} item(ns) com reserva expirada devolvido(s) à fila.", liberados);
+        }
+
+        List<ItemOutbox> itens;
+        while (!(itens = outboxRepository.reservar(no, tamanhoLote)).isEmpty()) {
+            log.info("[OUTBOX] Nó {} reservou {} lembrete(s).", no, itens.size());
+            if (digestAtivo) {
+                processarLoteAgrupado(itens);
+            } else {
+                processarLote(itens);
+            }
+        }
+    }
+
+    /**
+     * O item da outbox é o próprio objeto despachado, então o callback já
+     * sabe qual linha atualizar. Falhas são marcadas assim que acontecem;
+     * os enviados (no máximo um lote) são marcados juntos no final.
+     */
+    private void processarLote(List<ItemOutbox> itens) {
+        Queue<Long> enviados = new ConcurrentLinkedQueue<>();
+
+        try (LembreteDispatcher.Despacho<ItemOutbox> despacho = dispatcher.novoDespacho(
+                 item -> lembreteService.enviarLembrete(item.lembrete()),
+                 item -> item.lembrete().emailPara(),
+                 resultado -> aplicarResultado(resultado.lembrete(), resultado.status(),
+                                               resultado.erro(), enviados))) {
+            itens.forEach(despacho::submeter);
+            despacho.aguardar();
+        }
+        outboxRepository.marcarEnviados(List.copyOf(enviados));
+    }
+
+    /**
+     * Um resumo por destinatário e os itens da outbox que ele cobre.
+     */
+    private record GrupoOutbox(LembreteDigest digest, List<ItemOutbox> itens) {
+    }
+
+    private void processarLoteAgrupado(List<ItemOutbox> itens) {
+        Map<String, List<ItemOutbox>> itensPorDestinatario = new LinkedHashMap<>();
+        for (ItemOutbox item : itens) {
+            itensPorDestinatario.computeIfAbsent(item.lembrete().emailPara(), e -> new ArrayList<>()).add(item);
+        }
+
+        LocalDate hoje = LocalDate.now();
+        Queue<Long> enviados = new ConcurrentLinkedQueue<>();
+
+        try (LembreteDispatcher.Despacho<GrupoOutbox> despacho = dispatcher.novoDespacho(
+                 grupo -> lembreteService.enviarDigest(grupo.digest()),
+                 grupo -> grupo.digest().emailPara(),
+                 resultado -> {
+                     GrupoOutbox grupo = resultado.lembrete();
+                     long digestId = lembreteService.registrarDigest(grupo.digest(), resultado, hoje);
+                     outboxRepository.vincularDigest(digestId, grupo.itens().stream().map(ItemOutbox::id).toList());
+                     for (ItemOutbox item : grupo.itens()) {
+                         aplicarResultado(item, resultado.status(), resultado.erro(), enviados);
+                     }
+                 })) {
+            for (List<ItemOutbox> grupo : itensPorDestinatario.values()) {
+                LembreteDigest digest = LembreteDigest.de(grupo.stream().map(ItemOutbox::lembrete).toList());
+                despacho.submeter(new GrupoOutbox(digest, grupo));
+            }
+            despacho.aguardar();
+        }
+        outboxRepository.marcarEnviados(List.copyOf(enviados));
+    }
+
+    /**
+     * Enviado entra na fila para marcação em lote; falha reagenda com
+     * atraso ou, esgotadas as tentativas, marca FALHA definitiva.
+     * Chamado pelo callback do despacho, em paralelo.
+     */
+    private void aplicarResultado(ItemOutbox item, LembreteDispatcher.Status status,
+                                  String erro, Queue<Long> enviados) {
+        if (status == LembreteDispatcher.Status.ENVIADO) {
+            enviados.add(item.id());
+            return;
+        }
+        boolean definitiva = item.tentativas() >= maxTentativas;
+        outboxRepository.marcarFalha(item.id(), erro, definitiva,
+                                     atrasoRetentativa.multipliedBy(item.tentativas()));
+        if (definitiva) {
+            log.error("[OUTBOX] Lembrete {} falhou definitivamente após {} tentativa(s): {}",
+                      item.id(), item.tentativas(), erro);
+        }
+    }
+
+    private static String identificarNo() {
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + ProcessHandle.current().pid();
+        } catch (UnknownHostException e) {
+            return "no-" + ProcessHandle.current().pid();
+        }
+    }
+}
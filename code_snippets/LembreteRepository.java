@@ -0,0 +1,82 @@
+/**
+ * =============================================================================
+ * 💾 LembreteRepository.java - Consulta em Streaming dos Lembretes
+ * =============================================================================
+ *
+ * Este repositório demonstra:
+ * ✅ Retorno Stream<T> do Spring Data JPA (cursor do banco)
+ * ✅ Fetch size e modo somente-leitura via @QueryHints
+ * ✅ JOIN FETCH para trazer Pet e Tutor sem N+1
+ * ✅ Paginação por chave (keyset) para leituras em transações curtas
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Data JPA, Hibernate 6
+ * =============================================================================
+ */
+
+package com.petdoc.repository;
+
+import com.petdoc.model.Vacina;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Consultas do scheduler de lembretes.
+ *
+ * Diferente de {@code VacinaRepository.findByDataReforcoComPetETutor}, que
+ * devolve uma List para uma única data, aqui todas as datas alvo (D-15, D-7,
+ * D-1) são buscadas em uma só ida ao banco e lidas via cursor.
+ *
+ * A ordenação por e-mail do tutor deixa os lembretes de cada destinatário
+ * contíguos no cursor: o LembreteDigest.Agrupador monta um e-mail por tutor
+ * guardando em memória apenas os itens do tutor atual.
+ *
+ * IMPORTANTE: o Stream precisa ser consumido dentro de uma transação e
+ * fechado ao final (try-with-resources).
+ *
+ * Quem espera algo lento entre um registro e outro (ex: o rate limit do
+ * envio SMTP) usa {@link #findPaginaByDatasReforcoComPetETutor}: cada página
+ * é lida em uma transação curta, e a próxima continua depois da última
+ * chave (e-mail, data, id) já lida. A ordem é a mesma do cursor.
+ */
+public interface LembreteRepository extends Repository<Vacina, Long> {
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT v FROM Vacina v " +
+           "JOIN FETCH v.pet p " +
+           "JOIN FETCH p.tutor t " +
+           "WHERE v.dataReforco IN :datas " +
+           "ORDER BY t.email, v.dataReforco, v.id")
+    Stream<Vacina> streamByDatasReforcoComPetETutor(@Param("datas") Collection<LocalDate> datas);
+
+    /**
+     * Próxima página depois da chave (email, dataReforco, id).
+     * Primeira página: e-mail vazio (menor que qualquer e-mail real).
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT v FROM Vacina v " +
+           "JOIN FETCH v.pet p " +
+           "JOIN FETCH p.tutor t " +
+           "WHERE v.dataReforco IN :datas " +
+           "AND (t.email > :email " +
+           "     OR (t.email = :email AND (v.dataReforco > :data " +
+           "                               OR (v.dataReforco = :data AND v.id > :id)))) " +
+           "ORDER BY t.email, v.dataReforco, v.id")
+    List<Vacina> findPaginaByDatasReforcoComPetETutor(@Param("datas") Collection<LocalDate> datas,
+                                                      @Param("email") String email,
+                                                      @Param("data") LocalDate data,
+                                                      @Param("id") Long id,
+                                                      Limit limite);
+}
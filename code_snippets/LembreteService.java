@@ -6,29 +6,52 @@
  * Este serviço demonstra:
  * ✅ Uso do @Scheduled para tarefas agendadas
  * ✅ Separação de comportamento por ambiente com @Profile
- * ✅ Integração com Spring Mail via EmailService
- * ✅ Uso do Thymeleaf Context para templates de e-mail
- * ✅ Consultas otimizadas com JPA Repository
+ * ✅ Renderização no LembreteEmailRenderer e envio pelo EmailService
+ * ✅ Template de e-mail Thymeleaf pré-compilado (apenas slots variáveis por envio)
+ * ✅ Consulta única em streaming (Stream<T>) para todos os períodos
+ * ✅ Contexto de persistência limpo periodicamente (memória constante)
+ * ✅ Envio paralelo em Virtual Threads com rate limit (LembreteDispatcher)
+ * ✅ Modo outbox transacional para rodar em várias instâncias sem duplicar envios
+ * ✅ Métricas Micrometer por período (D-15, D-7, D-1) e latência da consulta
+ * ✅ Virada diária dos KPIs do dashboard no mesmo agendamento
+ * ✅ Resumo por tutor: um e-mail com todas as vacinas do dia (LembreteDigest)
  * 
- * Tecnologias: Java 21, Spring Boot 3.3, Spring Mail, Thymeleaf
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Mail, Thymeleaf, Micrometer
  * =============================================================================
  */
 
 package com.petdoc.service;
 
 import com.petdoc.model.Vacina;
-import com.petdoc.repository.VacinaRepository;
+import com.petdoc.repository.LembreteDigestRepository;
+import com.petdoc.repository.LembreteOutboxRepository;
+import com.petdoc.repository.LembreteRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Serviço responsável por enviar lembretes automáticos de reforço de vacinas.
@@ -39,21 +62,89 @@ import java.util.List;
  * - D-1: Último aviso (véspera do reforço)
  * 
  * Em desenvolvimento, roda a cada 30 minutos para facilitar testes.
+ * 
+ * Todos os períodos são verificados em uma única consulta. No modo outbox
+ * ela é lida via cursor, com o EntityManager limpo a cada
+ * {@value #LOTE_LIMPEZA} vacinas. No modo direto é lida em páginas de
+ * {@value #TAMANHO_PAGINA}, cada uma em sua própria transação, porque o
+ * envio espera o rate limit e não pode segurar conexão e cursor abertos.
+ * 
+ * Modos de envio ({@code app.lembretes.modo}):
+ * - direto (padrão): a própria instância envia via LembreteDispatcher
+ * - outbox: o scheduler apenas enfileira em {@code lembrete_outbox} e os
+ *   LembreteOutboxWorker de todas as instâncias dividem o envio
+ * 
+ * Com {@code app.lembretes.digest.ativo} (padrão), os lembretes de um mesmo
+ * tutor em todos os períodos viram um único e-mail ({@link LembreteDigest}),
+ * e cada resumo é registrado em {@code lembrete_digest} com os pares
+ * (vacina, antecedência) que cobriu. Menos e-mails significa menos
+ * renderizações, menos sessões SMTP e menos espera no rate limit.
+ * 
+ * Métricas: {@code petdoc.lembretes.encontrados} (tag {@code antecedencia})
+ * {@code petdoc.lembretes.consulta} (tag {@code modo}) e
+ * {@code petdoc.lembretes.digest.itens} (lembretes por e-mail). A latência e as
+ * falhas de envio são registradas pelo {@link LembreteDispatcher}.
  */
 @Service
 public class LembreteService {
 
     private static final Logger log = LoggerFactory.getLogger(LembreteService.class);
+
+    /** Quantidade de vacinas processadas entre cada EntityManager.clear(). */
+    static final int LOTE_LIMPEZA = 200;
+
+    /** Vacinas lidas por transação no modo direto. */
+    static final int TAMANHO_PAGINA = 500;
     
-    private final VacinaRepository vacinaRepository;
+    private final LembreteRepository lembreteRepository;
+    private final LembreteOutboxRepository outboxRepository;
+    private final LembreteDigestRepository digestRepository;
+    private final LembreteEmailRenderer emailRenderer;
     private final EmailService emailService;
+    private final LembreteDispatcher dispatcher;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transacaoLeitura;
+    private final TransactionTemplate transacaoEscrita;
+    private final MeterRegistry meterRegistry;
+    private final DashboardKpiService dashboardKpiService;
+    private final DistributionSummary itensPorDigest;
+
+    @Value("${app.lembretes.modo:direto}")
+    private String modo;
 
-    @Value("${app.dashboard.url}")
-    private String dashboardUrl;
+    @Value("${app.lembretes.digest.ativo:true}")
+    private boolean digestAtivo;
 
-    public LembreteService(VacinaRepository vacinaRepository, EmailService emailService) {
-        this.vacinaRepository = vacinaRepository;
+    public LembreteService(LembreteRepository lembreteRepository,
+                           LembreteOutboxRepository outboxRepository,
+                           LembreteDigestRepository digestRepository,
+                           @Lazy LembreteEmailRenderer emailRenderer,
+                           @Lazy EmailService emailService,
+                           LembreteDispatcher dispatcher,
+                           EntityManager entityManager,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           DashboardKpiService dashboardKpiService) {
+        this.lembreteRepository = lembreteRepository;
+        this.outboxRepository = outboxRepository;
+        this.digestRepository = digestRepository;
+        // Proxy (@Lazy): no modo de subida otimizado a pilha de e-mail só é criada no primeiro envio
+        this.emailRenderer = emailRenderer;
         this.emailService = emailService;
+        this.dispatcher = dispatcher;
+        this.entityManager = entityManager;
+        this.meterRegistry = meterRegistry;
+        this.dashboardKpiService = dashboardKpiService;
+        this.itensPorDigest = DistributionSummary.builder("petdoc.lembretes.digest.itens")
+            .description("Lembretes cobertos por cada e-mail de resumo")
+            .register(meterRegistry);
+
+        // Stream do Spring Data exige transação aberta durante a leitura
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+
+        // No modo outbox a leitura e a inserção dos itens acontecem na mesma transação
+        this.transacaoEscrita = new TransactionTemplate(transactionManager);
     }
 
     // =========================================================================
@@ -72,10 +163,12 @@ public class LembreteService {
     public void verificarLembretesProducao() {
         log.info("[PERFIL PROD] Iniciando verificação diária de lembretes...");
         
-        // Executa verificação para cada período configurado
-        executarVerificacao(15);  // D-15: Aviso antecipado
-        executarVerificacao(7);   // D-7:  Lembrete de 1 semana
-        executarVerificacao(1);   // D-1:  Véspera do reforço
+        // Vacinas que venceram ou entraram na janela de lembretes desde ontem
+        virarKpisDoDashboard();
+
+        // Uma única passada cobre todos os períodos configurados:
+        // D-15 (aviso antecipado), D-7 (1 semana) e D-1 (véspera do reforço)
+        executarVerificacao(15, 7, 1);
         
         log.info("[PERFIL PROD] Verificação diária concluída.");
     }
@@ -89,79 +182,285 @@ public class LembreteService {
     @Profile("dev")
     public void verificarLembretesDesenvolvimento() {
         log.info("[PERFIL DEV] Verificando lembretes (a cada 30 minutos)...");
+        virarKpisDoDashboard();
         executarVerificacao(0);  // Verifica reforços para HOJE
     }
 
+    /**
+     * Virada do dia dos KPIs do dashboard. Uma falha aqui não impede o envio
+     * dos lembretes: as linhas desatualizadas são recalculadas na leitura.
+     */
+    private void virarKpisDoDashboard() {
+        try {
+            dashboardKpiService.virarDia(LocalDate.now());
+        } catch (RuntimeException e) {
+            log.error("Falha na virada dos KPIs do dashboard: {}", e.getMessage(), e);
+        }
+    }
+
     // =========================================================================
     // LÓGICA CENTRAL
     // =========================================================================
 
     /**
-     * Lógica central que busca vacinas para uma data alvo e dispara e-mails.
+     * Lógica central que busca vacinas para as datas alvo e dispara e-mails
+     * (modo direto) ou os enfileira na outbox (modo outbox).
+     * 
+     * Os períodos são convertidos em datas e consultados de uma só vez. Cada
+     * vacina lida do cursor vira um {@link LembreteVacina} e o contexto de
+     * persistência é limpo periodicamente, então o grafo Vacina → Pet → Tutor
+     * nunca cresce com o número de lembretes do dia.
      * 
      * @param diasDeAntecedencia Quantos dias à frente verificar (0 = hoje)
      */
-    protected void executarVerificacao(int diasDeAntecedencia) {
-        // Calcula a data alvo baseada nos dias de antecedência
-        LocalDate dataAlvo = LocalDate.now().plusDays(diasDeAntecedencia);
-        String tipoAviso = (diasDeAntecedencia == 0) 
-            ? "HOJE" 
-            : "em " + diasDeAntecedencia + " dias";
-
-        log.info("Procurando por reforços agendados para {} (Aviso de {})", 
-                 dataAlvo, tipoAviso);
-
-        // Consulta otimizada que já traz Pet e Tutor via JOIN FETCH
-        List<Vacina> vacinasParaLembrar = vacinaRepository
-            .findByDataReforcoComPetETutor(dataAlvo);
-
-        if (vacinasParaLembrar.isEmpty()) {
-            log.info("Nenhum reforço de vacina encontrado para {}.", dataAlvo);
+    protected void executarVerificacao(int... diasDeAntecedencia) {
+        LocalDate hoje = LocalDate.now();
+
+        // Data alvo → contador de reforços encontrados (ordenado para o log)
+        Map<LocalDate, Integer> encontradosPorData = new TreeMap<>();
+        for (int dias : diasDeAntecedencia) {
+            encontradosPorData.put(hoje.plusDays(dias), 0);
+        }
+
+        log.info("Procurando por reforços agendados para {}", encontradosPorData.keySet());
+
+        if ("outbox".equals(modo)) {
+            enfileirarNaOutbox(hoje, encontradosPorData);
         } else {
-            log.warn(">>> {} REFORÇO(S) ENCONTRADO(S) PARA {}:", 
-                     vacinasParaLembrar.size(), dataAlvo);
+            enviarDireto(hoje, encontradosPorData);
+        }
 
-            // Processa cada vacina encontrada
-            for (Vacina vacina : vacinasParaLembrar) {
-                enviarLembrete(vacina, tipoAviso);
+        encontradosPorData.forEach((dataAlvo, total) -> {
+            meterRegistry.counter("petdoc.lembretes.encontrados",
+                                  "antecedencia", "D-" + ChronoUnit.DAYS.between(hoje, dataAlvo))
+                .increment(total);
+            if (total == 0) {
+                log.info("Nenhum reforço de vacina encontrado para {}.", dataAlvo);
+            } else {
+                log.warn(">>> {} REFORÇO(S) ENCONTRADO(S) PARA {}.", total, dataAlvo);
             }
+        });
+    }
+
+    /**
+     * Modo direto: os lembretes são entregues ao {@link LembreteDispatcher}
+     * página a página; o envio acontece em paralelo. O {@code submeter} pode
+     * bloquear (vagas e rate limit), mas nunca com transação aberta.
+     *
+     * Cada falha é logada assim que o envio termina; do despacho só sobram
+     * os totais, então a memória fica limitada à página e às mensagens em
+     * andamento.
+     */
+    private void enviarDireto(LocalDate hoje, Map<LocalDate, Integer> encontradosPorData) {
+        if (digestAtivo) {
+            enviarResumos(hoje, encontradosPorData);
+            return;
+        }
+
+        try (LembreteDispatcher.Despacho<LembreteVacina> despacho =
+                 dispatcher.novoDespacho(this::enviarLembrete, this::logarFalha)) {
+            percorrerVacinasPaginado(hoje, encontradosPorData, despacho::submeter);
+            despacho.aguardar();
+        }
+    }
+
+    private void logarFalha(LembreteDispatcher.ResultadoEnvio<LembreteVacina> resultado) {
+        if (resultado.status() == LembreteDispatcher.Status.FALHA) {
+            log.error("   - FALHA ({} tentativa(s)): Vacina {}, Dono: {}, Erro: {}",
+                      resultado.tentativas(), resultado.lembrete().vacinaId(),
+                      resultado.lembrete().emailPara(), resultado.erro());
         }
     }
 
     /**
-     * Processa e envia um único lembrete de reforço por e-mail.
+     * Modo direto com resumo: as páginas (ordenadas por e-mail) passam pelo
+     * agrupador, que entrega ao dispatcher um {@link LembreteDigest} por
+     * tutor assim que o próximo destinatário aparece. Os itens do tutor
+     * atual atravessam a fronteira entre páginas sem problema.
+     *
+     * Cada resumo é registrado em {@code lembrete_digest} assim que o envio
+     * termina, sem esperar o fim do despacho.
+     */
+    private void enviarResumos(LocalDate hoje, Map<LocalDate, Integer> encontradosPorData) {
+        AtomicInteger lembretes = new AtomicInteger();
+        LembreteDispatcher.Totais totais;
+        try (LembreteDispatcher.Despacho<LembreteDigest> despacho =
+                 dispatcher.novoDespacho(this::enviarDigest, LembreteDigest::emailPara, resultado -> {
+                     lembretes.addAndGet(resultado.lembrete().itens().size());
+                     if (resultado.status() == LembreteDispatcher.Status.FALHA) {
+                         log.error("   - FALHA ({} tentativa(s)): Resumo com {} vacina(s), Dono: {}, Erro: {}",
+                                   resultado.tentativas(), resultado.lembrete().itens().size(),
+                                   resultado.lembrete().emailPara(), resultado.erro());
+                     }
+                     registrarDigest(resultado.lembrete(), resultado, hoje);
+                 })) {
+            LembreteDigest.Agrupador agrupador = LembreteDigest.agrupador(despacho::submeter);
+            percorrerVacinasPaginado(hoje, encontradosPorData, agrupador);
+            agrupador.concluir();
+            totais = despacho.aguardar();
+        }
+
+        log.info("{} lembrete(s) agrupado(s) em {} e-mail(s) de resumo.",
+                 lembretes.get(), totais.enviados() + totais.falhas());
+    }
+
+    /**
+     * Modo outbox: apenas enfileira. A chave (vacina, antecedência, data)
+     * torna a operação idempotente, então todas as instâncias podem rodar o
+     * scheduler e uma reexecução após queda não duplica nada.
+     */
+    private void enfileirarNaOutbox(LocalDate hoje, Map<LocalDate, Integer> encontradosPorData) {
+        int inseridos = transacaoEscrita.execute(status -> {
+            List<LembreteVacina> lote = new ArrayList<>(LOTE_LIMPEZA);
+            int[] total = {0};
+
+            percorrerVacinas(hoje, encontradosPorData, lembrete -> {
+                lote.add(lembrete);
+                if (lote.size() == LOTE_LIMPEZA) {
+                    total[0] += outboxRepository.inserir(lote, hoje);
+                    lote.clear();
+                }
+            });
+            if (!lote.isEmpty()) {
+                total[0] += outboxRepository.inserir(lote, hoje);
+            }
+            return total[0];
+        });
+
+        log.info("{} novo(s) lembrete(s) enfileirado(s) na outbox.", inseridos);
+    }
+
+    /**
+     * Lê as vacinas das datas alvo via cursor e entrega cada uma como
+     * {@link LembreteVacina}. Deve ser chamado dentro de uma transação.
      * 
-     * @param vacina Entidade Vacina com relacionamentos Pet e Tutor
-     * @param tipoAviso Texto descritivo do tipo de aviso ("HOJE", "em 7 dias", etc.)
+     * A latência da consulta é medida até o primeiro registro do cursor: o
+     * tempo restante da leitura depende do consumidor (envio ou outbox).
+     */
+    private void percorrerVacinas(LocalDate hoje,
+                                  Map<LocalDate, Integer> encontradosPorData,
+                                  Consumer<LembreteVacina> consumidor) {
+        // Consulta única com Pet e Tutor via JOIN FETCH, lida por cursor
+        long inicio = System.nanoTime();
+        try (Stream<Vacina> vacinas = lembreteRepository
+                .streamByDatasReforcoComPetETutor(encontradosPorData.keySet())) {
+
+            Iterator<Vacina> it = vacinas.iterator();
+            boolean temResultados = it.hasNext();
+            registrarTempoConsulta(inicio);
+
+            int processadas = 0;
+            while (temResultados) {
+                Vacina vacina = it.next();
+                int dias = (int) ChronoUnit.DAYS.between(hoje, vacina.getDataReforco());
+                encontradosPorData.merge(vacina.getDataReforco(), 1, Integer::sum);
+
+                consumidor.accept(LembreteVacina.de(vacina, dias));
+
+                // Descarta as entidades já processadas do contexto de persistência
+                if (++processadas % LOTE_LIMPEZA == 0) {
+                    entityManager.clear();
+                }
+                temResultados = it.hasNext();
+            }
+        }
+    }
+
+    /**
+     * Lê as vacinas das datas alvo em páginas por chave, cada uma em uma
+     * transação curta, e só entrega os lembretes ao consumidor depois que a
+     * transação terminou. Em memória fica no máximo uma página de
+     * {@link LembreteVacina} (sem referência às entidades).
+     *
+     * Usado quando o consumidor pode bloquear por muito tempo: no modo
+     * direto, a 20 envios/s, manter o cursor aberto prendia uma conexão do
+     * pool por minutos.
      */
-    private void enviarLembrete(Vacina vacina, String tipoAviso) {
-        // Extrai dados necessários das entidades relacionadas
-        String emailPara = vacina.getPet().getTutor().getEmail();
-        String nomeTutor = vacina.getPet().getTutor().getNome();
-        String nomePet = vacina.getPet().getNome();
-        String nomeVacina = vacina.getNomeVacinaCompleto();
-        String dataFormatada = vacina.getDataReforco()
-            .format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+    private void percorrerVacinasPaginado(LocalDate hoje,
+                                          Map<LocalDate, Integer> encontradosPorData,
+                                          Consumer<LembreteVacina> consumidor) {
+        long inicio = System.nanoTime();
+        LembreteVacina ultimo = null;
+        while (true) {
+            String email = ultimo != null ? ultimo.emailPara() : "";
+            LocalDate data = ultimo != null ? ultimo.dataReforco() : LocalDate.EPOCH;
+            Long id = ultimo != null ? ultimo.vacinaId() : 0L;
+
+            List<LembreteVacina> pagina = transacaoLeitura.execute(status -> lembreteRepository
+                .findPaginaByDatasReforcoComPetETutor(encontradosPorData.keySet(), email, data, id,
+                                                      Limit.of(TAMANHO_PAGINA))
+                .stream()
+                .map(vacina -> LembreteVacina.de(vacina,
+                                                 (int) ChronoUnit.DAYS.between(hoje, vacina.getDataReforco())))
+                .toList());
 
+            if (ultimo == null) {
+                registrarTempoConsulta(inicio);
+            }
+            for (LembreteVacina lembrete : pagina) {
+                encontradosPorData.merge(lembrete.dataReforco(), 1, Integer::sum);
+                consumidor.accept(lembrete);
+            }
+            if (pagina.size() < TAMANHO_PAGINA) {
+                return;
+            }
+            ultimo = pagina.get(pagina.size() - 1);
+        }
+    }
+
+    private void registrarTempoConsulta(long inicioNanos) {
+        Timer.builder("petdoc.lembretes.consulta")
+            .description("Tempo até o primeiro registro da consulta de reforços")
+            .tag("modo", modo)
+            .register(meterRegistry)
+            .record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Processa e envia um único lembrete de reforço por e-mail.
+     * 
+     * Executa em uma Virtual Thread do {@link LembreteDispatcher}; exceções
+     * do envio são propagadas para acionar a retentativa. Também é usado pelo
+     * {@link LembreteOutboxWorker} para os itens reservados da outbox.
+     * 
+     * @param lembrete Dados já extraídos da Vacina, Pet e Tutor
+     */
+    void enviarLembrete(LembreteVacina lembrete) {
         log.warn("   - LEMBRETE ({}): Vacina: {}, Pet: {}, Dono: {}",
-                tipoAviso, nomeVacina, nomePet, emailPara);
-
-        // Prepara o contexto Thymeleaf com variáveis para o template
-        Context context = new Context();
-        context.setVariable("nomeTutor", nomeTutor);
-        context.setVariable("nomePet", nomePet);
-        context.setVariable("nomeVacina", nomeVacina);
-        context.setVariable("tipoAviso", tipoAviso.toLowerCase());
-        context.setVariable("dataReforcoFormatada", dataFormatada);
-        context.setVariable("dashboardUrl", this.dashboardUrl);
-        context.setVariable("logoUrl", "cid:petdoc-logo.png");  // Content-ID para inline image
-
-        // Monta o assunto do e-mail
-        String assunto = String.format(
-            "Lembrete de Reforço PetDoc: %s (%s)", nomePet, nomeVacina
-        );
-
-        // Delega o envio para o EmailService
-        emailService.enviarEmailHtml(emailPara, assunto, "lembrete-vacina.html", context);
+                lembrete.tipoAviso(), lembrete.nomeVacina(), lembrete.nomePet(), lembrete.emailPara());
+
+        // Template pré-compilado: apenas os campos variáveis são preenchidos
+        enviar(emailRenderer.renderizar(lembrete));
+    }
+
+    /**
+     * Envia o e-mail de resumo de um tutor. Mesmo contrato de
+     * {@link #enviarLembrete}: exceções acionam a retentativa do dispatcher.
+     */
+    void enviarDigest(LembreteDigest digest) {
+        log.warn("   - RESUMO: {} vacina(s) de {}, Dono: {}",
+                 digest.itens().size(), digest.nomesPets(), digest.emailPara());
+        enviar(emailRenderer.renderizar(digest));
+    }
+
+    private void enviar(LembreteEmailRenderer.EmailRenderizado email) {
+        emailService.enviarHtml(email.para(), email.assunto(), email.html(), email.inline(), List.of());
+    }
+
+    /**
+     * Registra o resultado final de um resumo e os pares (vacina,
+     * antecedência) que ele cobriu. Chamado pelo callback do despacho, em
+     * paralelo.
+     *
+     * @param resultado Resultado do envio (o item pode ser o próprio resumo
+     *                  ou um objeto que o carrega, como no LembreteOutboxWorker)
+     * @return ID em {@code lembrete_digest}
+     */
+    long registrarDigest(LembreteDigest digest, LembreteDispatcher.ResultadoEnvio<?> resultado,
+                         LocalDate dataReferencia) {
+        itensPorDigest.record(digest.itens().size());
+        return digestRepository.registrar(digest, dataReferencia,
+                                          resultado.status() == LembreteDispatcher.Status.ENVIADO,
+                                          resultado.tentativas(), resultado.erro());
     }
 }
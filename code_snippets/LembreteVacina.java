@@ -0,0 +1,63 @@
+/**
+ * =============================================================================
+ * 📨 LembreteVacina.java - Dados Imutáveis de um Lembrete
+ * =============================================================================
+ *
+ * Este record demonstra:
+ * ✅ Extração dos dados necessários das entidades JPA (Vacina → Pet → Tutor)
+ * ✅ Objeto leve e desacoplado do contexto de persistência
+ *
+ * Tecnologias: Java 21 (Records)
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.petdoc.model.Vacina;
+
+import java.time.LocalDate;
+
+/**
+ * Um lembrete de reforço pronto para envio.
+ *
+ * Como não guarda referência às entidades, o EntityManager pode ser limpo
+ * logo após a extração, mantendo o contexto de persistência pequeno mesmo
+ * com milhares de vacinas no dia.
+ *
+ * @param vacinaId ID da vacina que gerou o lembrete
+ * @param diasDeAntecedencia 15, 7, 1 (produção) ou 0 (hoje)
+ */
+public record LembreteVacina(
+    Long vacinaId,
+    int diasDeAntecedencia,
+    String emailPara,
+    String nomeTutor,
+    String nomePet,
+    String nomeVacina,
+    LocalDate dataReforco
+) {
+
+    /**
+     * Extrai o lembrete de uma Vacina carregada com Pet e Tutor (JOIN FETCH).
+     */
+    public static LembreteVacina de(Vacina vacina, int diasDeAntecedencia) {
+        return new LembreteVacina(
+            vacina.getId(),
+            diasDeAntecedencia,
+            vacina.getPet().getTutor().getEmail(),
+            vacina.getPet().getTutor().getNome(),
+            vacina.getPet().getNome(),
+            vacina.getNomeVacinaCompleto(),
+            vacina.getDataReforco()
+        );
+    }
+
+    /**
+     * Texto descritivo do tipo de aviso ("HOJE", "em 7 dias", etc.).
+     */
+    public String tipoAviso() {
+        return (diasDeAntecedencia == 0)
+            ? "HOJE"
+            : "em " + diasDeAntecedencia + " dias";
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * =============================================================================
+ * ⏱️ LinhaDoTempoInicializacao.java - Tempo de Subida por Bean
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ ApplicationContextInitializer registrando o BufferingApplicationStartup
+ * ✅ Relatório no log com os beans mais lentos (tempo próprio, sem dependências)
+ * ✅ Linha do tempo também exposta em /actuator/startup
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Framework 6 (ApplicationStartup)
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mede quanto cada bean custa na subida e escreve um resumo no log.
+ *
+ * Registro (application.properties do perfil que se quer medir):
+ * <pre>
+ * context.initializer.classes=com.petdoc.config.LinhaDoTempoInicializacao
+ * app.inicializacao.relatorio.top=20
+ * management.endpoints.web.exposure.include=health,prometheus,startup
+ * </pre>
+ *
+ * O inicializador roda antes do refresh, então todas as etapas de criação
+ * de beans ({@code spring.beans.instantiate}) são gravadas. O tempo de cada
+ * etapa inclui o das dependências criadas dentro dela; o relatório desconta
+ * as etapas filhas e ordena pelo tempo próprio, que aponta o bean culpado
+ * e não quem o injetou.
+ *
+ * O buffer tem capacidade limitada ({@code app.inicializacao.relatorio.capacidade})
+ * e continua disponível em /actuator/startup (restrito a ADMIN pelo
+ * SecurityConfig) depois do relatório.
+ */
+public class LinhaDoTempoInicializacao
+        implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static final Logger log = LoggerFactory.getLogger(LinhaDoTempoInicializacao.class);
+
+    private static final String ETAPA_BEAN = "spring.beans.instantiate";
+
+    /**
+     * Tempo de um bean na subida.
+     *
+     * @param total Inclui as dependências criadas durante a criação do bean
+     * @param proprio Total menos as etapas filhas
+     */
+    record TempoBean(String bean, Duration total, Duration proprio) {
+    }
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        int capacidade = context.getEnvironment()
+            .getProperty("app.inicializacao.relatorio.capacidade", Integer.class, 10_000);
+        int top = context.getEnvironment()
+            .getProperty("app.inicializacao.relatorio.top", Integer.class, 20);
+
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(capacidade);
+        context.setApplicationStartup(startup);
+        context.addApplicationListener((ApplicationListener<ApplicationReadyEvent>) evento ->
+            relatar(startup.getBufferedTimeline(), evento.getTimeTaken(), top));
+    }
+
+    private static void relatar(StartupTimeline linhaDoTempo, Duration tempoTotal, int top) {
+        List<TempoBean> beans = tempoPorBean(linhaDoTempo);
+        Duration somaBeans = beans.stream().map(TempoBean::proprio).reduce(Duration.ZERO, Duration::plus);
+
+        StringBuilder relatorio = new StringBuilder()
+            .append("Subida em ").append(tempoTotal != null ? tempoTotal.toMillis() : -1).append(" ms; ")
+            .append(beans.size()).append(" bean(s) somam ").append(somaBeans.toMillis())
+            .append(" ms de tempo próprio. Mais lentos:");
+        beans.stream().limit(top).forEach(b -> relatorio
+            .append(String.format("%n  %6d ms (total %6d ms)  %s",
+                                  b.proprio().toMillis(), b.total().toMillis(), b.bean())));
+        log.info(relatorio.toString());
+    }
+
+    /**
+     * Tempo próprio de cada bean: duração da etapa menos a das etapas filhas
+     * (dependências criadas dentro dela, pós-processamento aninhado).
+     */
+    static List<TempoBean> tempoPorBean(StartupTimeline linhaDoTempo) {
+        List<StartupTimeline.TimelineEvent> eventos = linhaDoTempo.getEvents();
+        Map<Long, Duration> filhos = new HashMap<>();
+        for (StartupTimeline.TimelineEvent evento : eventos) {
+            Long pai = evento.getStartupStep().getParentId();
+            if (pai != null) {
+                filhos.merge(pai, evento.getDuration(), Duration::plus);
+            }
+        }
+
+        List<TempoBean> beans = new ArrayList<>();
+        for (StartupTimeline.TimelineEvent evento : eventos) {
+            StartupStep etapa = evento.getStartupStep();
+            if (!ETAPA_BEAN.equals(etapa.getName())) {
+                continue;
+            }
+            Duration proprio = evento.getDuration().minus(filhos.getOrDefault(etapa.getId(), Duration.ZERO));
+            beans.add(new TempoBean(nomeDoBean(etapa), evento.getDuration(), proprio));
+        }
+        beans.sort(Comparator.comparing(TempoBean::proprio).reversed());
+        return beans;
+    }
+
+    private static String nomeDoBean(StartupStep etapa) {
+        for (StartupStep.Tag tag : etapa.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
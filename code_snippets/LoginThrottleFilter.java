@@ -0,0 +1,66 @@
+/**
+ * =============================================================================
+ * 🚦 LoginThrottleFilter.java - Bloqueio de Login Antes do Hash
+ * =============================================================================
+ *
+ * Este filtro demonstra:
+ * ✅ Filtro posicionado antes do UsernamePasswordAuthenticationFilter
+ * ✅ Rejeição barata (sem consulta ao banco, sem BCrypt)
+ *
+ * Tecnologias: Java 21, Spring Security 6
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import com.petdoc.service.TentativasLoginService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Intercepta o POST /login e recusa a tentativa se a conta (a partir deste
+ * IP ou em espera por falhas de vários IPs) ou o IP estiverem bloqueados
+ * pelo {@link TentativasLoginService}.
+ *
+ * Não é um @Component de propósito: é criado pelo SecurityConfig e entra só
+ * na cadeia do Spring Security (um @Component seria registrado também como
+ * filtro do servlet container).
+ *
+ * O IP vem de {@code getRemoteAddr()}; atrás do balanceador do App Runner
+ * isso exige {@code server.forward-headers-strategy=native}.
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private final TentativasLoginService tentativasLogin;
+
+    public LoginThrottleFilter(TentativasLoginService tentativasLogin) {
+        this.tentativasLogin = tentativasLogin;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !("POST".equals(request.getMethod()) && "/login".equals(request.getServletPath()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        Optional<Duration> bloqueio =
+            tentativasLogin.bloqueio(request.getParameter("username"), request.getRemoteAddr());
+        if (bloqueio.isPresent()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, bloqueio.get().toSeconds())));
+            response.sendRedirect(request.getContextPath() + "/login?bloqueado");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * =============================================================================
+ * 🔁 LoteJaIniciadoException.java - Arquivo do Lote Já Solicitado
+ * =============================================================================
+ *
+ * Esta exceção demonstra:
+ * ✅ Mapeamento direto para HTTP 409 com @ResponseStatus
+ * ✅ Download de lote de uso único (cada carteira é renderizada uma vez)
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3
+ * =============================================================================
+ */
+
+package com.petdoc.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Lançada quando o arquivo de um lote é pedido pela segunda vez. O lote é
+ * renderizado durante o próprio download; repetir exigiria renderizar tudo
+ * de novo, então o cliente deve iniciar outro lote.
+ */
+@ResponseStatus(value = HttpStatus.CONFLICT,
+                reason = "O arquivo deste lote já foi solicitado")
+public class LoteJaIniciadoException extends RuntimeException {
+
+    public LoteJaIniciadoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * =============================================================================
+ * 🚫 LoteSemCarteirasException.java - Lote sem Nenhuma Carteira Gerada
+ * =============================================================================
+ *
+ * Esta exceção demonstra:
+ * ✅ Mapeamento direto para HTTP 422 com @ResponseStatus
+ * ✅ Erro explícito em vez de um PDF vazio quando todo o lote falha
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3
+ * =============================================================================
+ */
+
+package com.petdoc.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Lançada na exportação em PDF único quando nenhuma carteira do lote pôde
+ * ser gerada. Como nada foi escrito na resposta, o status ainda pode ser
+ * alterado; o motivo de cada falha fica no progresso do lote.
+ */
+@ResponseStatus(value = HttpStatus.UNPROCESSABLE_ENTITY,
+                reason = "Nenhuma carteira do lote pôde ser gerada")
+public class LoteSemCarteirasException extends RuntimeException {
+
+    public LoteSemCarteirasException(String message) {
+        super(message);
+    }
+}
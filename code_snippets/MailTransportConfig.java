@@ -0,0 +1,68 @@
+/**
+ * =============================================================================
+ * ⚙️ MailTransportConfig.java - Seleção do Transporte SMTP
+ * =============================================================================
+ *
+ * Esta configuração demonstra:
+ * ✅ Substituição do JavaMailSender auto-configurado pelo Spring Boot
+ * ✅ Ativação por propriedade com @ConditionalOnProperty
+ * ✅ Reuso das propriedades padrão spring.mail.* (MailProperties)
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Mail
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Registra o {@link PooledJavaMailSender} quando
+ * {@code app.mail.transporte=pool}.
+ *
+ * Sem a propriedade, o Spring Boot continua criando o JavaMailSenderImpl
+ * padrão (uma conexão por envio). Host, porta e credenciais vêm de
+ * {@code spring.mail.*}; em testes basta apontá-los para um servidor SMTP
+ * local como o GreenMail.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.mail.transporte", havingValue = "pool")
+public class MailTransportConfig {
+
+    @Bean
+    public PooledJavaMailSender javaMailSender(
+            MailProperties mailProperties,
+            @Value("${app.mail.pool.tamanho:4}") int tamanho,
+            @Value("${app.mail.pool.max-ociosidade:PT2M}") Duration maxOciosidade,
+            @Value("${app.mail.pool.validar-apos:PT15S}") Duration validarApos,
+            @Value("${app.mail.pool.espera-maxima:PT30S}") Duration esperaMaxima) {
+
+        PooledJavaMailSender sender = new PooledJavaMailSender(tamanho, maxOciosidade, validarApos, esperaMaxima);
+
+        // Mesmas propriedades aplicadas pela auto-configuração do Spring Boot
+        sender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            sender.setPort(mailProperties.getPort());
+        }
+        sender.setUsername(mailProperties.getUsername());
+        sender.setPassword(mailProperties.getPassword());
+        sender.setProtocol(mailProperties.getProtocol());
+        sender.setDefaultEncoding(mailProperties.getDefaultEncoding() != null
+            ? mailProperties.getDefaultEncoding().name()
+            : StandardCharsets.UTF_8.name());
+
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.putAll(mailProperties.getProperties());
+        sender.setJavaMailProperties(javaMailProperties);
+
+        return sender;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * =============================================================================
+ * 🧠 MemoriaSessaoCompactaRepository.java - Sessões Compactas em Memória
+ * =============================================================================
+ *
+ * Este repositório demonstra:
+ * ✅ Mesmo contrato do repositório JDBC, sem banco
+ * ✅ Sessões guardadas já codificadas (o codec é exercitado em testes)
+ *
+ * Tecnologias: Java 21, Spring Session
+ * =============================================================================
+ */
+
+package com.petdoc.session;
+
+import org.springframework.session.SessionRepository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementação para testes e desenvolvimento local (uma instância).
+ *
+ * As sessões são armazenadas em bytes, exatamente como no PostgreSQL:
+ * um teste de integração com este repositório cobre o formato binário e a
+ * remontagem do SecurityContext.
+ */
+public class MemoriaSessaoCompactaRepository implements SessionRepository<SessaoCompacta> {
+
+    private final Map<String, byte[]> sessoes = new ConcurrentHashMap<>();
+    private final Duration maxInativo;
+
+    public MemoriaSessaoCompactaRepository(Duration maxInativo) {
+        this.maxInativo = maxInativo;
+    }
+
+    @Override
+    public SessaoCompacta createSession() {
+        return new SessaoCompacta(maxInativo);
+    }
+
+    @Override
+    public void save(SessaoCompacta sessao) {
+        if (sessao.idAlterado()) {
+            sessoes.remove(sessao.idOriginal());
+        }
+        sessoes.put(sessao.getId(), SessaoCompactaCodec.codificar(sessao));
+    }
+
+    @Override
+    public SessaoCompacta findById(String id) {
+        byte[] dados = sessoes.get(id);
+        if (dados == null) {
+            return null;
+        }
+        SessaoCompacta sessao = SessaoCompactaCodec.decodificar(id, dados);
+        if (sessao.isExpired()) {
+            sessoes.remove(id);
+            return null;
+        }
+        return sessao;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        sessoes.remove(id);
+    }
+
+    /**
+     * Tamanho armazenado de uma sessão (útil para asserções de compactação).
+     */
+    public int tamanhoEmBytes(String id) {
+        byte[] dados = sessoes.get(id);
+        return dados != null ? dados.length : 0;
+    }
+}
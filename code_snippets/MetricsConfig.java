@@ -0,0 +1,104 @@
+/**
+ * =============================================================================
+ * 📈 MetricsConfig.java - Métricas Micrometer Expostas via Actuator/Prometheus
+ * =============================================================================
+ *
+ * Esta configuração demonstra:
+ * ✅ Tags comuns para todas as métricas (aplicação, instância do App Runner)
+ * ✅ Histogramas e percentis apenas para os timers da PetDoc (MeterFilter)
+ * ✅ Integração com o endpoint /actuator/prometheus do Spring Boot Actuator
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Micrometer, Prometheus
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuração global das métricas da aplicação.
+ *
+ * As métricas de negócio usam o prefixo {@value #PREFIXO}:
+ *
+ * | Métrica | Tipo | Tags |
+ * |---------|------|------|
+ * | petdoc.pdf.etapa | Timer | etapa = dto, assets, template, layout |
+ * | petdoc.pdf.tamanho | DistributionSummary (bytes) | origem = render, cache |
+ * | petdoc.pdf.job | Timer | status = concluido, falha, ignorado |
+ * | petdoc.pdf.jobs.fila | Gauge | - |
+ * | petdoc.lembretes.encontrados | Counter | antecedencia = D-15, D-7, D-1... |
+ * | petdoc.lembretes.consulta | Timer | modo = direto, outbox |
+ * | petdoc.lembretes.envio | Timer | status = ENVIADO, FALHA |
+ * | petdoc.lembretes.tentativa | Timer | - |
+ * | petdoc.lembretes.falhas | Counter | - |
+ * | petdoc.lembretes.retentativas | Counter | - |
+ * | petdoc.lembretes.digest.itens | DistributionSummary | - |
+ * | petdoc.auth.senha | Timer | operacao = matches, encode; algoritmo |
+ *
+ * A latência total do login vem da instrumentação nativa do Spring
+ * Security ({@code spring.security.authentications}), ativada pelo
+ * ObservationRegistry do Actuator.
+ *
+ * Propriedades no application.properties:
+ * <pre>
+ * management.endpoints.web.exposure.include=health,prometheus
+ * management.server.port=8081   # porta fora do roteamento público do App Runner
+ * </pre>
+ *
+ * O scraper acessa sem login apenas pela porta de gerenciamento; na porta
+ * pública, {@code /actuator/prometheus} exige ADMIN (ver SecurityConfig).
+ *
+ * Em testes, um {@code SimpleMeterRegistry} é suficiente para inspecionar
+ * as métricas (ver benchmarks/BenchmarkFixtures).
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String PREFIXO = "petdoc.";
+
+    @Value("${app.metricas.instancia:${HOSTNAME:local}}")
+    private String instancia;
+
+    /**
+     * Tags presentes em todas as séries, para separar instâncias no Prometheus.
+     */
+    @Bean
+    public MeterRegistryCustomizer<MeterRegistry> tagsComuns() {
+        return registry -> registry.config().commonTags("application", "petdoc", "instancia", instancia);
+    }
+
+    /**
+     * Histogramas (buckets para histogram_quantile) nos timers da PetDoc.
+     *
+     * Limitado ao prefixo próprio para não multiplicar as séries de
+     * http.server.requests, jvm.* e afins. Os limites cobrem de um envio
+     * SMTP rápido a um PDF de 200 vacinas.
+     */
+    @Bean
+    public MeterFilter histogramasPetDoc() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER || !id.getName().startsWith(PREFIXO)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                    .percentilesHistogram(true)
+                    .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                    .maximumExpectedValue((double) Duration.ofSeconds(60).toNanos())
+                    .build()
+                    .merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * =============================================================================
+ * ⏱️ PasswordEncoderInstrumentado.java - Custo do BCrypt em Métricas
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Padrão Decorator sobre o PasswordEncoder do Spring Security
+ * ✅ Timer Micrometer separado para matches (login) e encode (cadastro)
+ * ✅ Custo do algoritmo como tag, para comparar antes/depois de ajustes
+ *
+ * Tecnologias: Java 21, Spring Security 6, Micrometer
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Mede o tempo de CPU gasto com hash de senha.
+ *
+ * O {@code matches} do BCrypt domina a latência do login; com esta métrica
+ * ao lado de {@code spring.security.authentications} dá para ver quanto do
+ * login é hash e quanto é banco/sessão.
+ */
+public class PasswordEncoderInstrumentado implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer tempoMatches;
+    private final Timer tempoEncode;
+
+    /**
+     * @param algoritmo Identificação do algoritmo e custo (ex: "bcrypt-10")
+     */
+    public PasswordEncoderInstrumentado(PasswordEncoder delegate, MeterRegistry registry, String algoritmo) {
+        this.delegate = delegate;
+        this.tempoMatches = timer(registry, "matches", algoritmo);
+        this.tempoEncode = timer(registry, "encode", algoritmo);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return tempoEncode.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Boolean resultado = tempoMatches.record(() -> delegate.matches(rawPassword, encodedPassword));
+        return Boolean.TRUE.equals(resultado);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static Timer timer(MeterRegistry registry, String operacao, String algoritmo) {
+        return Timer.builder("petdoc.auth.senha")
+            .description("Tempo de hash/verificação de senha")
+            .tag("operacao", operacao)
+            .tag("algoritmo", algoritmo)
+            .register(registry);
+    }
+}
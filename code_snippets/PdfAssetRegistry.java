@@ -0,0 +1,213 @@
+/**
+ * =============================================================================
+ * 🖼️ PdfAssetRegistry.java - Registro de Recursos Estáticos do PDF
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Carregamento único de recursos do Classpath na inicialização (@PostConstruct)
+ * ✅ Cache imutável em memória com limite de tamanho
+ * ✅ Conversão de imagens e ícones SVG para data URI Base64
+ * ✅ Exposição dos recursos para o contexto do Thymeleaf
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Thymeleaf
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro dos recursos imutáveis usados na geração da Carteira Digital.
+ *
+ * Antes, cada PDF relia a logo do Classpath e refazia a codificação Base64,
+ * alocando uma String grande por requisição. Agora tudo é carregado uma única
+ * vez na subida da aplicação:
+ *
+ * - Imagens (PNG/JPEG): convertidas para data URI Base64
+ * - Ícones SVG: convertidos para data URI Base64 (image/svg+xml)
+ * - Fontes: mantidas como bytes brutos para registro no PdfRendererBuilder
+ *
+ * O total carregado é limitado por {@code app.pdf.assets.max-bytes}; recursos
+ * que estourarem o limite são ignorados com log de aviso.
+ */
+@Component
+public class PdfAssetRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfAssetRegistry.class);
+
+    /** Chave da logo usada no template da carteira. */
+    public static final String LOGO_PETDOC = "petdoc-logo";
+
+    private static final String CAMINHO_LOGO = "static/images/petdoc-logo_compressed2.png";
+
+    @Value("${app.pdf.assets.icones:classpath*:static/images/icons/*.svg}")
+    private String padraoIcones;
+
+    @Value("${app.pdf.assets.fontes:}")
+    private List<String> caminhosFontes;
+
+    @Value("${app.pdf.assets.max-bytes:4194304}")
+    private long limiteBytes;
+
+    private Map<String, String> imagens = Map.of();
+    private Map<String, byte[]> fontes = Map.of();
+    private long bytesCarregados;
+
+    /**
+     * Carrega e codifica todos os recursos uma única vez.
+     * Os mapas resultantes são imutáveis e podem ser lidos sem sincronização.
+     */
+    @PostConstruct
+    void carregar() {
+        Map<String, String> imagensCarregadas = new LinkedHashMap<>();
+        Map<String, byte[]> fontesCarregadas = new LinkedHashMap<>();
+        bytesCarregados = 0;
+
+        // 1. Logo principal da carteira
+        String logo = carregarImagemBase64(CAMINHO_LOGO);
+        if (!logo.isEmpty()) {
+            imagensCarregadas.put(LOGO_PETDOC, logo);
+        }
+
+        // 2. Ícones SVG (chave = nome do arquivo sem extensão)
+        try {
+            Resource[] icones = new PathMatchingResourcePatternResolver().getResources(padraoIcones);
+            for (Resource icone : icones) {
+                String nome = icone.getFilename();
+                if (nome == null) {
+                    continue;
+                }
+                String dataUri = codificar(icone, "image/svg+xml");
+                if (!dataUri.isEmpty()) {
+                    imagensCarregadas.put(nome.substring(0, nome.lastIndexOf('.')), dataUri);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Não foi possível listar os ícones SVG ({}): {}", padraoIcones, e.getMessage());
+        }
+
+        // 3. Fontes (bytes brutos, registradas no renderizador de PDF)
+        for (String caminho : caminhosFontes) {
+            byte[] bytes = lerDentroDoLimite(new ClassPathResource(caminho));
+            if (bytes != null) {
+                fontesCarregadas.put(caminho, bytes);
+            }
+        }
+
+        this.imagens = Collections.unmodifiableMap(imagensCarregadas);
+        this.fontes = Collections.unmodifiableMap(fontesCarregadas);
+
+        log.info("Recursos do PDF carregados: {} imagem(ns), {} fonte(s), {} bytes.",
+                 imagens.size(), fontes.size(), bytesCarregados);
+    }
+
+    // =========================================================================
+    // CONSULTA
+    // =========================================================================
+
+    /**
+     * Retorna o data URI de uma imagem registrada ou string vazia se não existir.
+     */
+    public String imagem(String chave) {
+        return imagens.getOrDefault(chave, "");
+    }
+
+    /**
+     * Mapa imutável de todas as imagens (chave → data URI).
+     */
+    public Map<String, String> imagens() {
+        return imagens;
+    }
+
+    /**
+     * Mapa imutável de todas as fontes (caminho → bytes).
+     */
+    public Map<String, byte[]> fontes() {
+        return fontes;
+    }
+
+    /**
+     * Expõe os recursos no contexto do Thymeleaf.
+     *
+     * - {@code logoPetDoc}: mantido por compatibilidade com o template atual
+     * - {@code assets}: mapa completo, acessível via {@code ${assets['chave']}}
+     */
+    public void aplicar(Context context) {
+        context.setVariable("logoPetDoc", imagem(LOGO_PETDOC));
+        context.setVariable("assets", imagens);
+    }
+
+    // =========================================================================
+    // CARREGAMENTO
+    // =========================================================================
+
+    /**
+     * Carrega uma imagem do Classpath (resources) e converte para string Base64
+     * pronta para uso em src de tag <img> no HTML.
+     *
+     * Formato retornado: "data:image/png;base64,iVBORw0KGg..."
+     *
+     * @param caminhoResource Caminho relativo a partir de src/main/resources
+     * @return String Base64 com prefixo data URI ou string vazia se não encontrar
+     */
+    String carregarImagemBase64(String caminhoResource) {
+        // Detecta o tipo MIME baseado na extensão
+        String mimeType = caminhoResource.endsWith(".jpg") ||
+                          caminhoResource.endsWith(".jpeg")
+                          ? "image/jpeg"
+                          : "image/png";
+
+        return codificar(new ClassPathResource(caminhoResource), mimeType);
+    }
+
+    private String codificar(Resource resource, String mimeType) {
+        byte[] bytes = lerDentroDoLimite(resource);
+        if (bytes == null) {
+            return "";
+        }
+        return "data:" + mimeType + ";base64," + Base64.getEncoder().encodeToString(bytes);
+    }
+
+    /**
+     * Lê o recurso respeitando o limite total de memória do registro.
+     *
+     * @return bytes do recurso ou null se não existir, falhar ou estourar o limite
+     */
+    private byte[] lerDentroDoLimite(Resource resource) {
+        if (!resource.exists()) {
+            log.warn("Recurso do PDF não encontrado: {}", resource.getDescription());
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            byte[] bytes = StreamUtils.copyToByteArray(in);
+            if (bytesCarregados + bytes.length > limiteBytes) {
+                log.warn("Recurso {} ignorado: limite de {} bytes atingido.",
+                         resource.getDescription(), limiteBytes);
+                return null;
+            }
+            bytesCarregados += bytes.length;
+            return bytes;
+        } catch (IOException e) {
+            log.error("Erro ao carregar recurso do PDF: " + e.getMessage(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/**
+ * =============================================================================
+ * 🏭 PdfRenderPool.java - Pool Limitado de Renderização de PDF
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ ThreadPoolExecutor com concorrência e fila configuráveis
+ * ✅ Backpressure: rejeição imediata (HTTP 503) quando saturado
+ * ✅ Timeout que revoga o destino e contabiliza a thread ainda presa
+ * ✅ Reuso de BatikSVGDrawer por thread com ThreadLocal
+ * ✅ Fontes compartilhadas a partir do PdfAssetRegistry
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, OpenHTMLToPDF 1.0.10
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.svgsupport.BatikSVGDrawer;
+import com.petdoc.exception.RenderizacaoSaturadaException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor dedicado para o layout HTML → PDF.
+ *
+ * Antes, cada download montava PdfRendererBuilder e BatikSVGDrawer do zero
+ * na própria thread da requisição, sem limite de concorrência. Uma rajada de
+ * downloads levava o container a OOM ou 100% de CPU, afetando toda a API.
+ *
+ * Agora:
+ * - No máximo {@code app.pdf.render.threads} PDFs são renderizados ao mesmo tempo
+ * - Até {@code app.pdf.render.fila} pedidos aguardam na fila
+ * - Acima disso o pedido é rejeitado com {@link RenderizacaoSaturadaException} (503)
+ *
+ * A thread da requisição aguarda o resultado, mas quem consome CPU e memória
+ * de layout são apenas as threads do pool.
+ *
+ * No timeout, {@code cancel(true)} não interrompe o PDFBox (o layout não
+ * verifica interrupção). Por isso o destino é revogado: a próxima escrita
+ * da thread abandonada lança IOException e nada chega ao stream de quem já
+ * desistiu. Enquanto ela não termina, conta como ocupada; se todas as
+ * threads estiverem presas assim, novos pedidos são rejeitados na hora, em
+ * vez de esperar na fila até o próprio timeout.
+ */
+@Component
+public class PdfRenderPool {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfRenderPool.class);
+
+    private final PdfAssetRegistry assetRegistry;
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final long timeoutSegundos;
+
+    /** Renderizações que estouraram o timeout mas ainda ocupam uma thread. */
+    private final AtomicInteger abandonadas = new AtomicInteger();
+
+    /**
+     * Cada thread do pool reutiliza seu próprio BatikSVGDrawer
+     * (o drawer não é thread-safe, mas pode ser reaproveitado em sequência).
+     */
+    private final ThreadLocal<BatikSVGDrawer> svgDrawer = ThreadLocal.withInitial(BatikSVGDrawer::new);
+
+    public PdfRenderPool(PdfAssetRegistry assetRegistry,
+                         @Value("${app.pdf.render.threads:2}") int threads,
+                         @Value("${app.pdf.render.fila:16}") int fila,
+                         @Value("${app.pdf.render.timeout-segundos:30}") long timeoutSegundos) {
+        this.assetRegistry = assetRegistry;
+        this.threads = threads;
+        this.timeoutSegundos = timeoutSegundos;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            threads, threads,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(fila),
+            runnable -> {
+                Thread thread = new Thread(runnable, "pdf-render-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.prestartAllCoreThreads();
+
+        log.info("Pool de renderização de PDF: {} thread(s), fila de {}.", threads, fila);
+    }
+
+    /**
+     * Renderiza o HTML como PDF no stream de destino usando o pool.
+     *
+     * @param html String contendo HTML válido
+     * @param destino Stream que receberá o PDF (não é fechado: o PDFBox fecha o
+     *                stream que recebe, por isso o renderizador escreve em um
+     *                {@link DestinoRenderizacao}). Depois de um timeout ou
+     *                interrupção, nenhum byte é escrito nele
+     * @throws RenderizacaoSaturadaException se o pool e a fila estiverem cheios,
+     *         ou se todas as threads estiverem presas em renderizações abandonadas
+     * @throws RuntimeException se houver erro ou timeout na conversão
+     */
+    public void renderizar(String html, OutputStream destino) {
+        if (abandonadas.get() >= threads) {
+            log.warn("Todas as {} thread(s) de PDF presas em renderizações abandonadas. Requisição rejeitada.",
+                     threads);
+            throw new RenderizacaoSaturadaException("Pool de renderização de PDF saturado");
+        }
+
+        DestinoRenderizacao saida = new DestinoRenderizacao(destino);
+        Future<?> tarefa;
+        try {
+            tarefa = executor.submit(() -> converter(html, saida));
+        } catch (RejectedExecutionException e) {
+            log.warn("Pool de PDF saturado ({} ativos, {} na fila). Requisição rejeitada.",
+                     executor.getActiveCount(), executor.getQueue().size());
+            throw new RenderizacaoSaturadaException("Pool de renderização de PDF saturado");
+        }
+
+        try {
+            tarefa.get(timeoutSegundos, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            abandonar(saida, tarefa);
+            throw new RuntimeException("Tempo esgotado ao gerar PDF da carteira digital", e);
+        } catch (InterruptedException e) {
+            abandonar(saida, tarefa);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Geração de PDF interrompida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            throw new RuntimeException(
+                "Erro ao gerar PDF da carteira digital: " + causa.getMessage(), causa
+            );
+        }
+    }
+
+    /**
+     * Revoga o destino e cancela a tarefa. Se ela já estava rodando, a thread
+     * passa a contar como abandonada até o PDFBox devolvê-la.
+     */
+    private void abandonar(DestinoRenderizacao saida, Future<?> tarefa) {
+        if (saida.revogar()) {
+            int presas = abandonadas.incrementAndGet();
+            log.warn("Renderização de PDF abandonada após {} s; {} thread(s) ainda presa(s).",
+                     timeoutSegundos, presas);
+        }
+        tarefa.cancel(true);
+    }
+
+    /**
+     * Converte HTML para PDF usando OpenHTMLToPDF (executa nas threads do pool).
+     *
+     * Características:
+     * - Modo rápido habilitado para melhor performance
+     * - Suporte a SVG via BatikSVGDrawer reaproveitado por thread
+     * - Fontes registradas a partir dos bytes já em memória
+     */
+    private Void converter(String html, DestinoRenderizacao destino) throws Exception {
+        if (!destino.iniciar()) {
+            return null;  // revogado ainda na fila
+        }
+        try {
+            layout(html, destino);
+        } finally {
+            if (destino.finalizar()) {
+                abandonadas.decrementAndGet();
+            }
+        }
+        return null;
+    }
+
+    private void layout(String html, OutputStream destino) throws Exception {
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+
+        // Modo rápido: desabilita algumas features para ganho de performance
+        builder.useFastMode();
+
+        // Habilita suporte a SVG para ícones e gráficos
+        builder.useSVGDrawer(svgDrawer.get());
+
+        // Registra as fontes já carregadas em memória pelo registro
+        for (Map.Entry<String, byte[]> fonte : assetRegistry.fontes().entrySet()) {
+            byte[] bytes = fonte.getValue();
+            builder.useFont(() -> new ByteArrayInputStream(bytes), nomeFamilia(fonte.getKey()));
+        }
+
+        // Define o conteúdo HTML e a base URI para recursos relativos
+        builder.withHtmlContent(html, "/");
+
+        // Define o stream de saída e executa a renderização.
+        // O PDDocument.save() fecha o stream ao terminar; o destino pertence
+        // a quem chamou (resposta HTTP, entrada do ZIP, gravação do cache)
+        builder.toStream(destino);
+        builder.run();
+    }
+
+    /**
+     * Deriva o nome da família da fonte a partir do arquivo.
+     * Ex: "fonts/Nunito-Regular.ttf" → "Nunito-Regular"
+     */
+    private String nomeFamilia(String caminhoFonte) {
+        String arquivo = caminhoFonte.substring(caminhoFonte.lastIndexOf('/') + 1);
+        int ponto = arquivo.lastIndexOf('.');
+        return ponto > 0 ? arquivo.substring(0, ponto) : arquivo;
+    }
+
+    /**
+     * Destino entregue ao PDFBox.
+     *
+     * - close() vira flush(): o stream continua aberto para quem o forneceu
+     * - Depois de {@link #revogar()}, qualquer escrita lança IOException
+     *
+     * Escrita e revogação são sincronizadas: quando {@code revogar()} retorna,
+     * nenhuma escrita está em andamento no destino.
+     *
+     * O estado também registra se a tarefa chegou a rodar, para que só
+     * threads realmente ocupadas contem como abandonadas.
+     */
+    private static final class DestinoRenderizacao extends FilterOutputStream {
+
+        private static final int PENDENTE = 0;
+        private static final int EXECUTANDO = 1;
+        private static final int REVOGADO = 2;
+        private static final int FINALIZADO = 3;
+
+        private final AtomicInteger estado = new AtomicInteger(PENDENTE);
+
+        DestinoRenderizacao(OutputStream destino) {
+            super(destino);
+        }
+
+        /** @return false se a tarefa foi revogada antes de sair da fila */
+        boolean iniciar() {
+            return estado.compareAndSet(PENDENTE, EXECUTANDO);
+        }
+
+        /** @return true se a tarefa estava rodando (thread passa a ser abandonada) */
+        synchronized boolean revogar() {
+            while (true) {
+                int atual = estado.get();
+                if (atual == REVOGADO || atual == FINALIZADO) {
+                    return false;
+                }
+                if (estado.compareAndSet(atual, REVOGADO)) {
+                    return atual == EXECUTANDO;
+                }
+            }
+        }
+
+        /** @return true se a tarefa tinha sido abandonada */
+        boolean finalizar() {
+            return estado.getAndSet(FINALIZADO) == REVOGADO;
+        }
+
+        private void verificar() throws IOException {
+            if (estado.get() == REVOGADO) {
+                throw new IOException("Renderização abandonada pelo solicitante");
+            }
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            verificar();
+            out.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            verificar();
+            out.write(b, off, len);
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            verificar();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * =============================================================================
+ * 📣 PetRemovidoEvent.java - Evento de Domínio de Remoção de Pet
+ * =============================================================================
+ *
+ * Este evento demonstra:
+ * ✅ Uso de Java Records como eventos imutáveis
+ * ✅ Dados necessários aos ouvintes capturados antes da remoção
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3
+ * =============================================================================
+ */
+
+package com.petdoc.event;
+
+/**
+ * Publicado pelo PetService ao remover um pet (e, em cascata, suas vacinas).
+ *
+ * O tutor vai no evento porque, depois do commit, o pet não existe mais e
+ * não há como chegar ao tutor a partir do {@code petId}.
+ *
+ * Exemplo de publicação:
+ * <pre>
+ * eventPublisher.publishEvent(new PetRemovidoEvent(pet.getTutor().getId(), pet.getId()));
+ * </pre>
+ *
+ * @param tutorId Tutor dono do pet removido
+ * @param petId Pet removido
+ */
+public record PetRemovidoEvent(Long tutorId, Long petId) {
+}
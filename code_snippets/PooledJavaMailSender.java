@@ -0,0 +1,236 @@
+/**
+ * =============================================================================
+ * 📬 PooledJavaMailSender.java - Pool de Conexões SMTP Persistentes
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Extensão do JavaMailSenderImpl do Spring (transparente para o EmailService)
+ * ✅ Pool de sessões SMTP autenticadas reaproveitadas entre envios
+ * ✅ Validação (NOOP) só de conexões paradas há algum tempo
+ * ✅ Reconexão e nova tentativa única quando a conexão cai no envio
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Mail, Jakarta Mail
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JavaMailSender que mantém um pequeno pool de conexões SMTP abertas.
+ *
+ * O JavaMailSenderImpl padrão abre uma conexão (TCP + TLS + AUTH) a cada
+ * chamada de send(), e esse handshake era a maior parte da latência de cada
+ * lembrete. Aqui a conexão é emprestada do pool, usada e devolvida:
+ *
+ * - Até {@code tamanho} conexões simultâneas; chamadores extras aguardam
+ * - Conexões ociosas há mais de {@code maxOciosidade} são fechadas e recriadas
+ *   (servidores SMTP costumam derrubar sessões paradas)
+ * - Conexões ociosas há mais de {@code validarApos} são testadas antes do uso
+ * - Conexões que falham são descartadas, nunca devolvidas ao pool
+ *
+ * {@code Transport.isConnected()} do SMTP envia um NOOP e espera a resposta:
+ * chamado a cada empréstimo, custava um round-trip por mensagem e anulava
+ * boa parte do ganho do pool. Conexões usadas há pouco são entregues sem
+ * teste; se mesmo assim a conexão tiver caído, o envio falha com erro de
+ * conexão, a mensagem é reenviada uma única vez em uma conexão nova e a
+ * antiga é descartada. Recusas do servidor por destinatário
+ * ({@link SendFailedException}) não disparam a reconexão.
+ *
+ * Como estende JavaMailSenderImpl, basta registrá-lo como bean
+ * {@code JavaMailSender} para que o EmailService passe a usá-lo.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledJavaMailSender.class);
+
+    private final Duration maxOciosidade;
+    private final Duration validarApos;
+    private final Duration esperaMaxima;
+
+    private final Semaphore permissoes;
+    private final BlockingQueue<ConexaoOciosa> ociosas;
+
+    private record ConexaoOciosa(Transport transport, long devolvidaEm) {
+    }
+
+    public PooledJavaMailSender(int tamanho, Duration maxOciosidade, Duration validarApos, Duration esperaMaxima) {
+        this.maxOciosidade = maxOciosidade;
+        this.validarApos = validarApos;
+        this.esperaMaxima = esperaMaxima;
+        this.permissoes = new Semaphore(tamanho, true);
+        this.ociosas = new ArrayBlockingQueue<>(tamanho);
+    }
+
+    // =========================================================================
+    // ENVIO
+    // =========================================================================
+
+    /**
+     * Envia as mensagens de um send(...) sobre a conexão emprestada do pool.
+     *
+     * Os lembretes chegam uma mensagem por chamada: o paralelismo vem do
+     * LembreteDispatcher, e cada envio simultâneo usa uma conexão do pool.
+     * O laço só respeita o contrato do JavaMailSenderImpl, que aceita
+     * várias mensagens.
+     */
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        Map<Object, Exception> falhas = new LinkedHashMap<>();
+        Transport transport = emprestar();
+
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mensagem = mimeMessages[i];
+                try {
+                    prepararCabecalhos(mensagem);
+                } catch (MessagingException e) {
+                    falhas.put(original(mimeMessages, originalMessages, i), e);
+                    continue;
+                }
+
+                try {
+                    enviar(transport, mensagem);
+                } catch (SendFailedException e) {
+                    // Recusa do servidor (ex: destinatário inválido); a conexão segue válida
+                    falhas.put(original(mimeMessages, originalMessages, i), e);
+                } catch (MessagingException | IllegalStateException e) {
+                    // Conexão caiu: troca por uma nova e tenta esta mensagem mais uma vez
+                    log.debug("Conexão SMTP perdida no envio, reconectando: {}", e.getMessage());
+                    fecharSilenciosamente(transport);
+                    transport = null;
+                    try {
+                        transport = connectTransport();
+                        enviar(transport, mensagem);
+                    } catch (SendFailedException recusa) {
+                        falhas.put(original(mimeMessages, originalMessages, i), recusa);
+                    } catch (MessagingException | IllegalStateException novaFalha) {
+                        // Servidor inacessível: as demais mensagens da chamada falham com o mesmo erro
+                        if (transport != null) {
+                            fecharSilenciosamente(transport);
+                            transport = null;
+                        }
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            falhas.put(original(mimeMessages, originalMessages, j), novaFalha);
+                        }
+                        break;
+                    }
+                }
+            }
+        } finally {
+            devolver(transport);
+        }
+
+        if (!falhas.isEmpty()) {
+            throw new MailSendException(falhas);
+        }
+    }
+
+    private static Object original(MimeMessage[] mimeMessages, Object[] originalMessages, int indice) {
+        return originalMessages != null ? originalMessages[indice] : mimeMessages[indice];
+    }
+
+    private static void enviar(Transport transport, MimeMessage mensagem) throws MessagingException {
+        Address[] destinatarios = mensagem.getAllRecipients();
+        transport.sendMessage(mensagem, destinatarios != null ? destinatarios : new Address[0]);
+    }
+
+    /**
+     * Mesmo tratamento de cabeçalhos feito pelo JavaMailSenderImpl.doSend().
+     */
+    private void prepararCabecalhos(MimeMessage mensagem) throws MessagingException {
+        if (mensagem.getSentDate() == null) {
+            mensagem.setSentDate(new Date());
+        }
+        String messageId = mensagem.getMessageID();
+        mensagem.saveChanges();
+        if (messageId != null) {
+            // Preserva o Message-ID definido explicitamente
+            mensagem.setHeader("Message-ID", messageId);
+        }
+    }
+
+    // =========================================================================
+    // POOL
+    // =========================================================================
+
+    private Transport emprestar() throws MailException {
+        try {
+            if (!permissoes.tryAcquire(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("Tempo esgotado aguardando conexão SMTP livre no pool");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrompido aguardando conexão SMTP", e);
+        }
+
+        try {
+            long agora = System.currentTimeMillis();
+            ConexaoOciosa ociosa;
+            while ((ociosa = ociosas.poll()) != null) {
+                long parada = agora - ociosa.devolvidaEm();
+                boolean valida = parada < maxOciosidade.toMillis()
+                    && (parada < validarApos.toMillis() || ociosa.transport().isConnected());
+                if (valida) {
+                    return ociosa.transport();
+                }
+                fecharSilenciosamente(ociosa.transport());
+            }
+            return connectTransport();
+        } catch (MessagingException | RuntimeException e) {
+            permissoes.release();
+            throw new MailSendException("Erro ao abrir conexão SMTP: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param transport Conexão a devolver, ou null se ela foi descartada no envio
+     */
+    private void devolver(Transport transport) {
+        try {
+            if (transport == null
+                    || ociosas.offer(new ConexaoOciosa(transport, System.currentTimeMillis()))) {
+                return;
+            }
+            fecharSilenciosamente(transport);
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    private void fecharSilenciosamente(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Erro ao fechar conexão SMTP: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        ConexaoOciosa ociosa;
+        while ((ociosa = ociosas.poll()) != null) {
+            fecharSilenciosamente(ociosa.transport());
+        }
+    }
+}
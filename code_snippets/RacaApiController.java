@@ -0,0 +1,85 @@
+/**
+ * =============================================================================
+ * 🐕 RacaApiController.java - Raças com ETag e Cache-Control
+ * =============================================================================
+ *
+ * Este controller demonstra:
+ * ✅ Resposta servida do DadosReferenciaCache (sem consulta ao banco)
+ * ✅ GET condicional: If-None-Match → 304 Not Modified sem corpo
+ * ✅ Cache-Control para o SPA reaproveitar a resposta do navegador
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring MVC
+ * =============================================================================
+ */
+
+package com.petdoc.controller.api;
+
+import com.petdoc.service.DadosReferenciaCache;
+import com.petdoc.service.RacasReferencia;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Lista de raças para os formulários e filtros do Vue.
+ *
+ * - GET /api/racas: todas as raças
+ * - GET /api/racas?especie=GATO: raças de uma espécie (404 se a espécie
+ *   não existir)
+ *
+ * O corpo é o JSON pré-serializado do cache. Com {@code max-age} o
+ * navegador nem faz a requisição; depois disso, revalida com
+ * If-None-Match e recebe 304 enquanto a versão não mudar.
+ *
+ * O Spring Security só escreve os headers "no-cache" padrão quando a
+ * resposta não define Cache-Control, então o valor daqui prevalece.
+ */
+@RestController
+@RequestMapping("/api/racas")
+public class RacaApiController {
+
+    private final DadosReferenciaCache cache;
+
+    @Value("${app.referencia.max-age:PT5M}")
+    private Duration maxAge;
+
+    public RacaApiController(DadosReferenciaCache cache) {
+        this.cache = cache;
+    }
+
+    @GetMapping
+    public ResponseEntity<byte[]> listar(
+            @RequestParam(required = false) String especie,
+            WebRequest request) {
+
+        String chave = especie != null ? especie.toUpperCase(Locale.ROOT) : RacasReferencia.TODAS;
+        return cache.obter(RacasReferencia.NOME, chave)
+            .map(entrada -> {
+                // Dados iguais para todos os usuários, mas a rota exige login: cache só no navegador
+                CacheControl cacheControl = CacheControl.maxAge(maxAge).cachePrivate().mustRevalidate();
+
+                // Compara com If-None-Match (listas e ETags fracos inclusos) e já marca o 304
+                if (request.checkNotModified(entrada.etag())) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .cacheControl(cacheControl)
+                        .<byte[]>build();
+                }
+                return ResponseEntity.ok()
+                    .eTag(entrada.etag())
+                    .cacheControl(cacheControl)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(entrada.json());
+            })
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * =============================================================================
+ * 🐕 RacasReferencia.java - Raças como Conjunto de Referência
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Implementação do ConjuntoReferencia para a lista de raças
+ * ✅ Uma chave por espécie + a lista completa
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.petdoc.repository.DadosReferenciaRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Raças servidas em {@code /api/racas}.
+ *
+ * Chaves: {@link #TODAS} (lista completa) e o código de cada espécie.
+ */
+@Component
+public class RacasReferencia implements ConjuntoReferencia {
+
+    public static final String NOME = "racas";
+    public static final String TODAS = "*";
+
+    private final DadosReferenciaRepository repository;
+
+    public RacasReferencia(DadosReferenciaRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public String nome() {
+        return NOME;
+    }
+
+    @Override
+    public Collection<String> chavesIniciais() {
+        List<String> chaves = new ArrayList<>();
+        chaves.add(TODAS);
+        chaves.addAll(repository.especies());
+        return chaves;
+    }
+
+    @Override
+    public Object carregar(String chave) {
+        return repository.racas(TODAS.equals(chave) ? null : chave);
+    }
+}
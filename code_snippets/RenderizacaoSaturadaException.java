@@ -0,0 +1,30 @@
+/**
+ * =============================================================================
+ * 🚦 RenderizacaoSaturadaException.java - Backpressure da Geração de PDF
+ * =============================================================================
+ *
+ * Esta exceção demonstra:
+ * ✅ Mapeamento direto para HTTP 503 com @ResponseStatus
+ * ✅ Rejeição explícita quando o pool de renderização está saturado
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3
+ * =============================================================================
+ */
+
+package com.petdoc.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Lançada quando todas as threads de renderização estão ocupadas e a fila
+ * de espera está cheia. O cliente deve tentar novamente mais tarde.
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE,
+                reason = "Geração de PDF temporariamente indisponível, tente novamente")
+public class RenderizacaoSaturadaException extends RuntimeException {
+
+    public RenderizacaoSaturadaException(String message) {
+        super(message);
+    }
+}
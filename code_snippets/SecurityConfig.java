@@ -10,6 +10,11 @@
  * ✅ Controle de acesso baseado em Roles (ROLE_USER, ROLE_ADMIN)
  * ✅ Tratamento diferenciado para API REST vs páginas web
  * ✅ Autenticação session-based com formulário de login
+ * ✅ Limite de falhas de login por conta/IP antes do hash (LoginThrottleFilter)
+ * ✅ Sessão enxuta (principal + papéis) compatível com o SessaoConfig
+ * ✅ Regras de URL compiladas em trie (AutorizacaoPorPrefixo)
+ * ✅ Cadeia stateless separada para recursos estáticos
+ * ✅ Métricas Prometheus só na porta de gerenciamento (ou para ADMIN)
  * 
  * Tecnologias: Java 21, Spring Boot 3.3, Spring Security 6
  * =============================================================================
@@ -17,15 +22,23 @@
 
 package com.petdoc.config;
 
+import com.petdoc.service.TentativasLoginService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -33,6 +46,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Configuração central de segurança da aplicação.
@@ -50,13 +64,46 @@ public class SecurityConfig {
     @Value("${cors.allowed-origins}")
     private List<String> allowedOrigins;
 
+    @Value("${server.port:8080}")
+    private int portaAplicacao;
+
+    /** Porta do Actuator; sem {@code management.server.port}, é a mesma da aplicação. */
+    @Value("${management.server.port:-1}")
+    private int portaGerenciamento;
+
+    // O PasswordEncoder (BCrypt calibrado, pool limitado) é definido no SenhaConfig
+
+    /** Indica que o Actuator não tem porta própria. */
+    private static final int SEM_PORTA_GERENCIAMENTO = -1;
+
+    /** Primeiro segmento das pastas de recursos estáticos (src/main/resources/static). */
+    private static final Set<String> PASTAS_ESTATICAS = Set.of("css", "js", "images");
+
     /**
-     * Encoder de senhas usando BCrypt com custo padrão (10).
-     * BCrypt já inclui salt automático em cada hash.
+     * Cadeia dedicada aos recursos estáticos, avaliada antes da principal.
+     *
+     * CSS, JS e imagens são públicos e não dependem do usuário, mas passavam
+     * pela cadeia completa: carga do SecurityContext (e da sessão), CSRF,
+     * request cache e a lista de regras de autorização. Aqui a cadeia é
+     * mínima e stateless: nenhuma sessão é lida ou criada.
+     *
+     * O Cache-Control do Spring Security fica desligado nesta cadeia para
+     * valer o cache configurado em {@code spring.web.resources.cache.*}.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Order(1)
+    public SecurityFilterChain recursosEstaticosFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher(SecurityConfig::recursoEstatico)
+            .authorizeHttpRequests(authorize -> authorize.anyRequest().permitAll())
+            .securityContext(context -> context.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .requestCache(cache -> cache.disable())
+            .csrf(csrf -> csrf.disable())
+            .anonymous(anonymous -> anonymous.disable())
+            .headers(headers -> headers.cacheControl(cacheControl -> cacheControl.disable()));
+
+        return http.build();
     }
 
     /**
@@ -65,7 +112,9 @@ public class SecurityConfig {
      * Utiliza a nova API Lambda DSL do Spring Security 6.
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    @Order(2)
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   TentativasLoginService tentativasLogin) throws Exception {
         http
             // =========================================================
             // CSRF - Cross-Site Request Forgery Protection
@@ -91,34 +140,9 @@ public class SecurityConfig {
             // AUTORIZAÇÃO DE REQUISIÇÕES
             // =========================================================
             .authorizeHttpRequests(authorize -> authorize
-                // == Recursos Públicos (Estáticos) ==
-                .requestMatchers("/css/**", "/js/**", "/images/**", "/favicon.ico")
-                    .permitAll()
-
-                // == Páginas Públicas ==
-                .requestMatchers("/login", "/cadastro")
-                    .permitAll()
-
-                // == API REST - Endpoints Públicos ==
-                .requestMatchers("/api/auth/**")
-                    .permitAll()
-
-                // == API REST - Endpoints Protegidos (ROLE_USER) ==
-                .requestMatchers("/api/dashboard/**").hasRole("USER")
-                .requestMatchers("/api/racas/**").hasRole("USER")
-                .requestMatchers("/api/pets/**").hasRole("USER")
-                .requestMatchers("/api/perfil/**").hasRole("USER")
-
-                // == Swagger UI - Apenas ADMIN ==
-                .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**")
-                    .hasRole("ADMIN")
-
-                // == Páginas Web (Thymeleaf) - Protegidas ==
-                .requestMatchers("/dashboard", "/pets/**", "/vacinas/**", "/perfil/**", "/ajuda")
-                    .hasRole("USER")
-
-                // Qualquer outra requisição requer autenticação
-                .anyRequest().authenticated()
+                // Regras compiladas em uma trie (ver regrasDeAutorizacao)
+                .anyRequest().access(regrasDeAutorizacao(
+                    portaGerenciamento != portaAplicacao ? portaGerenciamento : SEM_PORTA_GERENCIAMENTO))
             )
 
             // =========================================================
@@ -127,18 +151,29 @@ public class SecurityConfig {
             .formLogin(form -> form
                 .loginPage("/login")
                 .defaultSuccessUrl("/dashboard", true)
-                .permitAll()
             )
 
+            // =========================================================
+            // LIMITE DE TENTATIVAS DE LOGIN
+            // =========================================================
+            // Conta ou IP com falhas demais são recusados antes do BCrypt
+            .addFilterBefore(new LoginThrottleFilter(tentativasLogin), UsernamePasswordAuthenticationFilter.class)
+
+            // =========================================================
+            // REQUEST CACHE
+            // =========================================================
+            // O login sempre redireciona para /dashboard (defaultSuccessUrl com
+            // alwaysUse=true), então a requisição original salva na sessão nunca
+            // é usada. Sem ela, a sessão guarda só o SecurityContext.
+            .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+
             // =========================================================
             // TRATAMENTO DE EXCEÇÕES DE AUTENTICAÇÃO
             // =========================================================
             .exceptionHandling(exception -> exception
                 .authenticationEntryPoint((request, response, authException) -> {
-                    String requestURI = request.getRequestURI();
-                    
                     // Se for uma requisição de API, retorna 401 JSON-friendly
-                    if (requestURI.startsWith("/api/")) {
+                    if (requisicaoDeApi(request)) {
                         response.sendError(401, "Não autenticado");
                     } else {
                         // Se for uma página web, redireciona para login
@@ -153,12 +188,99 @@ public class SecurityConfig {
             .logout(logout -> logout
                 .logoutUrl("/logout")
                 .logoutSuccessUrl("/login?logout")
-                .permitAll()
             );
 
         return http.build();
     }
 
+    /**
+     * Regras de acesso por URL, na ordem em que eram declaradas com
+     * {@code requestMatchers(...)}: a primeira que casa decide.
+     *
+     * Os estáticos não aparecem aqui porque são atendidos pela cadeia
+     * recursosEstaticosFilterChain. /login e /logout entram explicitamente
+     * no lugar do {@code permitAll()} do formLogin/logout, que inseriria
+     * matchers lineares antes da trie.
+     *
+     * @param portaGerenciamento Porta própria do Actuator
+     *        ({@code management.server.port}) ou {@value #SEM_PORTA_GERENCIAMENTO}
+     */
+    public static AutorizacaoPorPrefixo regrasDeAutorizacao(int portaGerenciamento) {
+        return AutorizacaoPorPrefixo.builder()
+            // == Páginas Públicas ==
+            .permitir("/login", "/logout", "/cadastro")
+
+            // == API REST - Endpoints Públicos ==
+            .permitir("/api/auth/**")
+
+            // == API REST - Endpoints Protegidos (ROLE_USER) ==
+            .exigirPapel("USER", "/api/dashboard/**", "/api/racas/**", "/api/pets/**", "/api/perfil/**")
+
+            // == Actuator ==
+            // health para o App Runner; prometheus só para o scraper na porta de
+            // gerenciamento (fora da rota pública) ou para ADMIN; o restante só ADMIN.
+            .permitir("/actuator/health")
+            .regra(portaGerenciamentoOuAdmin(portaGerenciamento), "/actuator/prometheus")
+            .exigirPapel("ADMIN", "/actuator/**")
+
+            // == Swagger UI - Apenas ADMIN ==
+            .exigirPapel("ADMIN", "/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**")
+
+            // == Páginas Web (Thymeleaf) - Protegidas ==
+            .exigirPapel("USER", "/dashboard", "/pets/**", "/vacinas/**", "/perfil/**", "/ajuda")
+
+            // Qualquer outra requisição requer autenticação
+            .qualquerOutraAutenticada();
+    }
+
+    /**
+     * Regras sem porta de gerenciamento: o Prometheus exige ADMIN.
+     */
+    public static AutorizacaoPorPrefixo regrasDeAutorizacao() {
+        return regrasDeAutorizacao(SEM_PORTA_GERENCIAMENTO);
+    }
+
+    /**
+     * Libera a requisição recebida na porta de gerenciamento; em qualquer
+     * outra porta (a pública), exige ADMIN. Sem porta própria, exige ADMIN
+     * sempre.
+     */
+    private static AuthorizationManager<RequestAuthorizationContext> portaGerenciamentoOuAdmin(int porta) {
+        AuthorizationManager<RequestAuthorizationContext> admin = AuthorityAuthorizationManager.hasRole("ADMIN");
+        if (porta == SEM_PORTA_GERENCIAMENTO) {
+            return admin;
+        }
+        return (autenticacao, contexto) -> contexto.getRequest().getLocalPort() == porta
+            ? new AuthorizationDecision(true)
+            : admin.check(autenticacao, contexto);
+    }
+
+    /**
+     * /api/**, pelo mesmo caminho decodificado da trie de autorização: com a
+     * URI bruta, {@code /%61pi/pets} recebia o redirect da página de login
+     * em vez de 401.
+     */
+    static boolean requisicaoDeApi(HttpServletRequest request) {
+        return AutorizacaoPorPrefixo.caminho(request).startsWith("/api/");
+    }
+
+    /**
+     * /css/**, /js/**, /images/** e /favicon.ico, verificados pelo primeiro
+     * segmento (chamado em toda requisição, antes de qualquer outra cadeia).
+     * Usa o mesmo caminho decodificado da trie de autorização.
+     */
+    static boolean recursoEstatico(HttpServletRequest request) {
+        String uri = AutorizacaoPorPrefixo.caminho(request);
+        if (uri.equals("/favicon.ico")) {
+            return true;
+        }
+        if (uri.length() < 2) {
+            return false;
+        }
+        int fim = uri.indexOf('/', 1);
+        return PASTAS_ESTATICAS.contains(fim < 0 ? uri.substring(1) : uri.substring(1, fim));
+    }
+
     /**
      * Configuração de CORS para permitir requisições do frontend Vue.js.
      * 
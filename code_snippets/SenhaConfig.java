@@ -0,0 +1,95 @@
+/**
+ * =============================================================================
+ * 🔐 SenhaConfig.java - Subsistema de Hash de Senhas
+ * =============================================================================
+ *
+ * Esta configuração demonstra:
+ * ✅ DelegatingPasswordEncoder com BCrypt em custo fixo (calibração opcional)
+ * ✅ Compatibilidade com hashes antigos sem prefixo {bcrypt}
+ * ✅ Composição de decorators: pool limitado → métricas → delegating
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Security 6, Micrometer
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Monta o PasswordEncoder da aplicação:
+ *
+ * <pre>
+ * VerificacaoSenhaPool            (threads dedicadas, fila limitada)
+ *  └ PasswordEncoderInstrumentado (petdoc.auth.senha)
+ *     └ DelegatingPasswordEncoder ("{bcrypt}" + BCrypt no custo escolhido)
+ * </pre>
+ *
+ * Custo:
+ * - {@code app.senha.bcrypt.custo} (padrão 10, o custo dos hashes já
+ *   gravados): usa o valor em todas as instâncias
+ * - {@code app.senha.bcrypt.custo=0}: calibrado na subida para ~{@code alvo}
+ *   por verificação, entre {@code custo-minimo} e {@code custo-maximo}
+ *
+ * Hashes com custo menor ou sem prefixo são refeitos no login pelo
+ * SenhaUpgradeService (UserDetailsPasswordService).
+ *
+ * Trade-off: cada ponto de custo dobra a CPU de todo login. A calibração
+ * parte do piso (10) e só mantém ou sobe o custo; com o alvo de 100 ms, um
+ * núcleo que faz o custo 10 em 25 a 50 ms escolhe 11 ou 12, ou seja, 2 a 4
+ * vezes mais CPU por login. Além disso, o primeiro login de cada tutor
+ * após a subida refaz o hash, e esse primeiro login costuma ser na rajada
+ * das 8h, quando chegam os lembretes. Por isso o custo fica fixo por
+ * padrão: subir o custo é uma decisão de capacidade, tomada junto com o
+ * dimensionamento do {@link VerificacaoSenhaPool}, e não um efeito
+ * colateral do hardware do container.
+ */
+@Configuration
+public class SenhaConfig {
+
+    @Value("${app.senha.bcrypt.custo:10}")
+    private int custoFixo;
+
+    @Value("${app.senha.bcrypt.alvo:PT0.1S}")
+    private Duration alvo;
+
+    @Value("${app.senha.bcrypt.custo-minimo:10}")
+    private int custoMinimo;
+
+    @Value("${app.senha.bcrypt.custo-maximo:14}")
+    private int custoMaximo;
+
+    @Value("${app.senha.pool.threads:0}")
+    private int threads;
+
+    @Value("${app.senha.pool.fila:64}")
+    private int fila;
+
+    @Value("${app.senha.pool.espera-maxima:PT5S}")
+    private Duration esperaMaxima;
+
+    @Bean
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int custo = custoFixo > 0 ? custoFixo : CustoBcryptCalibrador.calibrar(alvo, custoMinimo, custoMaximo);
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(custo);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        // Hashes gravados antes do DelegatingPasswordEncoder não têm o prefixo {bcrypt}
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        PasswordEncoder medido = new PasswordEncoderInstrumentado(delegating, meterRegistry, "bcrypt-" + custo);
+
+        // Metade dos núcleos: a outra metade continua livre para a API
+        int threadsPool = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new VerificacaoSenhaPool(medido, threadsPool, fila, esperaMaxima);
+    }
+}
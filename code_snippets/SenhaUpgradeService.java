@@ -0,0 +1,55 @@
+/**
+ * =============================================================================
+ * 🔁 SenhaUpgradeService.java - Regravação Transparente do Hash no Login
+ * =============================================================================
+ *
+ * Este serviço demonstra:
+ * ✅ UserDetailsPasswordService do Spring Security
+ * ✅ Migração gradual de hashes (custo antigo, sem prefixo {id}) sem reset de senha
+ *
+ * Tecnologias: Java 21, Spring Security 6, Spring JDBC
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+
+/**
+ * Chamado pelo DaoAuthenticationProvider após um login correto quando
+ * {@code PasswordEncoder.upgradeEncoding(hashAtual)} é verdadeiro, ou seja:
+ *
+ * - o hash ainda não tem o prefixo {@code {bcrypt}} (gerado antes do
+ *   DelegatingPasswordEncoder), ou
+ * - o custo do hash é menor que o custo calibrado na subida
+ *
+ * A senha em texto só existe durante o login, então é o único momento em
+ * que o hash pode ser refeito. Cada tutor migra no próximo acesso.
+ */
+@Service
+public class SenhaUpgradeService implements UserDetailsPasswordService {
+
+    private static final Logger log = LoggerFactory.getLogger(SenhaUpgradeService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SenhaUpgradeService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        int atualizados = jdbcTemplate.update(
+            "UPDATE tutor SET senha = ? WHERE email = ?", newPassword, user.getUsername());
+        if (atualizados > 0) {
+            log.info("Hash de senha atualizado para o custo atual: {}", user.getUsername());
+        }
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+}
@@ -0,0 +1,298 @@
+/**
+ * =============================================================================
+ * 🪪 SessaoCompacta.java - Sessão HTTP Reduzida ao Essencial
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Implementação de org.springframework.session.Session
+ * ✅ Contexto de segurança guardado como principal + papéis (não o objeto)
+ * ✅ Rastreamento do que mudou: atributos (escrita imediata) vs último acesso
+ *
+ * Tecnologias: Java 21, Spring Session, Spring Security 6
+ * =============================================================================
+ */
+
+package com.petdoc.session;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.security.web.csrf.HttpSessionCsrfTokenRepository;
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Sessão com os dados que a PetDoc realmente usa:
+ *
+ * - principal (e-mail do tutor) e papéis (ROLE_USER, ROLE_ADMIN)
+ * - token CSRF, quando o HttpSessionCsrfTokenRepository estiver em uso
+ *   (com o CookieCsrfTokenRepository atual o token fica no cookie)
+ * - atributos extras: escalares e mensagens flash em formato compacto;
+ *   outros tipos valem só na requisição atual e não são gravados (ver
+ *   {@link SessaoCompactaCodec})
+ *
+ * O SecurityContext é remontado na leitura como um
+ * UsernamePasswordAuthenticationToken com {@link User} como principal,
+ * então {@code Principal.getName()} e {@code @AuthenticationPrincipal
+ * UserDetails} continuam funcionando.
+ */
+public final class SessaoCompacta implements Session {
+
+    static final String ATRIBUTO_CONTEXTO = HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
+    static final String ATRIBUTO_CSRF = HttpSessionCsrfTokenRepository.class.getName().concat(".CSRF_TOKEN");
+    static final String CSRF_HEADER = "X-CSRF-TOKEN";
+    static final String CSRF_PARAMETRO = "_csrf";
+
+    private String id;
+    private final String idOriginal;
+    private final Instant criadaEm;
+    private Instant ultimoAcesso;
+    private Duration maxInativo;
+
+    private String principal;
+    private List<String> papeis = List.of();
+    private String csrfToken;
+    private final Map<String, Object> extras = new LinkedHashMap<>();
+
+    /** Remontado sob demanda; mesma instância durante a requisição. */
+    private SecurityContext contexto;
+
+    private final boolean nova;
+    private boolean atributosAlterados;
+    private boolean acessoAlterado;
+
+    /**
+     * Sessão nova, ainda não persistida.
+     */
+    SessaoCompacta(Duration maxInativo) {
+        this(UUID.randomUUID().toString(), Instant.now(), maxInativo, true);
+        this.atributosAlterados = true;
+    }
+
+    /**
+     * Sessão lida do armazenamento (usado pelo codec).
+     */
+    SessaoCompacta(String id, Instant criadaEm, Duration maxInativo, boolean nova) {
+        this.id = id;
+        this.idOriginal = id;
+        this.criadaEm = criadaEm;
+        this.ultimoAcesso = criadaEm;
+        this.maxInativo = maxInativo;
+        this.nova = nova;
+    }
+
+    // =========================================================================
+    // IDENTIDADE E TEMPO
+    // =========================================================================
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Chamado pelo Spring Security no login (proteção contra session fixation).
+     */
+    @Override
+    public String changeSessionId() {
+        this.id = UUID.randomUUID().toString();
+        return id;
+    }
+
+    @Override
+    public Instant getCreationTime() {
+        return criadaEm;
+    }
+
+    @Override
+    public Instant getLastAccessedTime() {
+        return ultimoAcesso;
+    }
+
+    @Override
+    public void setLastAccessedTime(Instant lastAccessedTime) {
+        this.ultimoAcesso = lastAccessedTime;
+        this.acessoAlterado = true;
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval() {
+        return maxInativo;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(Duration interval) {
+        this.maxInativo = interval;
+        this.atributosAlterados = true;
+    }
+
+    @Override
+    public boolean isExpired() {
+        return isExpirada(Instant.now());
+    }
+
+    boolean isExpirada(Instant agora) {
+        return !maxInativo.isNegative() && agora.isAfter(ultimoAcesso.plus(maxInativo));
+    }
+
+    // =========================================================================
+    // ATRIBUTOS
+    // =========================================================================
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String nome) {
+        if (ATRIBUTO_CONTEXTO.equals(nome)) {
+            return (T) contexto();
+        }
+        if (ATRIBUTO_CSRF.equals(nome)) {
+            return csrfToken != null ? (T) new DefaultCsrfToken(CSRF_HEADER, CSRF_PARAMETRO, csrfToken) : null;
+        }
+        return (T) extras.get(nome);
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+        Set<String> nomes = new HashSet<>(extras.keySet());
+        if (principal != null) {
+            nomes.add(ATRIBUTO_CONTEXTO);
+        }
+        if (csrfToken != null) {
+            nomes.add(ATRIBUTO_CSRF);
+        }
+        return nomes;
+    }
+
+    @Override
+    public void setAttribute(String nome, Object valor) {
+        if (valor == null) {
+            removeAttribute(nome);
+            return;
+        }
+        if (ATRIBUTO_CONTEXTO.equals(nome)) {
+            definirContexto((SecurityContext) valor);
+        } else if (ATRIBUTO_CSRF.equals(nome)) {
+            String token = ((CsrfToken) valor).getToken();
+            atributosAlterados |= !token.equals(csrfToken);
+            csrfToken = token;
+        } else {
+            // Sempre marca: o mesmo objeto pode ter sido alterado por dentro
+            extras.put(nome, valor);
+            atributosAlterados = true;
+        }
+    }
+
+    @Override
+    public void removeAttribute(String nome) {
+        if (ATRIBUTO_CONTEXTO.equals(nome)) {
+            atributosAlterados |= principal != null;
+            principal = null;
+            papeis = List.of();
+            contexto = null;
+        } else if (ATRIBUTO_CSRF.equals(nome)) {
+            atributosAlterados |= csrfToken != null;
+            csrfToken = null;
+        } else {
+            atributosAlterados |= extras.remove(nome) != null;
+        }
+    }
+
+    private void definirContexto(SecurityContext novo) {
+        Authentication auth = novo.getAuthentication();
+        String novoPrincipal = auth != null && auth.isAuthenticated() ? auth.getName() : null;
+        List<String> novosPapeis = novoPrincipal != null
+            ? AuthorityUtils.authorityListToSet(auth.getAuthorities()).stream().sorted().toList()
+            : List.of();
+
+        atributosAlterados |= !Objects.equals(novoPrincipal, principal) || !novosPapeis.equals(papeis);
+        principal = novoPrincipal;
+        papeis = novosPapeis;
+        contexto = novo;
+    }
+
+    private SecurityContext contexto() {
+        if (principal == null) {
+            return null;
+        }
+        if (contexto == null) {
+            List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList(papeis);
+            User usuario = new User(principal, "", authorities);
+            contexto = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(usuario, null, authorities));
+        }
+        return contexto;
+    }
+
+    // =========================================================================
+    // ESTADO PARA O CODEC E OS REPOSITÓRIOS
+    // =========================================================================
+
+    String principal() {
+        return principal;
+    }
+
+    List<String> papeis() {
+        return papeis;
+    }
+
+    String csrfToken() {
+        return csrfToken;
+    }
+
+    Map<String, Object> extras() {
+        return extras;
+    }
+
+    void restaurar(Instant ultimoAcesso, String principal, List<String> papeis, String csrfToken) {
+        this.ultimoAcesso = ultimoAcesso;
+        this.principal = principal;
+        this.papeis = List.copyOf(papeis);
+        this.csrfToken = csrfToken;
+    }
+
+    /**
+     * Avança o último acesso com um valor mais recente do armazenamento, sem
+     * marcar a sessão como alterada.
+     */
+    void restaurarUltimoAcesso(Instant acesso) {
+        if (acesso.isAfter(ultimoAcesso)) {
+            this.ultimoAcesso = acesso;
+        }
+    }
+
+    String idOriginal() {
+        return idOriginal;
+    }
+
+    boolean isNova() {
+        return nova;
+    }
+
+    boolean idAlterado() {
+        return !id.equals(idOriginal);
+    }
+
+    boolean atributosAlterados() {
+        return atributosAlterados;
+    }
+
+    boolean acessoAlterado() {
+        return acessoAlterado;
+    }
+}
@@ -0,0 +1,324 @@
+/**
+ * =============================================================================
+ * 🧬 SessaoCompactaCodec.java - Formato Binário da Sessão
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ Serialização manual com DataOutputStream (sem Java Serialization)
+ * ✅ Papéis comuns codificados em 1 byte
+ * ✅ Byte de versão para evoluir o formato sem invalidar sessões
+ * ✅ Tipos de atributo fechados: nada é instanciado a partir do banco
+ *
+ * Tecnologias: Java 21, Spring MVC (FlashMap)
+ * =============================================================================
+ */
+
+package com.petdoc.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.FlashMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codifica a {@link SessaoCompacta} em bytes.
+ *
+ * Layout (versão 1):
+ * <pre>
+ * byte    versão
+ * long    criada em (epoch ms)
+ * long    último acesso (epoch ms)
+ * int     máx. inatividade (segundos)
+ * bool    tem principal → texto principal
+ * byte    nº de papéis  → por papel: byte código (0 = texto a seguir)
+ * bool    tem CSRF      → texto token
+ * short   nº de extras  → por extra: texto nome, byte tipo, valor
+ * </pre>
+ *
+ * Texto = int com o tamanho em bytes + UTF-8 (sem o limite de 64 KB do
+ * {@code writeUTF}).
+ *
+ * Atributos extras aceitos: String, Integer, Long, Boolean e a lista de
+ * FlashMap do SessionFlashMapManager (com atributos desses mesmos tipos).
+ * Qualquer outro tipo não é gravado: o atributo vale só até o fim da
+ * requisição e um aviso é logado. Não há volta para a serialização Java:
+ * os bytes vêm da tabela {@code sessao_compacta} e são lidos em toda
+ * requisição autenticada, então a leitura só monta tipos conhecidos.
+ *
+ * Uma sessão autenticada típica ocupa ~90 bytes, contra alguns KB do
+ * SecurityContext serializado pelo Java.
+ */
+final class SessaoCompactaCodec {
+
+    private static final Logger log = LoggerFactory.getLogger(SessaoCompactaCodec.class);
+
+    private static final byte VERSAO = 1;
+
+    /** Papéis frequentes em 1 byte; o índice é o código (0 reservado). */
+    private static final List<String> PAPEIS_CONHECIDOS = List.of("", "ROLE_USER", "ROLE_ADMIN");
+
+    private static final byte TIPO_STRING = 1;
+    private static final byte TIPO_INT = 2;
+    private static final byte TIPO_LONG = 3;
+    private static final byte TIPO_BOOLEAN = 4;
+    private static final byte TIPO_FLASH_MAPS = 5;
+
+    private SessaoCompactaCodec() {
+    }
+
+    static byte[] codificar(SessaoCompacta sessao) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSAO);
+            out.writeLong(sessao.getCreationTime().toEpochMilli());
+            out.writeLong(sessao.getLastAccessedTime().toEpochMilli());
+            out.writeInt((int) sessao.getMaxInactiveInterval().toSeconds());
+
+            escreverOpcional(out, sessao.principal());
+
+            out.writeByte(sessao.papeis().size());
+            for (String papel : sessao.papeis()) {
+                int codigo = PAPEIS_CONHECIDOS.indexOf(papel);
+                out.writeByte(Math.max(codigo, 0));
+                if (codigo <= 0) {
+                    escreverTexto(out, papel);
+                }
+            }
+
+            escreverOpcional(out, sessao.csrfToken());
+
+            escreverAtributos(out, sessao.extras());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao codificar sessão", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static SessaoCompacta decodificar(String id, byte[] dados) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(dados))) {
+            byte versao = in.readByte();
+            if (versao != VERSAO) {
+                throw new IllegalStateException("Versão de sessão desconhecida: " + versao);
+            }
+            Instant criadaEm = Instant.ofEpochMilli(in.readLong());
+            Instant ultimoAcesso = Instant.ofEpochMilli(in.readLong());
+            Duration maxInativo = Duration.ofSeconds(in.readInt());
+
+            String principal = lerOpcional(in);
+
+            int totalPapeis = in.readUnsignedByte();
+            List<String> papeis = new ArrayList<>(totalPapeis);
+            for (int i = 0; i < totalPapeis; i++) {
+                int codigo = in.readUnsignedByte();
+                papeis.add(codigo > 0 ? PAPEIS_CONHECIDOS.get(codigo) : lerTexto(in));
+            }
+
+            String csrfToken = lerOpcional(in);
+
+            SessaoCompacta sessao = new SessaoCompacta(id, criadaEm, maxInativo, false);
+            sessao.restaurar(ultimoAcesso, principal, papeis, csrfToken);
+
+            sessao.extras().putAll(lerAtributos(in));
+            return sessao;
+        } catch (IOException e) {
+            throw new IllegalStateException("Sessão corrompida: " + id, e);
+        }
+    }
+
+    // =========================================================================
+    // ATRIBUTOS
+    // =========================================================================
+
+    /**
+     * Grava os atributos de tipo suportado; os demais são descartados com aviso.
+     */
+    private static void escreverAtributos(DataOutputStream out, Map<String, ?> atributos) throws IOException {
+        List<Map.Entry<String, ?>> gravaveis = new ArrayList<>(atributos.size());
+        for (Map.Entry<String, ?> atributo : atributos.entrySet()) {
+            if (suportado(atributo.getValue())) {
+                gravaveis.add(atributo);
+            } else {
+                log.warn("Atributo de sessão '{}' ({}) não é persistido: tipo não suportado.",
+                         atributo.getKey(), atributo.getValue().getClass().getName());
+            }
+        }
+
+        out.writeShort(gravaveis.size());
+        for (Map.Entry<String, ?> atributo : gravaveis) {
+            escreverTexto(out, atributo.getKey());
+            escreverValor(out, atributo.getValue());
+        }
+    }
+
+    private static Map<String, Object> lerAtributos(DataInputStream in) throws IOException {
+        int total = in.readUnsignedShort();
+        Map<String, Object> atributos = new LinkedHashMap<>(total * 2);
+        for (int i = 0; i < total; i++) {
+            atributos.put(lerTexto(in), lerValor(in));
+        }
+        return atributos;
+    }
+
+    private static boolean suportado(Object valor) {
+        return escalar(valor) || flashMaps(valor);
+    }
+
+    private static boolean escalar(Object valor) {
+        return valor instanceof String || valor instanceof Integer
+            || valor instanceof Long || valor instanceof Boolean;
+    }
+
+    private static boolean flashMaps(Object valor) {
+        return valor instanceof List<?> lista && lista.stream().allMatch(FlashMap.class::isInstance);
+    }
+
+    private static void escreverValor(DataOutputStream out, Object valor) throws IOException {
+        switch (valor) {
+            case String texto -> {
+                out.writeByte(TIPO_STRING);
+                escreverTexto(out, texto);
+            }
+            case Integer numero -> {
+                out.writeByte(TIPO_INT);
+                out.writeInt(numero);
+            }
+            case Long numero -> {
+                out.writeByte(TIPO_LONG);
+                out.writeLong(numero);
+            }
+            case Boolean logico -> {
+                out.writeByte(TIPO_BOOLEAN);
+                out.writeBoolean(logico);
+            }
+            case List<?> lista -> {
+                out.writeByte(TIPO_FLASH_MAPS);
+                out.writeShort(lista.size());
+                for (Object item : lista) {
+                    escreverFlashMap(out, (FlashMap) item);
+                }
+            }
+            default -> throw new IllegalArgumentException("Tipo de atributo não suportado: " + valor.getClass());
+        }
+    }
+
+    private static Object lerValor(DataInputStream in) throws IOException {
+        byte tipo = in.readByte();
+        return switch (tipo) {
+            case TIPO_STRING -> lerTexto(in);
+            case TIPO_INT -> in.readInt();
+            case TIPO_LONG -> in.readLong();
+            case TIPO_BOOLEAN -> in.readBoolean();
+            case TIPO_FLASH_MAPS -> {
+                int total = in.readUnsignedShort();
+                List<FlashMap> lista = new ArrayList<>(total);
+                for (int i = 0; i < total; i++) {
+                    lista.add(lerFlashMap(in));
+                }
+                yield lista;
+            }
+            default -> throw new IllegalStateException("Tipo de atributo desconhecido: " + tipo);
+        };
+    }
+
+    /**
+     * FlashMap: caminho e parâmetros de destino, expiração e atributos
+     * (só os escalares; um DTO de formulário, por exemplo, é descartado).
+     */
+    private static void escreverFlashMap(DataOutputStream out, FlashMap flash) throws IOException {
+        escreverOpcional(out, flash.getTargetRequestPath());
+
+        out.writeShort(flash.getTargetRequestParams().size());
+        for (Map.Entry<String, List<String>> parametro : flash.getTargetRequestParams().entrySet()) {
+            escreverTexto(out, parametro.getKey());
+            out.writeShort(parametro.getValue().size());
+            for (String valor : parametro.getValue()) {
+                escreverOpcional(out, valor);
+            }
+        }
+
+        out.writeLong(flash.getExpirationTime());
+
+        Map<String, Object> escalares = new LinkedHashMap<>();
+        flash.forEach((nome, valor) -> {
+            if (escalar(valor)) {
+                escalares.put(nome, valor);
+            } else if (valor != null) {
+                log.warn("Atributo flash '{}' ({}) não é persistido: tipo não suportado.",
+                         nome, valor.getClass().getName());
+            }
+        });
+        escreverAtributos(out, escalares);
+    }
+
+    private static FlashMap lerFlashMap(DataInputStream in) throws IOException {
+        FlashMap flash = new FlashMap();
+        flash.setTargetRequestPath(lerOpcional(in));
+
+        int totalParametros = in.readUnsignedShort();
+        for (int i = 0; i < totalParametros; i++) {
+            String nome = lerTexto(in);
+            int totalValores = in.readUnsignedShort();
+            for (int j = 0; j < totalValores; j++) {
+                flash.addTargetRequestParam(nome, lerOpcional(in));
+            }
+        }
+
+        flash.setExpirationTime(in.readLong());
+
+        Map<String, Object> atributos = lerAtributos(in);
+        for (Object valor : atributos.values()) {
+            if (!escalar(valor)) {
+                throw new IllegalStateException("Atributo flash com tipo inválido: " + valor.getClass());
+            }
+        }
+        flash.putAll(atributos);
+        return flash;
+    }
+
+    // =========================================================================
+    // AUXILIARES
+    // =========================================================================
+
+    private static void escreverOpcional(DataOutputStream out, String valor) throws IOException {
+        out.writeBoolean(valor != null);
+        if (valor != null) {
+            escreverTexto(out, valor);
+        }
+    }
+
+    private static String lerOpcional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? lerTexto(in) : null;
+    }
+
+    /**
+     * Tamanho em bytes + UTF-8. Ao contrário do writeUTF, aceita textos
+     * acima de 64 KB.
+     */
+    private static void escreverTexto(DataOutputStream out, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String lerTexto(DataInputStream in) throws IOException {
+        int tamanho = in.readInt();
+        if (tamanho < 0 || tamanho > in.available()) {
+            throw new EOFException("Texto de " + tamanho + " bytes além do fim da sessão");
+        }
+        return new String(in.readNBytes(tamanho), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * =============================================================================
+ * 🪪 SessaoConfig.java - Repositório de Sessões Externo e Compacto
+ * =============================================================================
+ *
+ * Esta configuração demonstra:
+ * ✅ Spring Session com SessionRepository próprio (@EnableSpringHttpSession)
+ * ✅ Seleção do armazenamento por propriedade (jdbc ou memoria)
+ * ✅ Reuso do timeout padrão do Spring Boot (server.servlet.session.timeout)
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Session
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import com.petdoc.session.JdbcSessaoCompactaRepository;
+import com.petdoc.session.MemoriaSessaoCompactaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import java.time.Duration;
+
+/**
+ * Tira as sessões do heap do container.
+ *
+ * Com {@code app.sessao.armazenamento} definido, o SessionRepositoryFilter
+ * do Spring Session substitui a HttpSession do Tomcat. O login por
+ * formulário, o SecurityConfig e os controllers não mudam.
+ *
+ * - {@code jdbc}: tabela {@code sessao_compacta}; qualquer instância do
+ *   App Runner atende qualquer requisição (sem sticky session)
+ * - {@code memoria}: mesmo formato, em um mapa local (testes, dev)
+ *
+ * Sem a propriedade, a HttpSession padrão do container continua em uso.
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "app.sessao.armazenamento")
+public class SessaoConfig {
+
+    @Value("${app.sessao.timeout:${server.servlet.session.timeout:PT30M}}")
+    private Duration timeout;
+
+    @Bean
+    @ConditionalOnProperty(name = "app.sessao.armazenamento", havingValue = "jdbc")
+    public JdbcSessaoCompactaRepository sessionRepository(JdbcTemplate jdbcTemplate) {
+        return new JdbcSessaoCompactaRepository(jdbcTemplate, timeout);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.sessao.armazenamento", havingValue = "memoria")
+    public MemoriaSessaoCompactaRepository memoriaSessionRepository() {
+        return new MemoriaSessaoCompactaRepository(timeout);
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * =============================================================================
+ * 🚦 TentativasLoginService.java - Limite de Falhas de Login por Conta e IP
+ * =============================================================================
+ *
+ * Este serviço demonstra:
+ * ✅ Eventos de autenticação do Spring Security (@EventListener)
+ * ✅ Janelas fixas em ConcurrentHashMap (sem dependência externa)
+ * ✅ Espera crescente por conta, vinda de qualquer IP, sem bloqueio longo
+ * ✅ Bloqueio consultado ANTES do hash, pelo LoginThrottleFilter
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3, Spring Security 6
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conta falhas de login por (e-mail, IP), por e-mail e por IP.
+ *
+ * Uma enxurrada de senhas erradas custava um BCrypt completo por tentativa.
+ * Com o limite, a tentativa é recusada pelo filtro sem chegar ao
+ * PasswordEncoder:
+ *
+ * - Conta + IP: {@code max-falhas-conta} (padrão 5) por janela; bloqueia o
+ *   IP que erra a senha daquela conta até a janela acabar
+ * - Conta, de qualquer IP: a partir de {@code max-falhas-conta-total}
+ *   (padrão 10) falhas na janela, cada nova tentativa espera o dobro da
+ *   anterior desde a última falha ({@code espera-inicial} 1 s, até
+ *   {@code espera-maxima} 5 min); barra o ataque a uma conta vindo de
+ *   muitos IPs
+ * - IP: {@code max-falhas-ip} (padrão 30) por janela; barra quem varre contas
+ *
+ * O contador conta + IP bloqueia só a origem: errar a senha de alguém a
+ * partir de outra máquina não bloqueia o login do próprio tutor. O contador
+ * só por conta não bloqueia a janela inteira: com a espera crescente, o
+ * tutor atacado ainda entra alguns minutos depois, enquanto o atacante
+ * fica limitado a poucas tentativas por janela, qualquer que seja a
+ * quantidade de IPs.
+ *
+ * Login bem-sucedido zera os contadores da conta (não o do IP).
+ * Contadores são por instância: com N instâncias o limite efetivo é até N
+ * vezes maior, o que basta para o objetivo (poupar CPU).
+ */
+@Service
+public class TentativasLoginService {
+
+    private static final Logger log = LoggerFactory.getLogger(TentativasLoginService.class);
+
+    private record Janela(Instant inicio, int falhas, Instant ultimaFalha) {
+    }
+
+    @Value("${app.login.limite.max-falhas-conta:5}")
+    private int maxFalhasConta;
+
+    @Value("${app.login.limite.max-falhas-conta-total:10}")
+    private int maxFalhasContaTotal;
+
+    @Value("${app.login.limite.espera-inicial:PT1S}")
+    private Duration esperaInicial;
+
+    @Value("${app.login.limite.espera-maxima:PT5M}")
+    private Duration esperaMaxima;
+
+    @Value("${app.login.limite.max-falhas-ip:30}")
+    private int maxFalhasIp;
+
+    @Value("${app.login.limite.janela:PT15M}")
+    private Duration janela;
+
+    private final Map<String, Janela> porContaEIp = new ConcurrentHashMap<>();
+    private final Map<String, Janela> porConta = new ConcurrentHashMap<>();
+    private final Map<String, Janela> porIp = new ConcurrentHashMap<>();
+
+    /**
+     * @return tempo restante de bloqueio ou espera, se a conta (neste IP ou
+     *         em geral) ou o IP estiverem limitados
+     */
+    public Optional<Duration> bloqueio(String email, String ip) {
+        Instant agora = Instant.now();
+        if (email != null) {
+            Optional<Duration> contaEIp = restante(porContaEIp.get(chaveContaEIp(email, ip)), maxFalhasConta, agora);
+            if (contaEIp.isPresent()) {
+                return contaEIp;
+            }
+            Optional<Duration> conta = espera(porConta.get(chaveConta(email)), agora);
+            if (conta.isPresent()) {
+                return conta;
+            }
+        }
+        return restante(porIp.get(ip), maxFalhasIp, agora);
+    }
+
+    // =========================================================================
+    // EVENTOS DO SPRING SECURITY
+    // =========================================================================
+
+    @EventListener
+    public void onFalha(AuthenticationFailureBadCredentialsEvent evento) {
+        Instant agora = Instant.now();
+        String email = evento.getAuthentication().getName();
+        String ip = ip(evento.getAuthentication().getDetails());
+        if (email != null) {
+            registrarFalha(porContaEIp, chaveContaEIp(email, ip), agora);
+            int falhasConta = registrarFalha(porConta, chaveConta(email), agora);
+            if (falhasConta == maxFalhasContaTotal) {
+                log.warn("Conta {} com {} falhas de login na janela; tentativas passam a esperar.",
+                         email, falhasConta);
+            }
+        }
+        if (ip != null) {
+            int falhasIp = registrarFalha(porIp, ip, agora);
+            if (falhasIp == maxFalhasIp) {
+                log.warn("IP {} bloqueado para login após {} falhas.", ip, falhasIp);
+            }
+        }
+    }
+
+    @EventListener
+    public void onSucesso(AuthenticationSuccessEvent evento) {
+        String email = evento.getAuthentication().getName();
+        porContaEIp.remove(chaveContaEIp(email, ip(evento.getAuthentication().getDetails())));
+        porConta.remove(chaveConta(email));
+    }
+
+    /**
+     * Descarta janelas vencidas para o mapa não crescer indefinidamente.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void limparJanelasVencidas() {
+        Instant limite = Instant.now().minus(janela);
+        porContaEIp.values().removeIf(j -> j.inicio().isBefore(limite));
+        porConta.values().removeIf(j -> j.inicio().isBefore(limite));
+        porIp.values().removeIf(j -> j.inicio().isBefore(limite));
+    }
+
+    // =========================================================================
+    // AUXILIARES
+    // =========================================================================
+
+    private int registrarFalha(Map<String, Janela> mapa, String chave, Instant agora) {
+        Janela atualizada = mapa.compute(chave, (k, atual) ->
+            atual == null || vencida(atual, agora)
+                ? new Janela(agora, 1, agora)
+                : new Janela(atual.inicio(), atual.falhas() + 1, agora));
+        return atualizada.falhas();
+    }
+
+    private Optional<Duration> restante(Janela atual, int maximo, Instant agora) {
+        if (atual == null || atual.falhas() < maximo || vencida(atual, agora)) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.between(agora, atual.inicio().plus(janela)));
+    }
+
+    /**
+     * Espera da conta: {@code esperaInicial} na falha de número
+     * {@code maxFalhasContaTotal}, dobrando a cada falha seguinte, contada
+     * a partir da última falha e limitada a {@code esperaMaxima}.
+     */
+    private Optional<Duration> espera(Janela atual, Instant agora) {
+        if (atual == null || atual.falhas() < maxFalhasContaTotal || vencida(atual, agora)) {
+            return Optional.empty();
+        }
+        int dobras = Math.min(atual.falhas() - maxFalhasContaTotal, 20);
+        Duration espera = esperaInicial.multipliedBy(1L << dobras);
+        if (espera.compareTo(esperaMaxima) > 0) {
+            espera = esperaMaxima;
+        }
+        Duration restante = Duration.between(agora, atual.ultimaFalha().plus(espera));
+        return restante.isNegative() || restante.isZero() ? Optional.empty() : Optional.of(restante);
+    }
+
+    private boolean vencida(Janela atual, Instant agora) {
+        return !agora.isBefore(atual.inicio().plus(janela));
+    }
+
+    /**
+     * Chave do contador da conta em todos os IPs: e-mail normalizado.
+     */
+    private static String chaveConta(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Chave do contador da conta por origem: e-mail normalizado + IP.
+     */
+    private static String chaveContaEIp(String email, String ip) {
+        return chaveConta(email) + "|" + ip;
+    }
+
+    private static String ip(Object detalhes) {
+        return detalhes instanceof WebAuthenticationDetails web ? web.getRemoteAddress() : null;
+    }
+}
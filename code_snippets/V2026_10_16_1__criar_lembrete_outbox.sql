@@ -0,0 +1,46 @@
+-- =============================================================================
+-- 📮 Outbox de lembretes de reforço
+-- =============================================================================
+-- Cada linha é um lembrete a enviar, identificado por (vacina, antecedência,
+-- data de referência). A UNIQUE torna o produtor idempotente: várias
+-- instâncias podem rodar o scheduler no mesmo dia sem duplicar envios.
+--
+-- Os dados do e-mail são copiados no momento da produção, para que os
+-- workers não precisem reabrir Vacina → Pet → Tutor.
+-- =============================================================================
+
+CREATE TABLE lembrete_outbox (
+    id                   BIGSERIAL    PRIMARY KEY,
+    vacina_id            BIGINT       NOT NULL,
+    dias_antecedencia    INTEGER      NOT NULL,
+    data_referencia      DATE         NOT NULL,
+
+    email_para           VARCHAR(255) NOT NULL,
+    nome_tutor           VARCHAR(255),
+    nome_pet             VARCHAR(255),
+    nome_vacina          VARCHAR(255),
+    data_reforco         DATE         NOT NULL,
+
+    status               VARCHAR(20)  NOT NULL DEFAULT 'PENDENTE',
+    tentativas           INTEGER      NOT NULL DEFAULT 0,
+    proxima_tentativa_em TIMESTAMP    NOT NULL DEFAULT now(),
+    reservado_por        VARCHAR(100),
+    reservado_em         TIMESTAMP,
+    enviado_em           TIMESTAMP,
+    ultimo_erro          TEXT,
+    criado_em            TIMESTAMP    NOT NULL DEFAULT now(),
+
+    CONSTRAINT uk_lembrete_outbox UNIQUE (vacina_id, dias_antecedencia, data_referencia),
+    CONSTRAINT ck_lembrete_outbox_status
+        CHECK (status IN ('PENDENTE', 'PROCESSANDO', 'ENVIADO', 'FALHA'))
+);
+
+-- Índice parcial: os workers só varrem o que ainda precisa ser enviado
+CREATE INDEX idx_lembrete_outbox_pendentes
+    ON lembrete_outbox (proxima_tentativa_em, id)
+    WHERE status = 'PENDENTE';
+
+-- Recuperação de reservas de workers que caíram no meio do lote
+CREATE INDEX idx_lembrete_outbox_processando
+    ON lembrete_outbox (reservado_em)
+    WHERE status = 'PROCESSANDO';
@@ -0,0 +1,36 @@
+-- =============================================================================
+-- 📊 Resumo de KPIs do dashboard por tutor
+-- =============================================================================
+-- Uma linha por tutor com os contadores exibidos no dashboard. A linha é
+-- recalculada quando uma vacina do tutor muda (DashboardKpiService) e na
+-- virada do dia, junto com o scheduler de lembretes.
+--
+-- data_referencia = dia em que "vencida" e "lembrete ativo" foram avaliados.
+-- Linhas com data_referencia < hoje ainda não passaram pela virada.
+--
+-- lembretes_ativos = reforços entre hoje e hoje + 15 dias (janela do D-15).
+-- =============================================================================
+
+CREATE TABLE dashboard_kpi (
+    tutor_id          BIGINT    PRIMARY KEY REFERENCES tutor (id) ON DELETE CASCADE,
+    total_vacinas     INTEGER   NOT NULL DEFAULT 0,
+    vacinas_vencidas  INTEGER   NOT NULL DEFAULT 0,
+    lembretes_ativos  INTEGER   NOT NULL DEFAULT 0,
+    data_referencia   DATE      NOT NULL,
+    atualizado_em     TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Contagem de vencidas e da janela de lembretes por data de reforço
+CREATE INDEX IF NOT EXISTS idx_vacina_data_reforco ON vacina (data_reforco);
+
+-- Carga inicial com os dados existentes
+INSERT INTO dashboard_kpi (tutor_id, total_vacinas, vacinas_vencidas, lembretes_ativos, data_referencia)
+SELECT t.id,
+       COUNT(v.id),
+       COUNT(v.id) FILTER (WHERE v.data_reforco < CURRENT_DATE),
+       COUNT(v.id) FILTER (WHERE v.data_reforco BETWEEN CURRENT_DATE AND CURRENT_DATE + 15),
+       CURRENT_DATE
+  FROM tutor t
+  LEFT JOIN pet p    ON p.tutor_id = t.id
+  LEFT JOIN vacina v ON v.pet_id = p.id
+ GROUP BY t.id;
@@ -0,0 +1,36 @@
+-- =============================================================================
+-- 🏷️ Versão dos dados de referência (hoje: raças)
+-- =============================================================================
+-- O DadosReferenciaCache mantém esses dados em memória e consulta esta tabela
+-- periodicamente: quando a versão de um conjunto muda, as entradas dele são
+-- descartadas e recarregadas.
+--
+-- O trigger incrementa a versão a cada INSERT/UPDATE/DELETE na tabela de
+-- origem, então migrations de dados do Flyway (V..__atualizar_racas.sql)
+-- invalidam o cache de todas as instâncias sem nenhum passo extra.
+-- Novos conjuntos: inserir a linha aqui e criar o trigger na tabela, que
+-- deve ser de referência (não há catálogo de vacinas: o nome da vacina é
+-- texto livre em vacina, escrita a todo momento pelos tutores).
+-- =============================================================================
+
+CREATE TABLE dados_referencia_versao (
+    nome          VARCHAR(50) PRIMARY KEY,
+    versao        BIGINT      NOT NULL DEFAULT 1,
+    atualizado_em TIMESTAMP   NOT NULL DEFAULT now()
+);
+
+INSERT INTO dados_referencia_versao (nome) VALUES ('racas');
+
+CREATE FUNCTION incrementar_versao_referencia() RETURNS trigger AS $$
+BEGIN
+    UPDATE dados_referencia_versao
+       SET versao = versao + 1, atualizado_em = now()
+     WHERE nome = TG_ARGV[0];
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- FOR EACH STATEMENT: uma migration que insere 300 raças gera um único incremento
+CREATE TRIGGER trg_raca_versao_referencia
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON raca
+    FOR EACH STATEMENT EXECUTE FUNCTION incrementar_versao_referencia('racas');
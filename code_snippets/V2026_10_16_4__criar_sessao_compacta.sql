@@ -0,0 +1,20 @@
+-- =============================================================================
+-- 🪪 Sessões HTTP compactas compartilhadas entre instâncias
+-- =============================================================================
+-- dados = SessaoCompacta em formato binário (SessaoCompactaCodec), ~90 bytes
+-- para uma sessão autenticada.
+--
+-- ultimo_acesso/expira_em são atualizados em lote (write-behind) pelo
+-- JdbcSessaoCompactaRepository; o conteúdo só é regravado quando muda.
+-- =============================================================================
+
+CREATE TABLE sessao_compacta (
+    id                   VARCHAR(36) PRIMARY KEY,
+    dados                BYTEA       NOT NULL,
+    ultimo_acesso        TIMESTAMP   NOT NULL,
+    max_inativo_segundos INTEGER     NOT NULL,
+    expira_em            TIMESTAMP   NOT NULL
+);
+
+-- Limpeza periódica de sessões expiradas
+CREATE INDEX idx_sessao_compacta_expira_em ON sessao_compacta (expira_em);
@@ -0,0 +1,42 @@
+-- =============================================================================
+-- 📬 Resumos de lembretes (um e-mail por tutor)
+-- =============================================================================
+-- Cada linha de lembrete_digest é um e-mail enviado (ou que falhou) com os
+-- lembretes de um tutor em uma execução. lembrete_digest_item guarda os
+-- pares (vacina, antecedência) cobertos, para auditoria e suporte:
+-- "o tutor foi avisado da V10 do Rex no D-7?"
+--
+-- No modo outbox, os itens da fila apontam para o resumo que os entregou.
+-- =============================================================================
+
+CREATE TABLE lembrete_digest (
+    id                BIGSERIAL    PRIMARY KEY,
+    email_para        VARCHAR(255) NOT NULL,
+    data_referencia   DATE         NOT NULL,
+    status            VARCHAR(20)  NOT NULL,
+    tentativas        INTEGER      NOT NULL,
+    total_itens       INTEGER      NOT NULL,
+    ultimo_erro       TEXT,
+    enviado_em        TIMESTAMP,
+    criado_em         TIMESTAMP    NOT NULL DEFAULT now(),
+
+    CONSTRAINT ck_lembrete_digest_status CHECK (status IN ('ENVIADO', 'FALHA'))
+);
+
+CREATE INDEX idx_lembrete_digest_email
+    ON lembrete_digest (email_para, data_referencia);
+
+CREATE TABLE lembrete_digest_item (
+    digest_id         BIGINT       NOT NULL REFERENCES lembrete_digest (id) ON DELETE CASCADE,
+    vacina_id         BIGINT       NOT NULL,
+    dias_antecedencia INTEGER      NOT NULL,
+
+    PRIMARY KEY (digest_id, vacina_id, dias_antecedencia)
+);
+
+-- Consulta de suporte: em quais resumos esta vacina apareceu
+CREATE INDEX idx_lembrete_digest_item_vacina
+    ON lembrete_digest_item (vacina_id);
+
+ALTER TABLE lembrete_outbox
+    ADD COLUMN digest_id BIGINT REFERENCES lembrete_digest (id);
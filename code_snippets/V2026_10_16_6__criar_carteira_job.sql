@@ -0,0 +1,42 @@
+-- =============================================================================
+-- 🧾 Jobs assíncronos de geração da carteira digital
+-- =============================================================================
+-- Cada linha é um pedido de PDF feito pela API de jobs. O estado e o PDF
+-- pronto ficam no banco para que o polling e o download funcionem em
+-- qualquer instância do App Runner, não só na que renderizou.
+--
+-- O PDF fica disponível até expira_em (TTL contado a partir da conclusão);
+-- depois a linha inteira é removida pela limpeza agendada. Jobs em aberto
+-- não são removidos: primeiro viram FALHA por abandono, contado a partir
+-- de criado_em (PENDENTE, na fila) ou de iniciado_em (PROCESSANDO).
+-- =============================================================================
+
+CREATE TABLE carteira_job (
+    id               UUID         PRIMARY KEY,
+    email_tutor      VARCHAR(255) NOT NULL,
+    pet_id           BIGINT       NOT NULL,
+    status           VARCHAR(20)  NOT NULL DEFAULT 'PENDENTE',
+    notificar_email  BOOLEAN      NOT NULL DEFAULT FALSE,
+    nome_arquivo     VARCHAR(255),
+    pdf              BYTEA,
+    erro             TEXT,
+    criado_em        TIMESTAMP    NOT NULL DEFAULT now(),
+    iniciado_em      TIMESTAMP,
+    concluido_em     TIMESTAMP,
+    expira_em        TIMESTAMP    NOT NULL,
+
+    CONSTRAINT ck_carteira_job_status
+        CHECK (status IN ('PENDENTE', 'PROCESSANDO', 'CONCLUIDO', 'FALHA'))
+);
+
+-- Limpeza por TTL
+CREATE INDEX idx_carteira_job_expira ON carteira_job (expira_em);
+
+-- Jobs presos em instâncias que caíram (na fila ou durante a renderização)
+CREATE INDEX idx_carteira_job_pendente
+    ON carteira_job (criado_em)
+    WHERE status = 'PENDENTE';
+
+CREATE INDEX idx_carteira_job_processando
+    ON carteira_job (iniciado_em)
+    WHERE status = 'PROCESSANDO';
@@ -0,0 +1,29 @@
+/**
+ * =============================================================================
+ * 📣 VacinaAlteradaEvent.java - Evento de Domínio de Alteração de Vacina
+ * =============================================================================
+ *
+ * Este evento demonstra:
+ * ✅ Uso de Java Records como eventos imutáveis
+ * ✅ Desacoplamento entre serviços via ApplicationEventPublisher
+ *
+ * Tecnologias: Java 21, Spring Boot 3.3
+ * =============================================================================
+ */
+
+package com.petdoc.event;
+
+/**
+ * Publicado pelo VacinaService sempre que uma vacina é criada, editada ou
+ * removida.
+ *
+ * Exemplo de publicação:
+ * <pre>
+ * eventPublisher.publishEvent(new VacinaAlteradaEvent(pet.getId(), vacina.getId()));
+ * </pre>
+ *
+ * @param petId Pet dono da vacina alterada
+ * @param vacinaId Vacina criada, editada ou removida
+ */
+public record VacinaAlteradaEvent(Long petId, Long vacinaId) {
+}
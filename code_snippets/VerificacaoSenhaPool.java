@@ -0,0 +1,125 @@
+/**
+ * =============================================================================
+ * 🔑 VerificacaoSenhaPool.java - Pool Limitado para Hash de Senha
+ * =============================================================================
+ *
+ * Este componente demonstra:
+ * ✅ ThreadPoolExecutor dedicado ao BCrypt (mesmo padrão do PdfRenderPool)
+ * ✅ Backpressure: login rejeitado na hora quando o pool e a fila estão cheios
+ * ✅ Decorator de PasswordEncoder, transparente para o Spring Security
+ *
+ * Tecnologias: Java 21, Spring Security 6
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executa encode/matches em um pool com poucas threads.
+ *
+ * Antes, cada login rodava o BCrypt na thread do Tomcat; uma rajada de
+ * logins (8h, quando saem os lembretes com o link do dashboard) ocupava
+ * todos os núcleos e a API inteira ficava lenta. Agora:
+ *
+ * - No máximo {@code threads} hashes rodam ao mesmo tempo (padrão: metade dos núcleos)
+ * - Até {@code fila} verificações aguardam
+ * - Acima disso, ou após {@code espera-maxima}, o login falha com
+ *   AuthenticationServiceException (tela de login com erro, sem 500)
+ *
+ * A thread da requisição ainda aguarda o resultado, mas a CPU gasta com
+ * hash fica limitada e o restante da API continua respondendo.
+ */
+public class VerificacaoSenhaPool implements PasswordEncoder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VerificacaoSenhaPool.class);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration esperaMaxima;
+
+    public VerificacaoSenhaPool(PasswordEncoder delegate, int threads, int fila, Duration esperaMaxima) {
+        this.delegate = delegate;
+        this.esperaMaxima = esperaMaxima;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            threads, threads,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(fila),
+            runnable -> {
+                Thread thread = new Thread(runnable, "senha-hash-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        log.info("Pool de verificação de senha: {} thread(s), fila de {}.", threads, fila);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executar(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executar(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Só inspeciona o prefixo/custo do hash: barato, roda na própria thread
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T executar(Callable<T> operacao) {
+        Future<T> tarefa;
+        try {
+            tarefa = executor.submit(operacao);
+        } catch (RejectedExecutionException e) {
+            log.warn("Pool de senha saturado ({} ativos, {} na fila). Login rejeitado.",
+                     executor.getActiveCount(), executor.getQueue().size());
+            throw new AuthenticationServiceException("Muitos logins simultâneos, tente novamente");
+        }
+
+        try {
+            return tarefa.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            tarefa.cancel(true);
+            throw new AuthenticationServiceException("Tempo esgotado na verificação de senha", e);
+        } catch (InterruptedException e) {
+            tarefa.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Verificação de senha interrompida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new AuthenticationServiceException("Erro na verificação de senha", causa);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
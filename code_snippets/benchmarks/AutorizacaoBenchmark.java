@@ -0,0 +1,100 @@
+/**
+ * =============================================================================
+ * ⏱️ AutorizacaoBenchmark.java - Benchmark das Regras de Acesso por URL
+ * =============================================================================
+ *
+ * Este benchmark demonstra:
+ * ✅ Trie (AutorizacaoPorPrefixo) vs lista linear de requestMatchers
+ * ✅ Custo por URL: início da lista, meio da lista e anyRequest()
+ *
+ * Tecnologias: Java 21, JMH, Spring Security 6, Spring Test
+ * =============================================================================
+ */
+
+package com.petdoc.benchmark;
+
+import com.petdoc.config.AutorizacaoPorPrefixo;
+import com.petdoc.config.SecurityConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Mede a decisão de acesso de uma requisição já autenticada (ROLE_USER).
+ *
+ * A referência linear usa AntPathRequestMatcher, mais barato que o
+ * MvcRequestMatcher que o {@code requestMatchers(String...)} criava com o
+ * Spring MVC no classpath; a diferença real em produção é maior que a medida.
+ *
+ * Caminhos:
+ * - {@code /login}: primeira regra (melhor caso da lista)
+ * - {@code /api/pets/42/vacinas}: regra no meio da lista
+ * - {@code /ajuda}: última regra
+ * - {@code /notificacoes/pendentes}: nenhuma regra, cai no anyRequest()
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutorizacaoBenchmark {
+
+    @Param({"/login", "/api/pets/42/vacinas", "/ajuda", "/notificacoes/pendentes"})
+    private String caminho;
+
+    private AuthorizationManager<RequestAuthorizationContext> trie;
+    private AuthorizationManager<RequestAuthorizationContext> linear;
+    private RequestAuthorizationContext contexto;
+    private Supplier<Authentication> autenticacao;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        AutorizacaoPorPrefixo regras = SecurityConfig.regrasDeAutorizacao();
+        trie = regras;
+        linear = regras.comoListaLinear();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", caminho);
+        request.setServletPath(caminho);
+        contexto = new RequestAuthorizationContext(request);
+
+        Authentication tutor = UsernamePasswordAuthenticationToken.authenticated(
+            "tutor@petdoc.com", null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        autenticacao = () -> tutor;
+
+        // As duas versões precisam decidir igual antes de comparar tempos
+        if (trie.check(autenticacao, contexto).isGranted() != linear.check(autenticacao, contexto).isGranted()) {
+            throw new IllegalStateException("Trie e lista linear divergem para " + caminho);
+        }
+    }
+
+    @Benchmark
+    public AuthorizationDecision trie() {
+        return trie.check(autenticacao, contexto);
+    }
+
+    @Benchmark
+    public AuthorizationDecision listaLinear() {
+        return linear.check(autenticacao, contexto);
+    }
+}
@@ -0,0 +1,287 @@
+/**
+ * =============================================================================
+ * 🧪 BenchmarkFixtures.java - Dados e Dublês dos Benchmarks JMH
+ * =============================================================================
+ *
+ * Este arquivo demonstra:
+ * ✅ Contexto Spring mínimo (AnnotationConfigApplicationContext) sem Boot
+ * ✅ Repositórios em memória e JavaMailSender falso (sem banco, sem SMTP)
+ * ✅ Dublês de EntityManager e PlatformTransactionManager sem efeito
+ * ✅ SimpleMeterRegistry para inspecionar as métricas sem Prometheus
+ *
+ * Tecnologias: Java 21, Spring Framework 6, JMH
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.petdoc.model.Pet;
+import com.petdoc.model.Tutor;
+import com.petdoc.model.Vacina;
+import com.petdoc.repository.DashboardKpiRepository;
+import com.petdoc.repository.LembreteDigestRepository;
+import com.petdoc.repository.LembreteOutboxRepository;
+import com.petdoc.repository.LembreteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Monta os serviços reais da aplicação com dublês apenas nas bordas
+ * (banco, SMTP, transações), para medir o custo de CPU e alocação do
+ * código da PetDoc isoladamente.
+ *
+ * A construção das entidades fica concentrada aqui: se o modelo mudar,
+ * só este arquivo precisa ser ajustado.
+ */
+@Configuration
+@Import({
+    PdfAssetRegistry.class, CarteiraPdfCache.class, PdfRenderPool.class, CarteiraDigitalService.class,
+    LembreteDispatcher.class, LembreteEmailRenderer.class, EmailService.class, LembreteService.class,
+    DashboardKpiService.class
+})
+public class BenchmarkFixtures {
+
+    /**
+     * Propriedades comuns: rate limit desligado na prática (medimos o pipeline,
+     * não a espera) e template de lembrete resolvido pelo ClassLoaderTemplateResolver.
+     */
+    static final Map<String, Object> PROPRIEDADES_PADRAO = Map.of(
+        "app.dashboard.url", "https://petdoc.example/dashboard",
+        "spring.mail.username", "lembretes@petdoc.example",
+        "app.lembretes.template.nome", "lembrete-vacina",
+        "app.lembretes.template.resumo", "lembrete-vacina-resumo",
+        "app.lembretes.envio.taxa-global-por-segundo", "1000000",
+        "app.lembretes.envio.taxa-por-dominio-por-segundo", "1000000",
+        "app.pdf.render.fila", "1024"
+    );
+
+    /**
+     * Sobe o contexto mínimo com as propriedades padrão mais as extras.
+     */
+    static AnnotationConfigApplicationContext iniciar(Map<String, Object> extras) {
+        Map<String, Object> propriedades = new HashMap<>(PROPRIEDADES_PADRAO);
+        propriedades.putAll(extras);
+
+        AnnotationConfigApplicationContext contexto = new AnnotationConfigApplicationContext();
+        contexto.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", propriedades));
+        contexto.getBeanFactory().setConversionService(new DefaultConversionService());
+        contexto.register(BenchmarkFixtures.class);
+        contexto.refresh();
+        return contexto;
+    }
+
+    // =========================================================================
+    // ENTIDADES
+    // =========================================================================
+
+    static Pet pet(long id) {
+        return pet(id, id);
+    }
+
+    /**
+     * Pet de um tutor específico; pets com o mesmo {@code tutorId} têm o
+     * mesmo e-mail e caem no mesmo resumo de lembretes.
+     */
+    static Pet pet(long id, long tutorId) {
+        Tutor tutor = new Tutor();
+        tutor.setNome("Tutor " + tutorId);
+        tutor.setEmail("tutor" + tutorId + "@exemplo" + (tutorId % 5) + ".com");
+
+        Pet pet = new Pet();
+        pet.setId(id);
+        pet.setNome("Pet " + id);
+        pet.setTutor(tutor);
+        return pet;
+    }
+
+    static List<Vacina> vacinas(Pet pet, int quantidade, LocalDate dataReforco) {
+        List<Vacina> vacinas = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Vacina vacina = new Vacina();
+            vacina.setId(pet.getId() * 1000 + i);
+            vacina.setNome("V10 - Dose " + (i + 1));
+            vacina.setDataAplicacao(dataReforco.minusYears(1));
+            vacina.setDataReforco(dataReforco);
+            vacina.setPet(pet);
+            vacinas.add(vacina);
+        }
+        return vacinas;
+    }
+
+    // =========================================================================
+    // DUBLÊS
+    // =========================================================================
+
+    /**
+     * Repositório em memória: devolve as vacinas cujas datas estão no filtro.
+     */
+    static final class LembreteRepositoryEmMemoria implements LembreteRepository {
+
+        final List<Vacina> vacinas = new ArrayList<>();
+
+        @Override
+        public Stream<Vacina> streamByDatasReforcoComPetETutor(Collection<LocalDate> datas) {
+            return vacinas.stream().filter(v -> datas.contains(v.getDataReforco())).sorted(ORDEM);
+        }
+
+        @Override
+        public List<Vacina> findPaginaByDatasReforcoComPetETutor(Collection<LocalDate> datas, String email,
+                                                                 LocalDate data, Long id, Limit limite) {
+            Vacina chave = new Vacina();
+            chave.setId(id);
+            chave.setDataReforco(data);
+            chave.setPet(pet(0, 0));
+            chave.getPet().getTutor().setEmail(email);
+            return streamByDatasReforcoComPetETutor(datas)
+                .filter(v -> ORDEM.compare(v, chave) > 0)
+                .limit(limite.max())
+                .toList();
+        }
+
+        /** Mesma ordem do ORDER BY da consulta: e-mail, data do reforço, id. */
+        private static final Comparator<Vacina> ORDEM = Comparator
+            .comparing((Vacina v) -> v.getPet().getTutor().getEmail())
+            .thenComparing(Vacina::getDataReforco)
+            .thenComparing(Vacina::getId);
+    }
+
+    /**
+     * Registro de resumos sem banco: só conta quantos foram registrados.
+     */
+    static final class LembreteDigestRepositoryEmMemoria extends LembreteDigestRepository {
+
+        final AtomicLong registrados = new AtomicLong();
+
+        LembreteDigestRepositoryEmMemoria() {
+            super(null);
+        }
+
+        @Override
+        public long registrar(LembreteDigest digest, LocalDate dataReferencia,
+                              boolean enviado, int tentativas, String erro) {
+            return registrados.incrementAndGet();
+        }
+    }
+
+    /**
+     * JavaMailSender que não abre conexão; opcionalmente simula a latência SMTP.
+     */
+    static final class MailSenderFalso extends JavaMailSenderImpl {
+
+        volatile long latenciaNanos;
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+            if (latenciaNanos > 0) {
+                LockSupport.parkNanos(latenciaNanos);
+            }
+        }
+    }
+
+    @Bean
+    LembreteRepositoryEmMemoria lembreteRepository() {
+        return new LembreteRepositoryEmMemoria();
+    }
+
+    @Bean
+    MailSenderFalso javaMailSender() {
+        return new MailSenderFalso();
+    }
+
+    @Bean
+    LembreteOutboxRepository lembreteOutboxRepository() {
+        // Não usado no modo direto
+        return new LembreteOutboxRepository(null);
+    }
+
+    @Bean
+    LembreteDigestRepositoryEmMemoria lembreteDigestRepository() {
+        return new LembreteDigestRepositoryEmMemoria();
+    }
+
+    @Bean
+    DashboardKpiRepository dashboardKpiRepository() {
+        // Só usado pelos métodos @Scheduled, fora dos benchmarks
+        return new DashboardKpiRepository(null);
+    }
+
+    @Bean
+    EntityManager entityManager() {
+        // clear() é a única chamada feita pelo LembreteService; tudo vira no-op
+        return (EntityManager) Proxy.newProxyInstance(
+            EntityManager.class.getClassLoader(), new Class<?>[] {EntityManager.class}, (p, m, a) -> null);
+    }
+
+    @Bean
+    PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+    }
+
+    @Bean
+    TemplateEngine templateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+
+    @Bean
+    MeterRegistry meterRegistry() {
+        // As métricas ficam disponíveis via contexto.getBean(MeterRegistry.class)
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    ObjectMapper objectMapper() {
+        return JsonMapper.builder().findAndAddModules().build();
+    }
+}
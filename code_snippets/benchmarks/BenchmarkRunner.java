@@ -0,0 +1,57 @@
+/**
+ * =============================================================================
+ * 🏁 BenchmarkRunner.java - Execução dos Benchmarks com Resultado em JSON
+ * =============================================================================
+ *
+ * Este arquivo demonstra:
+ * ✅ Execução programática do JMH (OptionsBuilder)
+ * ✅ GCProfiler para taxa de alocação (gc.alloc.rate.norm)
+ * ✅ Resultado em JSON comparável entre execuções
+ *
+ * Tecnologias: Java 21, JMH
+ * =============================================================================
+ */
+
+package com.petdoc.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ponto de entrada dos benchmarks.
+ *
+ * Uso:
+ * <pre>
+ * java -jar benchmarks.jar                       # todos
+ * java -jar benchmarks.jar Lembrete target/a.json  # filtro + arquivo de saída
+ * </pre>
+ *
+ * O JSON gerado pode ser comparado com o da versão anterior (ex: no
+ * jmh.morethan.io ou com um script no CI) antes de cada deploy. A métrica
+ * {@code gc.alloc.rate.norm} (bytes alocados por operação) é a mais estável
+ * para detectar regressões de alocação.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String filtro = args.length > 0 ? args[0] : "com\\.petdoc\\..*Benchmark";
+        String saida = args.length > 1 ? args[1] : "target/jmh-result.json";
+
+        Options opcoes = new OptionsBuilder()
+            .include(filtro)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(saida)
+            .shouldFailOnError(true)
+            .build();
+
+        new Runner(opcoes).run();
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * =============================================================================
+ * ⏱️ CarteiraDigitalBenchmark.java - Benchmark da Geração de PDF
+ * =============================================================================
+ *
+ * Este benchmark demonstra:
+ * ✅ JMH com @Param para 1, 20 e 200 vacinas
+ * ✅ Comparação com e sem o cache de PDFs
+ * ✅ Custo da codificação Base64 por requisição vs registro pré-carregado
+ *
+ * Tecnologias: Java 21, JMH, OpenHTMLToPDF 1.0.10
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.petdoc.model.Pet;
+import com.petdoc.model.Vacina;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o caminho completo de {@code gerarCarteiraPDF}: DTO, template,
+ * layout e escrita do PDF.
+ *
+ * - {@code cache=false}: camada de memória com limite 0, toda chamada renderiza
+ * - {@code cache=true}: a partir da segunda chamada o PDF vem do cache
+ *
+ * O PDF é escrito em {@code OutputStream.nullOutputStream()} para que a
+ * alocação medida seja a da geração, não a de um buffer de saída.
+ *
+ * O custo antigo da logo é reproduzido aqui, sem passar pelo
+ * PdfAssetRegistry: o método de carga do registro consome o limite de
+ * memória compartilhado e, repetido pelo JMH, passaria a devolver "" logo
+ * nas primeiras iterações.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CarteiraDigitalBenchmark {
+
+    private static final String CAMINHO_LOGO = "static/images/petdoc-logo_compressed2.png";
+
+    @Param({"1", "20", "200"})
+    private int vacinas;
+
+    @Param({"false", "true"})
+    private boolean cache;
+
+    private AnnotationConfigApplicationContext contexto;
+    private CarteiraDigitalService service;
+    private PdfAssetRegistry assetRegistry;
+    private Pet pet;
+    private List<Vacina> listaVacinas;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = BenchmarkFixtures.iniciar(Map.of(
+            "app.pdf.cache.memoria.max-bytes", cache ? "67108864" : "0",
+            "app.pdf.cache.memoria.max-bytes-entrada", "16777216"
+        ));
+        service = contexto.getBean(CarteiraDigitalService.class);
+        assetRegistry = contexto.getBean(PdfAssetRegistry.class);
+
+        pet = BenchmarkFixtures.pet(1L);
+        listaVacinas = BenchmarkFixtures.vacinas(pet, vacinas, LocalDate.now().plusDays(30));
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public void gerarCarteiraPDF() {
+        service.gerarCarteiraPDF(pet, listaVacinas, "Tutor Benchmark", OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Custo antigo: leitura do Classpath + Base64 a cada PDF.
+     */
+    @Benchmark
+    public String carregarImagemBase64() throws IOException {
+        try (InputStream in = new ClassPathResource(CAMINHO_LOGO).getInputStream()) {
+            return "data:image/png;base64," + Base64.getEncoder().encodeToString(StreamUtils.copyToByteArray(in));
+        }
+    }
+
+    /**
+     * Custo atual: consulta ao mapa imutável do registro.
+     */
+    @Benchmark
+    public String imagemPreCarregada() {
+        return assetRegistry.imagem(PdfAssetRegistry.LOGO_PETDOC);
+    }
+}
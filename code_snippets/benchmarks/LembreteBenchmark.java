@@ -0,0 +1,128 @@
+/**
+ * =============================================================================
+ * ⏱️ LembreteBenchmark.java - Benchmark do Pipeline de Lembretes
+ * =============================================================================
+ *
+ * Este benchmark demonstra:
+ * ✅ Renderização do lembrete-vacina.html: Thymeleaf completo vs pré-compilado
+ * ✅ executarVerificacao com repositório em memória e SMTP falso
+ * ✅ Simulação de latência SMTP para medir o ganho do envio paralelo
+ *
+ * Tecnologias: Java 21, JMH, Thymeleaf
+ * =============================================================================
+ */
+
+package com.petdoc.service;
+
+import com.petdoc.model.Pet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks do LembreteService e do LembreteEmailRenderer.
+ *
+ * {@code executarVerificacao} roda contra {@code reforcos} vacinas em
+ * memória, distribuídas entre D-15, D-7 e D-1, com três pets por tutor (um
+ * em cada período). Com {@code latenciaSmtpMs > 0} cada envio "espera" o
+ * servidor, como em produção. Com {@code digest=true} cada tutor recebe um
+ * único e-mail de resumo em vez de três.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LembreteBenchmark {
+
+    @Param({"300"})
+    private int reforcos;
+
+    @Param({"0", "20"})
+    private long latenciaSmtpMs;
+
+    @Param({"true", "false"})
+    private boolean digest;
+
+    private AnnotationConfigApplicationContext contexto;
+    private LembreteService lembreteService;
+    private LembreteEmailRenderer renderer;
+    private LembreteEmailRenderer rendererSemPreCompilacao;
+    private LembreteVacina lembrete;
+    private LembreteDigest resumo;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = BenchmarkFixtures.iniciar(Map.of("app.lembretes.digest.ativo", String.valueOf(digest)));
+        lembreteService = contexto.getBean(LembreteService.class);
+        renderer = contexto.getBean(LembreteEmailRenderer.class);
+
+        contexto.getBean(BenchmarkFixtures.MailSenderFalso.class).latenciaNanos =
+            TimeUnit.MILLISECONDS.toNanos(latenciaSmtpMs);
+
+        // Popula o repositório em memória com reforços em D-15, D-7 e D-1
+        BenchmarkFixtures.LembreteRepositoryEmMemoria repositorio =
+            contexto.getBean(BenchmarkFixtures.LembreteRepositoryEmMemoria.class);
+        int[] periodos = {15, 7, 1};
+        for (int i = 0; i < reforcos; i++) {
+            Pet pet = BenchmarkFixtures.pet(i, i / periodos.length);
+            repositorio.vacinas.addAll(
+                BenchmarkFixtures.vacinas(pet, 1, LocalDate.now().plusDays(periodos[i % periodos.length])));
+        }
+
+        lembrete = LembreteVacina.de(repositorio.vacinas.get(0), 15);
+        resumo = LembreteDigest.de(List.of(
+            lembrete,
+            LembreteVacina.de(repositorio.vacinas.get(1), 7),
+            LembreteVacina.de(repositorio.vacinas.get(2), 1)));
+
+        // Segunda instância com o fallback para Thymeleaf completo
+        try (AnnotationConfigApplicationContext semPreCompilacao = BenchmarkFixtures.iniciar(
+                Map.of("app.lembretes.template.pre-compilado", "false"))) {
+            rendererSemPreCompilacao = semPreCompilacao.getBean(LembreteEmailRenderer.class);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public String renderizarLembreteThymeleaf() {
+        return rendererSemPreCompilacao.renderizarHtml(lembrete);
+    }
+
+    @Benchmark
+    public String renderizarLembretePreCompilado() {
+        return renderer.renderizarHtml(lembrete);
+    }
+
+    @Benchmark
+    public String renderizarResumo() {
+        return renderer.renderizarHtml(resumo);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void executarVerificacao() {
+        lembreteService.executarVerificacao(15, 7, 1);
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * =============================================================================
+ * ⏱️ PasswordEncoderBenchmark.java - Benchmark do BCrypt
+ * =============================================================================
+ *
+ * Este benchmark demonstra:
+ * ✅ Custo de BCryptPasswordEncoder.matches por fator de custo (strength)
+ * ✅ Base para dimensionar a CPU necessária em picos de login
+ *
+ * Tecnologias: Java 21, JMH, Spring Security 6
+ * =============================================================================
+ */
+
+package com.petdoc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede {@code matches} (o que roda a cada login) para cada custo.
+ * Cada incremento de custo dobra o tempo; o SenhaConfig calibra o custo na
+ * subida (piso 10) e estes números ajudam a escolher o alvo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String SENHA = "S3nh@-Do-Tutor";
+
+    @Param({"4", "8", "10", "12"})
+    private int custo;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        encoder = new BCryptPasswordEncoder(custo);
+        hash = encoder.encode(SENHA);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(SENHA, hash);
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * =============================================================================
+ * 🧪 AutorizacaoPorPrefixoTest.java - Equivalência da Trie com a Lista Linear
+ * =============================================================================
+ *
+ * Este teste demonstra:
+ * ✅ Mesma decisão da trie e do comoListaLinear() para cada caminho e papel
+ * ✅ Caminhos com percent-encoding e barra final
+ * ✅ Requisições montadas como o container entrega (URI bruta, servletPath decodificado)
+ * ✅ Estáticos e entry point (401 vs login) decididos pelo mesmo caminho
+ *
+ * Tecnologias: Java 21, JUnit 5, Spring Security 6, Spring Test
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A lista linear (AntPathRequestMatcher sobre servletPath + pathInfo) é a
+ * referência: para qualquer requisição, a trie precisa decidir igual.
+ */
+class AutorizacaoPorPrefixoTest {
+
+    private static final int PORTA_APLICACAO = 8080;
+    private static final int PORTA_GERENCIAMENTO = 8081;
+
+    private static final Map<String, Authentication> USUARIOS = Map.of(
+        "anonimo", new AnonymousAuthenticationToken("teste", "anonimo",
+            AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")),
+        "user", UsernamePasswordAuthenticationToken.authenticated("tutor@petdoc.com", null,
+            AuthorityUtils.createAuthorityList("ROLE_USER")),
+        "admin", UsernamePasswordAuthenticationToken.authenticated("admin@petdoc.com", null,
+            AuthorityUtils.createAuthorityList("ROLE_ADMIN"))
+    );
+
+    /** URI bruta → caminho decodificado, como o container preenche o servletPath. */
+    private static final Map<String, String> CAMINHOS = Map.ofEntries(
+        Map.entry("/login", "/login"),
+        Map.entry("/login/", "/login/"),
+        Map.entry("/cadastro", "/cadastro"),
+        Map.entry("/api/auth/login", "/api/auth/login"),
+        Map.entry("/api/pets", "/api/pets"),
+        Map.entry("/api/pets/", "/api/pets/"),
+        Map.entry("/api/pets/42/vacinas", "/api/pets/42/vacinas"),
+        Map.entry("/api/p%65ts/42", "/api/pets/42"),
+        Map.entry("/actuator/health", "/actuator/health"),
+        Map.entry("/actuator/health/", "/actuator/health/"),
+        Map.entry("/actuator/prometheus", "/actuator/prometheus"),
+        Map.entry("/actuator/env", "/actuator/env"),
+        Map.entry("/%61ctuator/env", "/actuator/env"),
+        Map.entry("/actuator/%65nv", "/actuator/env"),
+        Map.entry("/v3/api-docs", "/v3/api-docs"),
+        Map.entry("/v3/%61pi-docs", "/v3/api-docs"),
+        Map.entry("/swagger-ui/index.html", "/swagger-ui/index.html"),
+        Map.entry("/dashboard", "/dashboard"),
+        Map.entry("/dashboard/", "/dashboard/"),
+        Map.entry("/ajuda", "/ajuda"),
+        Map.entry("/", "/"),
+        Map.entry("/notificacoes/pendentes", "/notificacoes/pendentes")
+    );
+
+    private final AutorizacaoPorPrefixo trie = SecurityConfig.regrasDeAutorizacao(PORTA_GERENCIAMENTO);
+    private final AuthorizationManager<RequestAuthorizationContext> linear = trie.comoListaLinear();
+
+    static Stream<Arguments> requisicoes() {
+        return CAMINHOS.entrySet().stream()
+            .flatMap(caminho -> USUARIOS.keySet().stream()
+                .flatMap(usuario -> Stream.of(PORTA_APLICACAO, PORTA_GERENCIAMENTO)
+                    .map(porta -> Arguments.of(caminho.getKey(), caminho.getValue(), usuario, porta))));
+    }
+
+    @ParameterizedTest(name = "{0} ({2}, porta {3})")
+    @MethodSource("requisicoes")
+    void trieDecideIgualAListaLinear(String uri, String caminho, String usuario, int porta) {
+        RequestAuthorizationContext contexto = contexto(uri, caminho, porta);
+        Authentication autenticacao = USUARIOS.get(usuario);
+
+        assertThat(permitido(trie, autenticacao, contexto))
+            .as("%s como %s na porta %d", uri, usuario, porta)
+            .isEqualTo(permitido(linear, autenticacao, contexto));
+    }
+
+    @Test
+    void caminhoCodificadoNaoContornaRegraDeAdmin() {
+        Authentication user = USUARIOS.get("user");
+        for (String uri : List.of("/%61ctuator/env", "/v3/%61pi-docs")) {
+            assertThat(permitido(trie, user, contexto(uri, CAMINHOS.get(uri), PORTA_APLICACAO)))
+                .as(uri)
+                .isFalse();
+        }
+    }
+
+    @Test
+    void caminhoCodificadoNaoContornaRegraDeUser() {
+        Authentication anonimo = USUARIOS.get("anonimo");
+        assertThat(permitido(trie, anonimo, contexto("/api/p%65ts/42", "/api/pets/42", PORTA_APLICACAO)))
+            .isFalse();
+    }
+
+    @Test
+    void prometheusSoNaPortaDeGerenciamentoOuParaAdmin() {
+        Authentication anonimo = USUARIOS.get("anonimo");
+        Authentication user = USUARIOS.get("user");
+        Authentication admin = USUARIOS.get("admin");
+        String uri = "/actuator/prometheus";
+
+        assertThat(permitido(trie, anonimo, contexto(uri, uri, PORTA_GERENCIAMENTO))).isTrue();
+        assertThat(permitido(trie, anonimo, contexto(uri, uri, PORTA_APLICACAO))).isFalse();
+        assertThat(permitido(trie, user, contexto(uri, uri, PORTA_APLICACAO))).isFalse();
+        assertThat(permitido(trie, admin, contexto(uri, uri, PORTA_APLICACAO))).isTrue();
+    }
+
+    @Test
+    void recursoEstaticoUsaCaminhoDecodificado() {
+        assertThat(SecurityConfig.recursoEstatico(request("/c%73s/app.css", "/css/app.css", PORTA_APLICACAO)))
+            .isTrue();
+        assertThat(SecurityConfig.recursoEstatico(request("/api/css", "/api/css", PORTA_APLICACAO)))
+            .isFalse();
+    }
+
+    @Test
+    void entryPointUsaCaminhoDecodificado() {
+        assertThat(SecurityConfig.requisicaoDeApi(request("/%61pi/pets", "/api/pets", PORTA_APLICACAO)))
+            .isTrue();
+        assertThat(SecurityConfig.requisicaoDeApi(request("/dashboard", "/dashboard", PORTA_APLICACAO)))
+            .isFalse();
+    }
+
+    // =========================================================================
+    // AUXILIARES
+    // =========================================================================
+
+    private static RequestAuthorizationContext contexto(String uri, String caminho, int porta) {
+        return new RequestAuthorizationContext(request(uri, caminho, porta));
+    }
+
+    private static MockHttpServletRequest request(String uri, String caminho, int porta) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setServletPath(caminho);
+        request.setLocalPort(porta);
+        return request;
+    }
+
+    private static boolean permitido(AuthorizationManager<RequestAuthorizationContext> gerenciador,
+                                     Authentication autenticacao,
+                                     RequestAuthorizationContext contexto) {
+        AuthorizationDecision decisao = gerenciador.check(() -> autenticacao, contexto);
+        return decisao != null && decisao.isGranted();
+    }
+}
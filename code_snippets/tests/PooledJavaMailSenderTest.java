@@ -0,0 +1,163 @@
+/**
+ * =============================================================================
+ * 🧪 PooledJavaMailSenderTest.java - Validação por NOOP e Nova Tentativa Única
+ * =============================================================================
+ *
+ * Este teste demonstra:
+ * ✅ Conexão reaproveitada sem NOOP enquanto está dentro de validarApos
+ * ✅ NOOP na conexão ociosa além de validarApos, descartando a que caiu
+ * ✅ Conexão que cai no envio trocada por uma nova, com uma única nova tentativa
+ * ✅ Servidor SMTP real (GreenMail) derrubado e reiniciado entre os envios
+ *
+ * Tecnologias: Java 21, JUnit 5, GreenMail, Mockito, AssertJ
+ * =============================================================================
+ */
+
+package com.petdoc.config;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.NoSuchProviderException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Cada Transport criado pelo sender é um spy: o teste sabe quantas conexões
+ * foram abertas e se o NOOP ({@code isConnected()}) foi chamado em cada uma.
+ *
+ * Derrubar a conexão ociosa é feito com {@code greenMail.reset()}, que
+ * reinicia o servidor e fecha os sockets dos clientes.
+ */
+class PooledJavaMailSenderTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final List<Transport> conexoes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger tentativasConexao = new AtomicInteger();
+
+    private PooledJavaMailSender sender;
+
+    @AfterEach
+    void fecharPool() {
+        if (sender != null) {
+            sender.destroy();
+        }
+    }
+
+    @Test
+    void reaproveitaConexaoSemNoopDentroDeValidarApos() throws Exception {
+        sender = criarSender(Duration.ofMinutes(1));
+
+        sender.send(mensagem("rex@petdoc.com"));
+        sender.send(mensagem("mel@petdoc.com"));
+
+        assertThat(conexoes).hasSize(1);
+        verify(conexoes.get(0), never()).isConnected();
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+    }
+
+    @Test
+    void validaConexaoOciosaComNoopAposValidarApos() throws Exception {
+        sender = criarSender(Duration.ZERO);
+
+        sender.send(mensagem("rex@petdoc.com"));
+        sender.send(mensagem("mel@petdoc.com"));
+
+        assertThat(conexoes).hasSize(1);
+        verify(conexoes.get(0), atLeastOnce()).isConnected();
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+    }
+
+    @Test
+    void noopDescartaConexaoQueCaiuDuranteOciosidade() throws Exception {
+        sender = criarSender(Duration.ZERO);
+        sender.send(mensagem("rex@petdoc.com"));
+
+        greenMail.reset();
+        sender.send(mensagem("mel@petdoc.com"));
+
+        assertThat(conexoes).hasSize(2);
+        verify(conexoes.get(0), atLeastOnce()).isConnected();
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    @Test
+    void reenviaUmaVezQuandoConexaoCaiNoEnvio() throws Exception {
+        sender = criarSender(Duration.ofMinutes(1));
+        sender.send(mensagem("rex@petdoc.com"));
+
+        // Dentro de validarApos não há NOOP: a queda só aparece no sendMessage
+        greenMail.reset();
+        sender.send(mensagem("mel@petdoc.com"));
+
+        assertThat(conexoes).hasSize(2);
+        verify(conexoes.get(0), never()).isConnected();
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    @Test
+    void falhaAposUmaUnicaNovaTentativaComServidorForaDoAr() throws Exception {
+        sender = criarSender(Duration.ofMinutes(1));
+        sender.send(mensagem("rex@petdoc.com"));
+
+        greenMail.stop();
+        try {
+            MimeMessage mensagem = mensagem("mel@petdoc.com");
+            assertThatThrownBy(() -> sender.send(mensagem))
+                .isInstanceOf(MailSendException.class);
+
+            // Conexão original + uma única reconexão
+            assertThat(tentativasConexao).hasValue(2);
+        } finally {
+            greenMail.start();
+        }
+    }
+
+    private PooledJavaMailSender criarSender(Duration validarApos) {
+        PooledJavaMailSender pool = new PooledJavaMailSender(
+            1, Duration.ofMinutes(5), validarApos, Duration.ofSeconds(5)) {
+
+            @Override
+            protected Transport getTransport(Session session) throws NoSuchProviderException {
+                tentativasConexao.incrementAndGet();
+                Transport transport = spy(super.getTransport(session));
+                conexoes.add(transport);
+                return transport;
+            }
+        };
+        pool.setHost(ServerSetupTest.SMTP.getBindAddress());
+        pool.setPort(greenMail.getSmtp().getPort());
+        return pool;
+    }
+
+    private MimeMessage mensagem(String para) throws MessagingException {
+        MimeMessage mensagem = sender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mensagem, StandardCharsets.UTF_8.name());
+        helper.setFrom("nao-responda@petdoc.com");
+        helper.setTo(para);
+        helper.setSubject("Lembrete de reforço");
+        helper.setText("<p>Reforço da V10 em 7 dias</p>", true);
+        return mensagem;
+    }
+}